@@ -0,0 +1,84 @@
+package hello.core.discount;
+
+import hello.core.member.CompactMember;
+import hello.core.member.Grade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 일괄 할인 계산 벤치마크 ( ./gradlew jmh )
+ *
+ * 같은 주문 배열에 대해 두 가지 방식을 비교한다.
+ *  - discountAll : 정책이 재정의한 일괄 계산 ( 설정 스냅샷을 한 번만 읽고, VIP 여부를 마스크로 바꿔서 분기 없이 계산 )
+ *  - perOrder : 건마다 discount(CompactMember, int) 를 호출 ( 건마다 설정 스냅샷을 읽고, 등급으로 분기 )
+ *
+ * 등급은 난수로 섞어서 VIP 비율만큼 분기 예측이 어려워지도록 한다. ( vipPercent 50 이 가장 불리하다. )
+ * 결과는 주문 한 건이 아니라 배열 전체( size 건 )를 계산하는 시간이다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiscountAllBenchmark {
+
+    @Param({"RATE", "FIX"})
+    String policy;
+
+    @Param({"4096"})
+    int size;
+
+    @Param({"10", "50"})
+    int vipPercent;
+
+    private DiscountPolicy discountPolicy;
+    private byte[] gradeOrdinals;
+    private int[] prices;
+    private int[] discounts;
+    private CompactMember[] members;
+
+    @Setup
+    public void setUp() {
+
+        discountPolicy = policy.equals("RATE") ? new RateDiscountPolicy() : new FixDiscountPolicy();
+        gradeOrdinals = new byte[size];
+        prices = new int[size];
+        discounts = new int[size];
+
+        Grade[] grades = Grade.values();
+        members = new CompactMember[grades.length];
+        for (Grade grade : grades) {
+            members[grade.ordinal()] = new CompactMember(0L, null, grade);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            Grade grade = random.nextInt(100) < vipPercent ? Grade.VIP : Grade.BASIC;
+            gradeOrdinals[i] = (byte) grade.ordinal();
+            prices[i] = 1000 + random.nextInt(100_000);
+        }
+    }
+
+    @Benchmark
+    public int[] discountAll() {
+        discountPolicy.discountAll(gradeOrdinals, prices, discounts, size);
+        return discounts;
+    }
+
+    @Benchmark
+    public int[] perOrder() {
+
+        for (int i = 0; i < size; i++) {
+            discounts[i] = discountPolicy.discount(members[gradeOrdinals[i]], prices[i]);
+        }
+
+        return discounts;
+    }
+}
@@ -0,0 +1,126 @@
+package hello.core.member;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 저장소 스레드 수별 벤치마크 ( ./gradlew jmh )
+ *
+ * MemoryMemberRepository 와 처음 구현이었던 HashMap<Long, Member> 저장소를 1 / 8 / 32 스레드에서 비교한다.
+ * ( 스레드 수별로 OneThread / EightThreads / ThirtyTwoThreads 하위 클래스가 같은 벤치마크를 실행한다. )
+ *
+ *  - find : 미리 저장해 둔 회원을 무작위 id 로 조회
+ *           HashMap 은 조회만 하면 여러 스레드가 함께 읽어도 구조가 깨지지 않으므로 그대로 비교한다.
+ *  - mixed : 조회 9 번에 저장 1 번
+ *            HashMap 은 동시에 저장하면 구조가 깨지므로, 가장 단순하게 스레드 안전하게 만든 Collections.synchronizedMap 과 비교한다.
+ *
+ * 처리량은 모든 스레드의 초당 연산 수를 합한 값이다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public abstract class MemberRepositoryBenchmark {
+
+    private static final int MEMBERS = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class Repositories {
+
+        final MemoryMemberRepository memoryRepository = new MemoryMemberRepository();
+        final Map<Long, Member> hashMap = new HashMap<>();
+        final Map<Long, Member> synchronizedMap = Collections.synchronizedMap(new HashMap<>());
+        Member[] members;
+
+        @Setup
+        public void setUp() {
+
+            members = new Member[MEMBERS];
+
+            for (int i = 0; i < MEMBERS; i++) {
+                Member member = new Member((long) i, "member" + i, i % 10 == 0 ? Grade.VIP : Grade.BASIC);
+                members[i] = member;
+                memoryRepository.save(member);
+                hashMap.put(member.getId(), member);
+                synchronizedMap.put(member.getId(), member);
+            }
+        }
+    }
+
+    /**
+     * 스레드마다 따로 도는 난수 ( xorshift, 스레드 간 공유 상태 없음 )
+     */
+    @State(Scope.Thread)
+    public static class Ids {
+
+        private long seed = System.nanoTime() | 1;
+        private int operation;
+
+        int next() {
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            return (int) ((seed >>> 1) % MEMBERS);
+        }
+
+        boolean write() {
+            return ++operation % 10 == 0;
+        }
+    }
+
+    @Benchmark
+    public Member findMemoryRepository(Repositories repositories, Ids ids) {
+        return repositories.memoryRepository.findById(ids.next());
+    }
+
+    @Benchmark
+    public Member findHashMap(Repositories repositories, Ids ids) {
+        return repositories.hashMap.get((long) ids.next());
+    }
+
+    @Benchmark
+    public Member mixedMemoryRepository(Repositories repositories, Ids ids) {
+
+        int index = ids.next();
+
+        if (ids.write()) {
+            repositories.memoryRepository.save(repositories.members[index]);
+            return null;
+        }
+
+        return repositories.memoryRepository.findById(index);
+    }
+
+    @Benchmark
+    public Member mixedSynchronizedHashMap(Repositories repositories, Ids ids) {
+
+        int index = ids.next();
+
+        if (ids.write()) {
+            return repositories.synchronizedMap.put((long) index, repositories.members[index]);
+        }
+
+        return repositories.synchronizedMap.get((long) index);
+    }
+
+    @Threads(1)
+    public static class OneThread extends MemberRepositoryBenchmark {
+    }
+
+    @Threads(8)
+    public static class EightThreads extends MemberRepositoryBenchmark {
+    }
+
+    @Threads(32)
+    public static class ThirtyTwoThreads extends MemberRepositoryBenchmark {
+    }
+}
@@ -1,16 +1,30 @@
 package hello.core;
 
+import hello.core.common.ServiceExecutor;
 import hello.core.discount.DiscountPolicy;
+import hello.core.discount.DiscountSettingsHolder;
 import hello.core.discount.FixDiscountPolicy;
+import hello.core.discount.PromotionScheduler;
 import hello.core.discount.RateDiscountPolicy;
+import hello.core.discount.SwitchableDiscountPolicy;
+import hello.core.member.MemberFileLoader;
 import hello.core.member.MemberRepository;
 import hello.core.member.MemberService;
 import hello.core.member.MemberServiceImpl;
 import hello.core.member.MemoryMemberRepository;
+import hello.core.order.ColumnarOrderRepository;
+import hello.core.order.MemberOrderAggregates;
+import hello.core.order.OrderIdGenerator;
+import hello.core.order.OrderIngestionPipeline;
+import hello.core.order.OrderRepository;
 import hello.core.order.OrderService;
 import hello.core.order.OrderServiceImpl;
+import hello.core.order.WaitStrategy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
 /**
  * 구현 객체를 생성하고, 연결하는 책임을 가지는 별도의 설정 클래스
@@ -26,8 +40,92 @@ import org.springframework.context.annotation.Configuration;
  * @Bean : 각 메서드에 붙여주면 스프링 컨테이너에 스프링 빈으로 등록된다.
  */
 @Configuration
+@Import({ServiceExecutor.class, MemberOrderAggregates.class, OrderIdGenerator.class, DiscountSettingsHolder.class,
+        RateDiscountPolicy.class, SwitchableDiscountPolicy.class, PromotionScheduler.class})
 public class AppConfig {
 
+    /**
+     * 비동기 서비스 API 실행기 ( application.properties 의 service.executor.* 로 설정 )
+     *
+     * 스레드 수와 대기 큐 크기가 제한되어 있고, 큐가 가득 차면 작업을 거절한다.
+     * 컴포넌트 스캔으로 등록되는 빈을 생성자로 주입받는다. ( 여기서 @Bean 으로 다시 등록하면 스프링 부트에서 빈 이름이 충돌한다. )
+     * 컴포넌트 스캔 없이 AppConfig 만으로 컨테이너를 만들 때는 @Import 로 등록된 빈이 주입된다.
+     */
+    private final ServiceExecutor serviceExecutor;
+
+    /**
+     * 회원별 주문 집계
+     *
+     * 주문 서비스와 주문 수집 파이프라인이 같은 집계에 누적해야 집계 조회 결과가 맞으므로, 실행기와 같이 하나의 빈을 주입받는다.
+     */
+    private final MemberOrderAggregates memberOrderAggregates;
+
+    /**
+     * 주문 id 생성기 ( 노드 id 는 application.properties 의 order.id.node-id )
+     *
+     * 주문 서비스와 주문 수집 파이프라인이 같은 생성기에서 id 를 발급받아야 id 가 겹치지 않는다.
+     * 같은 노드 id 의 생성기가 둘이면 같은 id 를 발급할 수 있으므로, 하나의 빈을 주입받는다.
+     */
+    private final OrderIdGenerator orderIdGenerator;
+
+    /**
+     * 할인 설정 ( 설정 파일은 application.properties 의 discount.settings.path )
+     *
+     * 할인 정책이 매번 현재 스냅샷에서 할인율 / 할인 금액을 읽으므로, 설정 파일이나 관리자 API 로 바꾸면 바로 반영된다.
+     * 설정을 바꾸는 쪽과 할인 정책이 같은 설정을 봐야 하므로 하나의 빈을 주입받는다.
+     */
+    private final DiscountSettingsHolder discountSettingsHolder;
+
+    /**
+     * 주문 서비스에 주입하는 할인 정책 ( @MainDiscountPolicy, 기본 정책은 RateDiscountPolicy )
+     *
+     * 예약한 시각에 PromotionScheduler 빈이 실제 정책을 바꿔 끼우므로, 스케줄러와 같은 하나의 빈을 주입받는다.
+     */
+    private final SwitchableDiscountPolicy switchableDiscountPolicy;
+
+    /**
+     * 스프링 컨테이너 없이 직접 생성할 때 사용 ( 기본 설정의 실행기, 새 집계, 노드 id 0 의 생성기, 기본 할인 설정 )
+     */
+    public AppConfig() {
+        this(new ServiceExecutor(0, 0), new MemberOrderAggregates(), new OrderIdGenerator(0), new DiscountSettingsHolder());
+    }
+
+    private AppConfig(ServiceExecutor serviceExecutor, MemberOrderAggregates memberOrderAggregates,
+                      OrderIdGenerator orderIdGenerator, DiscountSettingsHolder discountSettingsHolder) {
+        this(serviceExecutor, memberOrderAggregates, orderIdGenerator, discountSettingsHolder,
+                new SwitchableDiscountPolicy(new RateDiscountPolicy(discountSettingsHolder)));
+    }
+
+    @Autowired
+    public AppConfig(ServiceExecutor serviceExecutor, MemberOrderAggregates memberOrderAggregates,
+                     OrderIdGenerator orderIdGenerator, DiscountSettingsHolder discountSettingsHolder,
+                     SwitchableDiscountPolicy switchableDiscountPolicy) {
+        this.serviceExecutor = serviceExecutor;
+        this.memberOrderAggregates = memberOrderAggregates;
+        this.orderIdGenerator = orderIdGenerator;
+        this.discountSettingsHolder = discountSettingsHolder;
+        this.switchableDiscountPolicy = switchableDiscountPolicy;
+    }
+
+    /**
+     * 주문 수집 파이프라인 설정 ( application.properties, 없으면 기본값 )
+     *  - order.ingestion.capacity : 링 버퍼 슬롯 수 ( 0 이면 1024 )
+     *  - order.ingestion.consumers : 소비자 스레드 수 ( 0 이면 1 )
+     *  - order.ingestion.batch-size : 소비자가 한 번에 꺼내는 최대 주문 수 ( 0 이면 64 )
+     *  - order.ingestion.wait-strategy : BUSY_SPIN / YIELDING / SLEEPING ( 없으면 SLEEPING )
+     */
+    @Value("${order.ingestion.capacity:0}")
+    private int orderIngestionCapacity;
+
+    @Value("${order.ingestion.consumers:0}")
+    private int orderIngestionConsumers;
+
+    @Value("${order.ingestion.batch-size:0}")
+    private int orderIngestionBatchSize;
+
+    @Value("${order.ingestion.wait-strategy:SLEEPING}")
+    private WaitStrategy orderIngestionWaitStrategy;
+
     /**
      * memoryMemberRepository 객체를 생성 후, 그 참조값을 memberServiceImpl 을 생성하면서 생성자로 전달
      *
@@ -39,7 +137,7 @@ public class AppConfig {
         // memberService() 호출 로그
         System.out.println("call AppConfig.memberService");
 
-        return new MemberServiceImpl(memberRepository());
+        return new MemberServiceImpl(memberRepository(), serviceExecutor);
     }
 
     /**
@@ -53,7 +151,8 @@ public class AppConfig {
         // orderService() 호출 로그
         System.out.println("call AppConfig.orderService");
 
-        return new OrderServiceImpl(memberRepository(), discountPolicy());
+        return new OrderServiceImpl(memberRepository(), discountPolicy(), orderRepository(), memberOrderAggregates,
+                orderIdGenerator, serviceExecutor);
     }
 
     /**
@@ -61,6 +160,11 @@ public class AppConfig {
      *
      * new MemoryMemberRepository() 부분 중복 제거
      * 장점 : MemoryMemberRepository 를 다른 구현체로 변경할 때 한 부분만 변경하면 된다.
+     *
+     * 재시작 후에도 회원을 유지해야 하면 파일 기반의 MappedMemberRepository 로 변경
+     * ( 컨테이너 종료 시 close 가 자동으로 호출되어 로그 파일이 닫힌다. )
+     *
+     * 느린 저장소를 사용할 때는 CachingMemberRepository 로 감싸서 조회 결과를 캐시할 수 있다.
      * @return
      */
     @Bean
@@ -69,21 +173,97 @@ public class AppConfig {
         // memberRepository() 호출 로그
         System.out.println("call AppConfig.memberRepository");
 
+        // 메모리 회원 저장소를 파일 기반 회원 저장소로 변경
+//        return new hello.core.member.MappedMemberRepository("members.log");
+        // 파일 기반 회원 저장소 앞에 조회 캐시 적용
+//        return new hello.core.member.CachingMemberRepository(new hello.core.member.MappedMemberRepository("members.log"), 10_000);
         return new MemoryMemberRepository();
     }
 
+    /**
+     * 주문 저장소 역할
+     *
+     * 주문을 Order 객체 대신 컬럼별 기본형 배열로 보관한다.
+     *
+     * 재시작 후에도 주문을 유지해야 하면 WalOrderRepository 로 감싸서 주문을 로그 파일에 먼저 기록한다.
+     * ( 시작할 때 로그의 주문으로 저장소를 복구하고, 컨테이너 종료 시 close 가 자동으로 호출되어 로그가 닫힌다. )
+     *
+     * 회원별 주문 조회가 많으면 SegmentOrderStore 로 변경해서 주문을 회원 id 순의 세그먼트 파일에 보관한다.
+     * ( SegmentOrderStore 는 메모리 버퍼의 주문을 자체 로그로 복구하므로 WalOrderRepository 로 감싸지 않는다. )
+     *
+     * @return
+     */
+    @Bean
+    public OrderRepository orderRepository() {
+
+        // 주문 저장 전에 로그에 먼저 기록 ( 그룹 커밋 )
+//        return new hello.core.order.WalOrderRepository(new ColumnarOrderRepository(), new hello.core.order.OrderWriteAheadLog("orders-wal"));
+        // 회원 id 순으로 정렬된 세그먼트 파일에 보관 ( 회원별 주문 조회 )
+//        return new hello.core.order.SegmentOrderStore("orders");
+        return new ColumnarOrderRepository();
+    }
+
+    /**
+     * 주문 수집 파이프라인
+     *
+     * 주문이 몰릴 때 요청 스레드는 tryPublish 로 링 버퍼에 주문 요청만 넣고,
+     * 소비자 스레드가 묶음 단위로 회원 조회 / 할인 / 저장을 처리한다.
+     * ( 빈 초기화 시 소비자 스레드가 시작되고, 컨테이너 종료 시 남은 주문을 처리한 뒤 종료된다. )
+     *
+     * @return
+     */
+    @Bean
+    public OrderIngestionPipeline orderIngestionPipeline() {
+        return new OrderIngestionPipeline(memberRepository(), discountPolicy(), orderRepository(), memberOrderAggregates,
+                orderIdGenerator, orderIngestionCapacity, orderIngestionConsumers, orderIngestionBatchSize, orderIngestionWaitStrategy);
+    }
+
+    /**
+     * 회원 파일 일괄 로더
+     *
+     * application.properties 의 설정 값으로 구성
+     *  - member.loader.path : 시작 시 로딩할 회원 파일 ( CSV 또는 바이너리, 비어 있으면 로딩하지 않음 )
+     *  - member.loader.parallelism : 파싱 스레드 수 ( 0 이면 CPU 코어 수 )
+     *  - member.loader.chunk-size : 한 작업이 맡는 청크 크기 ( byte, 0 이면 기본값 8MB )
+     *
+     * @param path
+     * @param parallelism
+     * @param chunkSize
+     * @return
+     */
+    @Bean
+    public MemberFileLoader memberFileLoader(@Value("${member.loader.path:}") String path,
+                                             @Value("${member.loader.parallelism:0}") int parallelism,
+                                             @Value("${member.loader.chunk-size:0}") int chunkSize) {
+        return new MemberFileLoader(memberRepository(), path, parallelism, chunkSize);
+    }
+
     /**
      * 할인 정책 역할
      *
      * new FixDiscountPolicy() 부분 중복 제거
      * 장점 : FixDiscountPolicy 를 다른 구현체로 변경할 때 한 부분만 변경하면 된다.
-     * 
+     *
+     * 기본으로는 시간대별 프로모션을 적용할 수 있는 SwitchableDiscountPolicy 를 사용한다.
+     * 빈은 컴포넌트 스캔 ( 스캔 없이 AppConfig 만 사용하면 @Import ) 으로 한 번만 등록되므로 여기서는 @Bean 으로 다시 등록하지 않는다.
+     * ( 같은 객체가 두 이름으로 등록되면 PromotionScheduler 에 주입할 빈을 고를 수 없다. )
+     * ex) promotionScheduler.schedule("flashSale", RuleDiscountPolicy.of("grade=VIP percent=30"), start, end)
+     *
      * @return
      */
-    @Bean
     public DiscountPolicy discountPolicy() {
         // 정액 할인 정책을 정률% 할인 정책으로 변경
-//        return new FixDiscountPolicy();
-        return new RateDiscountPolicy();
+//        return new FixDiscountPolicy(discountSettingsHolder);
+        // 선언한 규칙으로 동작하는 할인 정책 ( 아래는 RateDiscountPolicy 와 같은 규칙 )
+//        return hello.core.discount.RuleDiscountPolicy.of("grade=VIP percent=10");
+        // 여러 할인 정책 중 할인 금액이 가장 큰 정책을 적용 ( 정책 코드 -> 정책, 등록 순서대로 핸들 발급 )
+//        java.util.Map<String, DiscountPolicy> policies = new java.util.LinkedHashMap<>();
+//        policies.put("fixDiscountPolicy", new FixDiscountPolicy(discountSettingsHolder));
+//        policies.put("rateDiscountPolicy", new RateDiscountPolicy(discountSettingsHolder));
+//        return new hello.core.discount.CompositeDiscountPolicy(policies);
+        // 프로모션 없이 정률% 할인 정책만 적용
+//        return new RateDiscountPolicy(discountSettingsHolder);
+        // 예약한 시간대에만 프로모션 정책을 적용 ( 평소에는 RateDiscountPolicy, PromotionScheduler 빈이 정책을 바꿔 끼운다. )
+        return switchableDiscountPolicy;
     }
 }
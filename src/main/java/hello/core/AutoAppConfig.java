@@ -1,11 +1,13 @@
 package hello.core;
 
+import hello.core.member.CachingMemberRepository;
 import hello.core.member.MemberRepository;
 import hello.core.member.MemoryMemberRepository;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
 
 /**
  * @ComponentScan 어노테이션
@@ -89,5 +91,21 @@ public class AutoAppConfig {
 //    @Bean(name = "memoryMemberRepository")
 //    MemberRepository memberRepository() {
 //        return new MemoryMemberRepository();
+//    }
+
+    /**
+     * 조회 캐시 적용
+     *
+     * 컴포넌트 스캔으로 등록된 memoryMemberRepository 를 CachingMemberRepository 로 감싸서 등록한다.
+     * 같은 타입(MemberRepository)의 빈이 2개가 되므로 @Primary 를 붙여서 MemberServiceImpl, OrderServiceImpl 에는
+     * 캐시가 적용된 빈이 주입되도록 한다.
+     *
+     * @param memoryMemberRepository
+     * @return
+     */
+//    @Bean
+//    @Primary
+//    MemberRepository cachingMemberRepository(MemoryMemberRepository memoryMemberRepository) {
+//        return new CachingMemberRepository(memoryMemberRepository, 10_000);
 //    }
 }
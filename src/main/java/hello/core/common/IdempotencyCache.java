@@ -0,0 +1,214 @@
+package hello.core.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 멱등 키 캐시
+ *
+ * 클라이언트가 같은 멱등 키로 다시 요청하면, 작업을 다시 수행하지 않고 처음 요청의 결과를 그대로 반환한다.
+ *
+ * 같은 키, 다른 요청
+ *  : 키를 처음 기억할 때 요청 내용(request)도 함께 기억하고, 같은 키로 다른 내용의 요청이 오면 IllegalArgumentException 으로 거절한다.
+ *    => 클라이언트가 키를 잘못 재사용해서 다른 주문의 결과를 받는 일이 없다. ( 요청 내용은 equals 로 비교한다. )
+ *
+ * 제한
+ *  : 키는 최대 maximumSize 개까지만 기억하고, 넘으면 가장 오래된 키부터 잊는다.
+ *  : 키는 ttl 이 지나면 만료되어, 같은 키로 다시 요청하면 새 작업으로 처리된다.
+ *  : 단, 작업이 아직 끝나지 않은 키는 크기나 ttl 때문에 잊지 않는다. ( 잊으면 그 사이의 재시도가 작업을 중복 수행한다. )
+ *    => 동시에 진행 중인 작업 수만큼은 maximumSize 를 잠시 넘을 수 있다.
+ *
+ * 동시성 처리
+ *  : 키의 해시로 나눈 스트라이프마다 삽입 순서의 LinkedHashMap 과 락을 따로 두어서, 서로 다른 키의 요청끼리는 대부분 경합하지 않는다.
+ *  : 락은 키를 확인하고 자리를 잡는 동안만 잡고, 실제 작업은 락 밖에서 수행한다.
+ *  : 처음 요청이 자리를 잡을 때 결과 대신 CompletableFuture 를 넣어 두므로,
+ *    작업이 끝나기 전에 같은 키로 들어온 재시도는 작업을 중복 수행하지 않고 처음 요청의 결과를 기다린다.
+ *  : 작업이 실패하면 키를 지워서 다음 재시도가 다시 수행할 수 있도록 한다. ( 기다리던 요청은 같은 예외를 받는다. )
+ *
+ * @param <V>
+ */
+public class IdempotencyCache<V> {
+
+    // 스트라이프 개수 ( 2의 제곱수 )
+    private static final int STRIPES = 16;
+
+    private final Stripe<V>[] stripes;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param maximumSize 기억할 최대 키 수
+     * @param ttlMillis   키를 기억하는 시간 ( ms )
+     */
+    public IdempotencyCache(int maximumSize, long ttlMillis) {
+        this(maximumSize, ttlMillis, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    IdempotencyCache(int maximumSize, long ttlMillis, LongSupplier nanoClock) {
+
+        if (maximumSize < STRIPES || ttlMillis <= 0) {
+            throw new IllegalArgumentException("maximumSize 는 " + STRIPES + " 이상, ttlMillis 는 0 보다 커야 합니다.");
+        }
+
+        this.stripes = new Stripe[STRIPES];
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.nanoClock = nanoClock;
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe<>(maximumSize / STRIPES);
+        }
+    }
+
+    /**
+     * 키의 결과가 있으면 반환하고, 없으면 작업을 수행해서 결과를 기억한 뒤 반환
+     *
+     * @param key
+     * @param task 키에 대해 처음 한 번만 수행할 작업
+     * @return
+     */
+    public V getOrCompute(String key, Supplier<V> task) {
+        return getOrCompute(key, null, task);
+    }
+
+    /**
+     * 키의 결과가 있으면 반환하고, 없으면 작업을 수행해서 결과를 기억한 뒤 반환
+     *
+     * @param key
+     * @param request 요청 내용 ( 같은 키로 다시 요청할 때 equals 로 비교한다. )
+     * @param task    키에 대해 처음 한 번만 수행할 작업
+     * @return
+     * @throws IllegalArgumentException 같은 키로 기억하고 있는 요청과 내용이 다르면
+     */
+    public V getOrCompute(String key, Object request, Supplier<V> task) {
+
+        Stripe<V> stripe = stripes[spread(key.hashCode()) & (STRIPES - 1)];
+        Entry<V> entry = new Entry<>(new CompletableFuture<>(), request, nanoClock.getAsLong());
+        Entry<V> existing;
+
+        synchronized (stripe) {
+            existing = stripe.entries.get(key);
+
+            if (existing != null && existing.isExpired(entry.createdNanos, ttlNanos)) {
+                stripe.entries.remove(key);
+                existing = null;
+            }
+            if (existing == null) {
+                stripe.entries.put(key, entry);
+                stripe.evict(entry.createdNanos, ttlNanos);
+            }
+        }
+
+        if (existing != null) {
+            if (!Objects.equals(existing.request, request)) {
+                throw new IllegalArgumentException("같은 멱등 키로 다른 요청을 보냈습니다. key = " + key);
+            }
+
+            return await(existing.future);
+        }
+
+        try {
+            V value = task.get();
+            entry.future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            synchronized (stripe) {
+                stripe.entries.remove(key, entry);
+            }
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 현재 기억하고 있는 키 수 ( 만료되었지만 아직 정리되지 않은 키 포함 )
+     *
+     * @return
+     */
+    public int size() {
+
+        int size = 0;
+
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+
+        return size;
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Stripe<V> {
+
+        private final int capacity;
+        private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>();
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * 삽입 순서이므로 가장 앞의 항목이 가장 오래된 항목이다.
+         * 크기를 넘었거나 만료된 항목을 앞에서부터 지우고, 작업이 끝나지 않은 항목은 건너뛴다.
+         */
+        private void evict(long nowNanos, long ttlNanos) {
+
+            Iterator<Map.Entry<String, Entry<V>>> iterator = entries.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+                Entry<V> eldest = iterator.next().getValue();
+
+                if (entries.size() <= capacity && nowNanos - eldest.createdNanos < ttlNanos) {
+                    return;
+                }
+
+                if (eldest.future.isDone()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final CompletableFuture<V> future;
+        private final Object request;
+        private final long createdNanos;
+
+        private Entry(CompletableFuture<V> future, Object request, long createdNanos) {
+            this.future = future;
+            this.request = request;
+            this.createdNanos = createdNanos;
+        }
+
+        /**
+         * 작업이 끝났고 ttl 이 지났는지
+         */
+        private boolean isExpired(long nowNanos, long ttlNanos) {
+            return future.isDone() && nowNanos - createdNanos >= ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package hello.core.common;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * long 기본형 키를 사용하는 오픈 어드레싱(선형 탐사) 해시 테이블
+ *
+ * - 키를 Long 으로 박싱하지 않으므로 조회 시마다 객체가 생성되지 않는다.
+ * - 조회(get)는 락 없이 동작하고, 쓰기(put)는 호출하는 쪽에서 하나의 스레드만 수행하도록 동기화해야 한다.
+ *   ( 예: MemoryMemberRepository 는 세그먼트 단위로 synchronized 후 put 을 호출 )
+ *
+ * 동시성 보장 방식
+ *  : 쓰기 스레드는 keys[i] 를 먼저 기록한 뒤 values 에 volatile 쓰기로 값을 기록한다.
+ *  : 읽기 스레드는 values 를 volatile 읽기로 먼저 확인하므로, 값이 보이면 같은 슬롯의 키도 항상 보인다.
+ *  : 테이블 확장 시에는 새 테이블을 완전히 채운 뒤 volatile 필드로 교체하므로, 읽기 스레드는 항상 완성된 테이블만 본다.
+ *
+ * 값으로 null 은 허용하지 않는다. ( null 은 빈 슬롯을 의미 )
+ * 삭제 연산은 제공하지 않는다.
+ *
+ * @param <V>
+ */
+public final class LongObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // 슬롯의 절반까지만 채워서 탐사 길이를 짧게 유지
+    private static final int MAX_LOAD_PERCENT = 50;
+
+    private volatile Table<V> table;
+    private volatile int size;
+
+    public LongObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 리사이즈 없이 담을 수 있는 예상 원소 수
+     */
+    public LongObjectMap(int expectedSize) {
+        this.table = new Table<>(capacityFor(expectedSize));
+    }
+
+    /**
+     * 락 없이 조회
+     *
+     * @param key
+     * @return 값이 없으면 null
+     */
+    public V get(long key) {
+
+        Table<V> t = table;
+        int i = indexFor(key, t.mask);
+
+        while (true) {
+            V value = t.values.get(i);
+
+            if (value == null) {
+                return null;
+            }
+            if (t.keys[i] == key) {
+                return value;
+            }
+
+            i = (i + 1) & t.mask;
+        }
+    }
+
+    /**
+     * 저장 ( 쓰기 스레드는 하나여야 한다. )
+     *
+     * @param key
+     * @param value
+     * @return 이전 값, 없었으면 null
+     */
+    public V put(long key, V value) {
+
+        if (value == null) {
+            throw new IllegalArgumentException("null 값은 저장할 수 없습니다.");
+        }
+
+        ensureCapacity(1);
+
+        Table<V> t = table;
+        int i = indexFor(key, t.mask);
+
+        while (true) {
+            V current = t.values.get(i);
+
+            if (current == null) {
+                t.keys[i] = key;
+                t.values.set(i, value);
+                size = size + 1;
+                return null;
+            }
+            if (t.keys[i] == key) {
+                t.values.set(i, value);
+                return current;
+            }
+
+            i = (i + 1) & t.mask;
+        }
+    }
+
+    /**
+     * 앞으로 추가될 원소 수만큼 미리 테이블을 확장 ( 쓰기 스레드는 하나여야 한다. )
+     *
+     * @param additional
+     */
+    public void ensureCapacity(int additional) {
+
+        Table<V> t = table;
+        long required = (long) size + additional;
+
+        if (required * 100 <= (long) t.keys.length * MAX_LOAD_PERCENT) {
+            return;
+        }
+
+        Table<V> resized = new Table<>(capacityFor(required));
+
+        for (int i = 0; i < t.keys.length; i++) {
+            V value = t.values.get(i);
+
+            if (value != null) {
+                resized.insertNew(t.keys[i], value);
+            }
+        }
+
+        table = resized;
+    }
+
+    /**
+     * 저장된 모든 키 / 값을 순회 ( 순서는 보장하지 않는다. )
+     *
+     * @param consumer
+     */
+    public void forEach(EntryConsumer<? super V> consumer) {
+
+        Table<V> t = table;
+
+        for (int i = 0; i < t.keys.length; i++) {
+            V value = t.values.get(i);
+
+            if (value != null) {
+                consumer.accept(t.keys[i], value);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static int capacityFor(long expectedSize) {
+
+        long needed = Math.max(DEFAULT_CAPACITY, expectedSize * 100 / MAX_LOAD_PERCENT + 1);
+
+        if (needed > (1 << 30)) {
+            throw new IllegalStateException("용량 초과 : " + expectedSize);
+        }
+
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private static int indexFor(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * 박싱 없이 키 / 값을 전달받는 콜백
+     *
+     * @param <V>
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private static final class Table<V> {
+
+        final long[] keys;
+        final AtomicReferenceArray<V> values;
+        final int mask;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        /**
+         * 아직 공개되지 않은 테이블에 중복 없는 키를 채워 넣을 때만 사용
+         */
+        void insertNew(long key, V value) {
+
+            int i = indexFor(key, mask);
+
+            while (values.get(i) != null) {
+                i = (i + 1) & mask;
+            }
+
+            keys[i] = key;
+            values.lazySet(i, value);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package hello.core.common;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 서비스 비동기 API 전용 실행기
+ *
+ * MemberService.findMemberAsync, OrderService.createOrderAsync 가 이 실행기에서 수행된다.
+ * 저장소가 파일이나 원격 저장소처럼 느린 구현체일 때, 웹 요청 스레드가 저장소 I/O 를 기다리며 묶이지 않도록 한다.
+ *
+ * 제한
+ *  : 스레드 수와 대기 큐 크기가 고정되어 있어서, 요청이 몰려도 스레드나 대기 작업이 끝없이 늘어나지 않는다.
+ *  : 큐가 가득 차면 작업을 거절하고 거절 횟수를 기록하며, 호출한 쪽에는 RejectedExecutionException 으로 실패한 future 를 반환한다.
+ *
+ * 스레드는 데몬 스레드이고 일정 시간 작업이 없으면 종료되므로, 사용하지 않는 실행기는 스레드를 점유하지 않는다.
+ * 컨테이너 종료 시 @PreDestroy 로 종료된다.
+ *
+ * 회원 서비스와 주문 서비스가 같은 실행기를 사용하도록 컴포넌트 스캔으로 한 번만 등록한다.
+ * ( AppConfig 는 직접 만들지 않고 생성자로 주입받는다. )
+ *
+ * @Component 어노테이션 : 스프링 빈으로 등록
+ */
+@Component
+public class ServiceExecutor implements Executor {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_000;
+    private static final AtomicInteger POOL_SEQUENCE = new AtomicInteger();
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * @param threads       작업 스레드 수 ( application.properties 의 service.executor.threads, 0 이하이면 CPU 코어 수 )
+     * @param queueCapacity 대기 큐 크기 ( application.properties 의 service.executor.queue-capacity, 0 이하이면 1000 )
+     */
+    @Autowired
+    public ServiceExecutor(@Value("${service.executor.threads:0}") int threads,
+                           @Value("${service.executor.queue-capacity:0}") int queueCapacity) {
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        this.queueCapacity = queueCapacity > 0 ? queueCapacity : DEFAULT_QUEUE_CAPACITY;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), daemonThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 작업 실행
+     *
+     * @param command
+     * @throws RejectedExecutionException 대기 큐가 가득 찼거나 실행기가 종료된 경우
+     */
+    @Override
+    public void execute(Runnable command) {
+
+        try {
+            executor.execute(command);
+            submittedCount.increment();
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * 작업을 비동기로 실행하고 결과를 future 로 반환
+     *
+     * 거절된 경우에도 예외를 던지지 않고 실패한 future 를 반환하므로, 호출한 쪽은 future 로만 결과를 처리하면 된다.
+     *
+     * @param supplier
+     * @param <T>
+     * @return
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+
+        try {
+            return CompletableFuture.supplyAsync(supplier, this);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public long submittedCount() {
+        return submittedCount.sum();
+    }
+
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long completedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * 현재 대기 중인 작업 수
+     *
+     * @return
+     */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * 새 작업은 받지 않고, 이미 받은 작업은 끝까지 실행한다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceExecutor{" +
+                "threads=" + executor.getMaximumPoolSize() +
+                ", active=" + activeCount() +
+                ", queueDepth=" + queueDepth() + "/" + queueCapacity +
+                ", submitted=" + submittedCount() +
+                ", rejected=" + rejectedCount() +
+                '}';
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+
+        int pool = POOL_SEQUENCE.incrementAndGet();
+        AtomicInteger sequence = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, "service-executor-" + pool + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
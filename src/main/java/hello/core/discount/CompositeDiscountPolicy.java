@@ -0,0 +1,197 @@
+package hello.core.discount;
+
+import hello.core.member.CompactMember;
+import hello.core.member.Member;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 여러 할인 정책을 묶은 할인 정책
+ *
+ * AllBeanTest.DiscountService 처럼 Map<String, DiscountPolicy> 에서 코드 문자열로 정책을 찾으면 호출마다 문자열 해시를 계산한다.
+ * 이 클래스는 생성할 때 정책 코드마다 0 부터 시작하는 정수 핸들을 발급하고, 정책을 핸들 순서의 배열에 담아 둔다.
+ *  - 코드로 선택 : 시작할 때 handleOf 로 코드를 핸들로 바꿔 두고, 주문마다 discount(handle, ...) 로 배열에서 바로 찾는다.
+ *  - 최대 할인 : 모든 정책을 한 번씩 계산해서 할인 금액이 가장 큰 정책을 적용한다. ( 같으면 핸들이 작은 정책 )
+ *
+ * DiscountPolicy 로 사용하면 최대 할인을 적용하고, decide 를 호출하면 어느 정책이 적용되었는지도 반환한다.
+ * 정책별로 최대 할인으로 선택된 횟수를 기록해 두므로, 감사(audit) 용도로 조회할 수 있다. ( winCount )
+ *
+ * 묶을 정책들이 모두 DiscountPolicy 빈이므로, 이 클래스를 @Component 로 등록하면 자기 자신을 주입받게 된다.
+ * => 빈으로 사용할 때는 AppConfig 에서 직접 생성한다.
+ */
+public class CompositeDiscountPolicy implements DiscountPolicy {
+
+    private final String[] codes;
+    private final DiscountPolicy[] policies;
+    private final LongAdder[] wins;
+
+    /**
+     * @param policies 정책 코드 ( 빈 이름 ) -> 할인 정책, 순회 순서대로 핸들을 발급한다.
+     */
+    public CompositeDiscountPolicy(Map<String, ? extends DiscountPolicy> policies) {
+
+        if (policies.isEmpty()) {
+            throw new IllegalArgumentException("할인 정책이 하나 이상 있어야 합니다.");
+        }
+
+        int size = policies.size();
+        this.codes = new String[size];
+        this.policies = new DiscountPolicy[size];
+        this.wins = new LongAdder[size];
+
+        int handle = 0;
+
+        for (Map.Entry<String, ? extends DiscountPolicy> entry : policies.entrySet()) {
+            codes[handle] = entry.getKey();
+            this.policies[handle] = entry.getValue();
+            wins[handle] = new LongAdder();
+            handle++;
+        }
+    }
+
+    /**
+     * 정책 코드 -> 핸들 ( 시작할 때 한 번만 호출한다. )
+     *
+     * @param code
+     * @return
+     */
+    public int handleOf(String code) {
+
+        for (int handle = 0; handle < codes.length; handle++) {
+            if (codes[handle].equals(code)) {
+                return handle;
+            }
+        }
+
+        throw new IllegalArgumentException("할인 정책이 없습니다. code = " + code);
+    }
+
+    public String codeOf(int handle) {
+        return codes[handle];
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * 핸들로 선택한 정책의 할인 금액
+     *
+     * @param handle
+     * @param member
+     * @param itemName
+     * @param price
+     * @return
+     */
+    public int discount(int handle, CompactMember member, String itemName, int price) {
+        return policies[handle].discount(member, itemName, price);
+    }
+
+    public int discount(int handle, Member member, String itemName, int price) {
+        return policies[handle].discount(member, itemName, price);
+    }
+
+    /**
+     * 모든 정책 중 할인 금액이 가장 큰 정책을 적용하고, 어느 정책이 적용되었는지 반환
+     *
+     * @param member
+     * @param itemName
+     * @param price
+     * @return 할인이 없으면 DiscountDecision.NONE
+     */
+    public DiscountDecision decide(CompactMember member, String itemName, int price) {
+        return toDecision(best(member, itemName, price));
+    }
+
+    public DiscountDecision decide(Member member, String itemName, int price) {
+        return toDecision(best(member, itemName, price));
+    }
+
+    @Override
+    public int discount(Member member, int price) {
+        return amountOf(best(member, null, price));
+    }
+
+    @Override
+    public int discount(CompactMember member, int price) {
+        return amountOf(best(member, null, price));
+    }
+
+    @Override
+    public int discount(Member member, String itemName, int price) {
+        return amountOf(best(member, itemName, price));
+    }
+
+    @Override
+    public int discount(CompactMember member, String itemName, int price) {
+        return amountOf(best(member, itemName, price));
+    }
+
+    /**
+     * 정책이 최대 할인으로 선택된 횟수
+     *
+     * @param code
+     * @return
+     */
+    public long winCount(String code) {
+        return wins[handleOf(code)].sum();
+    }
+
+    /**
+     * 결과를 객체로 만들지 않도록 (핸들, 할인 금액) 을 long 하나에 담아서 반환한다.
+     */
+    private long best(CompactMember member, String itemName, int price) {
+
+        int bestHandle = -1;
+        int bestAmount = 0;
+
+        for (int handle = 0; handle < policies.length; handle++) {
+            int amount = policies[handle].discount(member, itemName, price);
+
+            if (amount > bestAmount) {
+                bestHandle = handle;
+                bestAmount = amount;
+            }
+        }
+
+        return record(bestHandle, bestAmount);
+    }
+
+    private long best(Member member, String itemName, int price) {
+
+        int bestHandle = -1;
+        int bestAmount = 0;
+
+        for (int handle = 0; handle < policies.length; handle++) {
+            int amount = policies[handle].discount(member, itemName, price);
+
+            if (amount > bestAmount) {
+                bestHandle = handle;
+                bestAmount = amount;
+            }
+        }
+
+        return record(bestHandle, bestAmount);
+    }
+
+    private long record(int handle, int amount) {
+
+        if (handle >= 0) {
+            wins[handle].increment();
+        }
+
+        return (long) handle << 32 | (amount & 0xFFFFFFFFL);
+    }
+
+    private DiscountDecision toDecision(long best) {
+
+        int handle = (int) (best >> 32);
+
+        return handle < 0 ? DiscountDecision.NONE : new DiscountDecision(codes[handle], handle, amountOf(best));
+    }
+
+    private static int amountOf(long best) {
+        return (int) best;
+    }
+}
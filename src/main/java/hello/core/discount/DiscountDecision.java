@@ -0,0 +1,44 @@
+package hello.core.discount;
+
+/**
+ * 할인 결정 결과 ( CompositeDiscountPolicy.decide )
+ *
+ *  - code : 적용된 할인 정책 코드 ( 할인이 없으면 null )
+ *  - handle : 적용된 할인 정책 핸들 ( 할인이 없으면 -1 )
+ *  - discountPrice : 할인 금액
+ */
+public final class DiscountDecision {
+
+    public static final DiscountDecision NONE = new DiscountDecision(null, -1, 0);
+
+    private final String code;
+    private final int handle;
+    private final int discountPrice;
+
+    public DiscountDecision(String code, int handle, int discountPrice) {
+        this.code = code;
+        this.handle = handle;
+        this.discountPrice = discountPrice;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public int getHandle() {
+        return handle;
+    }
+
+    public int getDiscountPrice() {
+        return discountPrice;
+    }
+
+    @Override
+    public String toString() {
+        return "DiscountDecision{" +
+                "code='" + code + '\'' +
+                ", handle=" + handle +
+                ", discountPrice=" + discountPrice +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package hello.core.discount;
 
+import hello.core.member.CompactMember;
+import hello.core.member.Grade;
 import hello.core.member.Member;
 
 /**
@@ -15,4 +17,71 @@ public interface DiscountPolicy {
      * @return 할인 대상 금액
      */
     int discount(Member member, int price);
+
+    /**
+     * 불변 회원 값으로 할인되는 금액 조회 ( 주문 경로용 )
+     *
+     * 기본 구현은 Member 로 변환해서 위 메서드를 호출하며, 구현체는 변환 없이 계산하도록 재정의할 수 있다.
+     *
+     * @param member
+     * @param price
+     * @return 할인 대상 금액
+     */
+    default int discount(CompactMember member, int price) {
+        return discount(member.toMember(), price);
+    }
+
+    /**
+     * 상품명까지 고려해서 할인되는 금액 조회
+     *
+     * 기본 구현은 상품명을 무시하며, 상품별 할인이 있는 구현체는 재정의한다.
+     *
+     * @param member
+     * @param itemName
+     * @param price
+     * @return 할인 대상 금액
+     */
+    default int discount(Member member, String itemName, int price) {
+        return discount(member, price);
+    }
+
+    /**
+     * 불변 회원 값과 상품명으로 할인되는 금액 조회 ( 주문 경로용 )
+     *
+     * @param member
+     * @param itemName
+     * @param price
+     * @return 할인 대상 금액
+     */
+    default int discount(CompactMember member, String itemName, int price) {
+        return discount(member, price);
+    }
+
+    /**
+     * 주문 라인 여러 건의 할인 금액을 한 번에 계산 ( 재가격 작업 등 일괄 처리용 )
+     *
+     * 회원 객체 대신 등급 ordinal 과 가격을 같은 인덱스끼리 짝지은 기본형 배열로 받아서, 결과를 discounts 에 채운다.
+     *  => discounts[i] = discount( gradeOrdinals[i] 등급의 회원, prices[i] )
+     *
+     * 기본 구현은 등급마다 대표 회원 값을 하나씩 만들어 두고 건마다 discount(CompactMember, int) 를 호출한다. ( 건마다 객체 생성 없음 )
+     * 구현체는 건마다 호출하지 않고 배열을 한 번에 계산하도록 재정의할 수 있다.
+     *
+     * @param gradeOrdinals 회원 등급 ordinal ( Grade.ordinal() )
+     * @param prices 가격
+     * @param discounts 할인 금액을 채울 배열 ( prices 와 같은 배열이어도 된다. )
+     * @param length 계산할 건수 ( 세 배열의 앞에서부터 )
+     */
+    default void discountAll(byte[] gradeOrdinals, int[] prices, int[] discounts, int length) {
+
+        Grade[] grades = Grade.values();
+        CompactMember[] members = new CompactMember[grades.length];
+
+        for (Grade grade : grades) {
+            members[grade.ordinal()] = new CompactMember(0L, null, grade);
+        }
+
+        for (int i = 0; i < length; i++) {
+            discounts[i] = discount(members[gradeOrdinals[i]], prices[i]);
+        }
+    }
 }
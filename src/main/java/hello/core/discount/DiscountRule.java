@@ -0,0 +1,207 @@
+package hello.core.discount;
+
+import hello.core.member.Grade;
+
+/**
+ * 할인 규칙 ( RuleDiscountPolicy 용 )
+ *
+ * 조건
+ *  - 회원 등급 : 지정하지 않으면 모든 등급
+ *  - 상품 가격 범위 : [minPrice, maxPrice] ( 지정하지 않으면 모든 가격 )
+ *  - 상품명 : 지정하지 않으면 모든 상품
+ *
+ * 할인 금액
+ *  - 정률 : 상품 가격 * percent / 100
+ *  - 정액 : fixedAmount
+ *
+ * 불변 객체이므로 조건을 추가할 때마다 새 규칙을 반환한다.
+ *  ex) DiscountRule.percent(10).forGrades(Grade.VIP).priceBetween(10000, Integer.MAX_VALUE)
+ *
+ * 한 줄짜리 문자열로도 선언할 수 있다. ( parse )
+ *  ex) "grade=VIP item=itemA minPrice=10000 percent=10"
+ */
+public final class DiscountRule {
+
+    private static final Grade[] GRADES = Grade.values();
+    private static final int ALL_GRADES = (1 << GRADES.length) - 1;
+
+    private final int gradeMask;
+    private final int minPrice;
+    private final int maxPrice;
+    private final String itemName;
+    private final int percent;
+    private final int fixedAmount;
+
+    private DiscountRule(int gradeMask, int minPrice, int maxPrice, String itemName, int percent, int fixedAmount) {
+        this.gradeMask = gradeMask;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.itemName = itemName;
+        this.percent = percent;
+        this.fixedAmount = fixedAmount;
+    }
+
+    /**
+     * 정률 할인 규칙
+     *
+     * @param percent 0 ~ 100
+     * @return
+     */
+    public static DiscountRule percent(int percent) {
+
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("할인율은 0 ~ 100 이어야 합니다. percent = " + percent);
+        }
+
+        return new DiscountRule(ALL_GRADES, Integer.MIN_VALUE, Integer.MAX_VALUE, null, percent, 0);
+    }
+
+    /**
+     * 정액 할인 규칙
+     *
+     * @param amount
+     * @return
+     */
+    public static DiscountRule fixed(int amount) {
+
+        if (amount < 0) {
+            throw new IllegalArgumentException("할인 금액은 0 이상이어야 합니다. amount = " + amount);
+        }
+
+        return new DiscountRule(ALL_GRADES, Integer.MIN_VALUE, Integer.MAX_VALUE, null, 0, amount);
+    }
+
+    public DiscountRule forGrades(Grade... grades) {
+
+        int mask = 0;
+
+        for (Grade grade : grades) {
+            mask |= 1 << grade.ordinal();
+        }
+
+        return new DiscountRule(mask, minPrice, maxPrice, itemName, percent, fixedAmount);
+    }
+
+    public DiscountRule forItem(String itemName) {
+        return new DiscountRule(gradeMask, minPrice, maxPrice, itemName, percent, fixedAmount);
+    }
+
+    public DiscountRule priceBetween(int minPrice, int maxPrice) {
+
+        if (minPrice > maxPrice) {
+            throw new IllegalArgumentException("최소 가격이 최대 가격보다 큽니다. " + minPrice + " > " + maxPrice);
+        }
+
+        return new DiscountRule(gradeMask, minPrice, maxPrice, itemName, percent, fixedAmount);
+    }
+
+    /**
+     * 공백으로 구분한 key=value 목록으로 규칙 선언
+     *  - grade : 쉼표로 구분한 회원 등급 ( BASIC,VIP )
+     *  - item : 상품명
+     *  - minPrice / maxPrice : 상품 가격 범위
+     *  - percent / fixed : 둘 중 하나만 지정
+     *
+     * @param line
+     * @return
+     */
+    public static DiscountRule parse(String line) {
+
+        Integer percent = null;
+        Integer fixed = null;
+        Grade[] grades = null;
+        String itemName = null;
+        int minPrice = Integer.MIN_VALUE;
+        int maxPrice = Integer.MAX_VALUE;
+
+        for (String token : line.trim().split("\\s+")) {
+            int equals = token.indexOf('=');
+
+            if (equals <= 0) {
+                throw new IllegalArgumentException("key=value 형식이 아닙니다. token = " + token + ", rule = " + line);
+            }
+
+            String key = token.substring(0, equals);
+            String value = token.substring(equals + 1);
+
+            try {
+                switch (key) {
+                    case "grade":
+                        String[] names = value.split(",");
+                        grades = new Grade[names.length];
+                        for (int i = 0; i < names.length; i++) {
+                            grades[i] = Grade.valueOf(names[i].trim());
+                        }
+                        break;
+                    case "item":
+                        itemName = value;
+                        break;
+                    case "minPrice":
+                        minPrice = Integer.parseInt(value);
+                        break;
+                    case "maxPrice":
+                        maxPrice = Integer.parseInt(value);
+                        break;
+                    case "percent":
+                        percent = Integer.parseInt(value);
+                        break;
+                    case "fixed":
+                        fixed = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("알 수 없는 조건입니다. key = " + key + ", rule = " + line);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("숫자가 아닙니다. " + token + ", rule = " + line, e);
+            }
+        }
+
+        if ((percent == null) == (fixed == null)) {
+            throw new IllegalArgumentException("percent 와 fixed 중 하나만 지정해야 합니다. rule = " + line);
+        }
+
+        DiscountRule rule = percent != null ? percent(percent) : fixed(fixed);
+
+        if (grades != null) {
+            rule = rule.forGrades(grades);
+        }
+
+        return rule.forItem(itemName).priceBetween(minPrice, maxPrice);
+    }
+
+    boolean appliesTo(int gradeOrdinal) {
+        return (gradeMask & 1 << gradeOrdinal) != 0;
+    }
+
+    int getMinPrice() {
+        return minPrice;
+    }
+
+    int getMaxPrice() {
+        return maxPrice;
+    }
+
+    String getItemName() {
+        return itemName;
+    }
+
+    int getPercent() {
+        return percent;
+    }
+
+    int getFixedAmount() {
+        return fixedAmount;
+    }
+
+    @Override
+    public String toString() {
+        return "DiscountRule{" +
+                "grades=" + Integer.toBinaryString(gradeMask) +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", itemName='" + itemName + '\'' +
+                ", percent=" + percent +
+                ", fixedAmount=" + fixedAmount +
+                '}';
+    }
+}
@@ -0,0 +1,112 @@
+package hello.core.discount;
+
+import java.util.Properties;
+
+/**
+ * 할인 설정 값 ( 불변 스냅샷 )
+ *
+ *  - ratePercent : RateDiscountPolicy 의 할인율 ( % )
+ *  - fixAmount : FixDiscountPolicy 의 할인 금액 ( 원 )
+ *  - version : 발행 순번 ( DiscountSettingsHolder 가 새 값을 발행할 때마다 1 씩 증가 )
+ *
+ * 값을 바꿀 때는 객체를 수정하지 않고 새 스냅샷을 만들어서 DiscountSettingsHolder 로 통째로 교체한다.
+ * => 읽는 쪽은 한 번 꺼낸 스냅샷 안의 값이 서로 어긋나거나 도중에 바뀌는 일이 없다.
+ */
+public final class DiscountSettings {
+
+    public static final String RATE_PERCENT_KEY = "discount.rate.percent";
+    public static final String FIX_AMOUNT_KEY = "discount.fix.amount";
+
+    // 기존 RateDiscountPolicy / FixDiscountPolicy 에 고정되어 있던 값
+    public static final DiscountSettings DEFAULT = new DiscountSettings(10, 1000, 0);
+
+    private final int ratePercent;
+    private final int fixAmount;
+    private final long version;
+
+    public DiscountSettings(int ratePercent, int fixAmount) {
+        this(ratePercent, fixAmount, 0);
+    }
+
+    private DiscountSettings(int ratePercent, int fixAmount, long version) {
+
+        if (ratePercent < 0 || ratePercent > 100) {
+            throw new IllegalArgumentException("할인율은 0 ~ 100 이어야 합니다. ratePercent = " + ratePercent);
+        }
+
+        if (fixAmount < 0) {
+            throw new IllegalArgumentException("할인 금액은 0 이상이어야 합니다. fixAmount = " + fixAmount);
+        }
+
+        this.ratePercent = ratePercent;
+        this.fixAmount = fixAmount;
+        this.version = version;
+    }
+
+    /**
+     * 설정 파일 값으로 스냅샷 생성, 없는 키는 base 의 값을 그대로 사용한다.
+     *
+     *  - discount.rate.percent : 할인율
+     *  - discount.fix.amount : 할인 금액
+     *
+     * @param properties
+     * @param base
+     * @return
+     */
+    public static DiscountSettings from(Properties properties, DiscountSettings base) {
+        return new DiscountSettings(
+                intValue(properties, RATE_PERCENT_KEY, base.ratePercent),
+                intValue(properties, FIX_AMOUNT_KEY, base.fixAmount));
+    }
+
+    public DiscountSettings withRatePercent(int ratePercent) {
+        return new DiscountSettings(ratePercent, fixAmount);
+    }
+
+    public DiscountSettings withFixAmount(int fixAmount) {
+        return new DiscountSettings(ratePercent, fixAmount);
+    }
+
+    /**
+     * 발행 순번을 붙인 복사본 ( DiscountSettingsHolder 에서만 사용 )
+     */
+    DiscountSettings withVersion(long version) {
+        return new DiscountSettings(ratePercent, fixAmount, version);
+    }
+
+    public int getRatePercent() {
+        return ratePercent;
+    }
+
+    public int getFixAmount() {
+        return fixAmount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    private static int intValue(Properties properties, String key, int defaultValue) {
+
+        String value = properties.getProperty(key);
+
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("할인 설정 값이 숫자가 아닙니다. " + key + " = " + value, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DiscountSettings{" +
+                "ratePercent=" + ratePercent +
+                ", fixAmount=" + fixAmount +
+                ", version=" + version +
+                '}';
+    }
+}
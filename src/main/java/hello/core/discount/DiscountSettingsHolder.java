@@ -0,0 +1,221 @@
+package hello.core.discount;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * 재시작 없이 바꿀 수 있는 할인 설정
+ *
+ * 현재 할인 설정 스냅샷(DiscountSettings) 을 AtomicReference 하나로 발행한다.
+ *  - 읽기 ( 할인 계산 ) : current() 는 volatile 읽기 한 번이다. => 락 없이 항상 완성된 스냅샷을 읽는다.
+ *  - 쓰기 ( 설정 변경 ) : 새 스냅샷을 만들어서 참조를 교체한다. 교체 직후의 할인 계산부터 새 값이 적용된다.
+ *
+ * 설정을 바꾸는 방법
+ *  - 설정 파일 : application.properties 의 discount.settings.path 에 파일을 지정하면, 시작할 때 읽고
+ *                감시 스레드가 파일이 바뀔 때마다 다시 읽는다. ( WatchService )
+ *                파일에 없는 키는 기본값 ( DiscountSettings.DEFAULT ) 을 사용한다.
+ *  - 관리자 API : DiscountSettingsController 가 update 로 일부 값만 바꾼다. ( discount.settings.admin.enabled=true 일 때만 등록 )
+ *
+ * 잘못된 값이 들어오면 예외만 기록하고 이전 스냅샷을 유지한다.
+ * 파일을 덮어쓰는 도중에 읽지 않도록, 변경 통지가 QUIET_MILLIS 동안 더 오지 않을 때 읽고 빈 파일은 무시한다.
+ * ( 가장 안전한 방법은 다른 파일에 쓴 뒤 이름을 바꿔서 교체하는 것이다. )
+ *
+ * 할인 정책과 설정을 바꾸는 쪽이 같은 스냅샷을 봐야 하므로 컴포넌트 스캔으로 한 번만 등록한다. ( AppConfig 는 생성자로 주입받는다. )
+ *
+ * @Component 어노테이션 : 스프링 빈으로 등록
+ */
+@Component
+public class DiscountSettingsHolder {
+
+    static final long QUIET_MILLIS = 50;
+
+    private final Path path;
+    private final AtomicReference<DiscountSettings> settings = new AtomicReference<>(DiscountSettings.DEFAULT);
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * 설정 파일 없이 기본값으로 시작 ( update 로만 변경 )
+     */
+    public DiscountSettingsHolder() {
+        this((String) null);
+    }
+
+    /**
+     * @param path 감시할 할인 설정 파일 ( application.properties 의 discount.settings.path, 비어 있으면 감시하지 않음 )
+     */
+    @Autowired
+    public DiscountSettingsHolder(@Value("${discount.settings.path:}") String path) {
+        this.path = path == null || path.isEmpty() ? null : Paths.get(path).toAbsolutePath();
+    }
+
+    /**
+     * 현재 할인 설정 ( 할인 계산마다 호출, 락 없음 )
+     *
+     * @return
+     */
+    public DiscountSettings current() {
+        return settings.get();
+    }
+
+    /**
+     * 새 할인 설정 발행
+     *
+     * @param next
+     * @return 발행된 스냅샷 ( 발행 순번 포함 )
+     */
+    public DiscountSettings publish(DiscountSettings next) {
+        return update(previous -> next);
+    }
+
+    /**
+     * 현재 할인 설정을 바탕으로 일부 값만 바꿔서 발행
+     *
+     * 동시에 바뀌면 CAS 가 실패한 쪽이 최신 값으로 다시 계산하므로, 서로 다른 값을 바꾼 변경이 유실되지 않는다.
+     *
+     * @param operator 현재 스냅샷 -> 새 스냅샷 ( 여러 번 호출될 수 있으므로 부수 효과가 없어야 한다. )
+     * @return 발행된 스냅샷 ( 발행 순번 포함 )
+     */
+    public DiscountSettings update(UnaryOperator<DiscountSettings> operator) {
+        return settings.updateAndGet(previous -> operator.apply(previous).withVersion(previous.getVersion() + 1));
+    }
+
+    /**
+     * 설정 파일을 다시 읽어서 발행
+     *
+     * @return 발행된 스냅샷
+     */
+    public DiscountSettings reload() {
+
+        if (path == null) {
+            throw new IllegalStateException("할인 설정 파일이 지정되지 않았습니다.");
+        }
+
+        Properties properties = new Properties();
+
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("할인 설정 파일을 읽을 수 없습니다. path = " + path, e);
+        }
+
+        return publish(DiscountSettings.from(properties, DiscountSettings.DEFAULT));
+    }
+
+    /**
+     * 설정 파일이 지정되어 있으면 읽어 두고, 파일 감시 스레드를 시작한다.
+     *
+     * 파일이 있는 디렉토리를 감시하므로, 편집기가 새 파일을 만들어서 바꿔치기하는 경우도 감지한다.
+     * ( 리눅스는 inotify 로 바로 통지되고, 통지 기능이 없는 OS 에서는 JDK 가 주기적으로 검사하므로 몇 초 늦을 수 있다. )
+     */
+    @PostConstruct
+    public synchronized void start() {
+
+        if (path == null || watcher != null) {
+            return;
+        }
+
+        if (Files.exists(path)) {
+            System.out.println("discount settings : " + reload());
+        }
+
+        try {
+            watchService = path.getFileSystem().newWatchService();
+            path.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("할인 설정 파일을 감시할 수 없습니다. path = " + path, e);
+        }
+
+        watcher = new Thread(this::watch, "discount-settings-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * 파일 감시 스레드 종료
+     *
+     * @throws InterruptedException
+     */
+    @PreDestroy
+    public synchronized void close() throws InterruptedException {
+
+        if (watcher == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        watcher.join();
+        watcher = null;
+    }
+
+    private void watch() {
+
+        Path fileName = path.getFileName();
+
+        try {
+            while (true) {
+                boolean changed = false;
+                WatchKey key = watchService.take();
+
+                // 쓰기가 끝날 때까지 ( 통지가 잠잠해질 때까지 ) 모아서 한 번만 읽는다.
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (fileName.equals(event.context())) {
+                            changed = true;
+                        }
+                    }
+
+                    key.reset();
+                    key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                if (changed) {
+                    reloadQuietly();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // close() 로 감시 종료
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            if (Files.size(path) == 0) {
+                // 덮어쓰기 위해 비워 둔 상태 => 내용이 쓰이면 다시 통지된다.
+                return;
+            }
+
+            System.out.println("discount settings reloaded : " + reload());
+        } catch (IOException | RuntimeException e) {
+            // 파일을 쓰는 도중이거나 잘못된 값 => 이전 스냅샷 유지, 다음 변경 때 다시 읽는다.
+            System.out.println("discount settings reload failed : " + e);
+        }
+    }
+}
@@ -1,27 +1,64 @@
 package hello.core.discount;
 
+import hello.core.member.CompactMember;
 import hello.core.member.Grade;
 import hello.core.member.Member;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 /**
- *
+ * 할인 금액은 DiscountSettingsHolder 의 현재 스냅샷에서 읽는다. ( 기본 1000원, 재시작 없이 변경 가능 )
  */
 @Component
 //@Qualifier("fixDiscountPolicy")
 public class FixDiscountPolicy implements DiscountPolicy {
 
-    private int discountFixAmount = 1000; // 1000원 할인
+    private final DiscountSettingsHolder settings;
+
+    /**
+     * 기본 할인 금액 ( 1000원 ) 으로 생성
+     */
+    public FixDiscountPolicy() {
+        this(new DiscountSettingsHolder());
+    }
+
+    @Autowired
+    public FixDiscountPolicy(DiscountSettingsHolder settings) {
+        this.settings = settings;
+    }
 
     @Override
     public int discount(Member member, int price) {
 
-        // 회원 등급이 VIP 인 경우에만 1000원 할인
+        // 회원 등급이 VIP 인 경우에만 할인
         if (member.getGrade() == Grade.VIP) {
-            return discountFixAmount;
+            return settings.current().getFixAmount();
         } else {
             return 0;
         }
     }
+
+    @Override
+    public int discount(CompactMember member, int price) {
+        return member.getGrade() == Grade.VIP ? settings.current().getFixAmount() : 0;
+    }
+
+    /**
+     * 일괄 할인 계산
+     *
+     * 할인 금액은 배치 시작 시점의 스냅샷에서 한 번만 읽고, VIP 여부를 0 / -1 마스크로 바꿔서 분기 없이 채운다.
+     * ( RateDiscountPolicy.discountAll 참고 )
+     */
+    @Override
+    public void discountAll(byte[] gradeOrdinals, int[] prices, int[] discounts, int length) {
+
+        int discountFixAmount = settings.current().getFixAmount();
+        int vip = Grade.VIP.ordinal();
+
+        for (int i = 0; i < length; i++) {
+            int vipMask = ((gradeOrdinals[i] ^ vip) - 1) >> 31;
+            discounts[i] = discountFixAmount & vipMask;
+        }
+    }
 }
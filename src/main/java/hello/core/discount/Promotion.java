@@ -0,0 +1,102 @@
+package hello.core.discount;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 예약된 프로모션 ( PromotionScheduler.schedule 의 반환 값 )
+ *
+ *  - code : 프로모션 코드
+ *  - policy : 프로모션 기간 동안 적용할 할인 정책
+ *  - startMillis ~ endMillis : 적용 기간 ( epoch ms, 시작 포함 / 종료 미포함 )
+ *  - priority : 기간이 겹치는 프로모션 중 우선순위가 높은 쪽을 적용한다. ( 같으면 나중에 시작한 쪽 )
+ *
+ * 상태 : SCHEDULED -> ACTIVE -> EXPIRED, 또는 취소하면 CANCELLED
+ */
+public final class Promotion {
+
+    public enum State {
+        SCHEDULED, ACTIVE, EXPIRED, CANCELLED
+    }
+
+    private static final State[] STATES = State.values();
+
+    private final String code;
+    private final DiscountPolicy policy;
+    private final long startMillis;
+    private final long endMillis;
+    private final int priority;
+    private final long sequence;
+
+    private final AtomicInteger state = new AtomicInteger(State.SCHEDULED.ordinal());
+
+    Promotion(String code, DiscountPolicy policy, long startMillis, long endMillis, int priority, long sequence) {
+        this.code = code;
+        this.policy = policy;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.priority = priority;
+        this.sequence = sequence;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public DiscountPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public State getState() {
+        return STATES[state.get()];
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * 상태가 expected 일 때만 next 로 바꾼다.
+     */
+    boolean transition(State expected, State next) {
+        return state.compareAndSet(expected.ordinal(), next.ordinal());
+    }
+
+    /**
+     * 기간이 겹칠 때 this 가 other 보다 먼저 적용되어야 하면 true
+     */
+    boolean outranks(Promotion other) {
+
+        if (priority != other.priority) {
+            return priority > other.priority;
+        }
+
+        if (startMillis != other.startMillis) {
+            return startMillis > other.startMillis;
+        }
+
+        return sequence > other.sequence;
+    }
+
+    @Override
+    public String toString() {
+        return "Promotion{" +
+                "code='" + code + '\'' +
+                ", startMillis=" + startMillis +
+                ", endMillis=" + endMillis +
+                ", priority=" + priority +
+                ", state=" + getState() +
+                '}';
+    }
+}
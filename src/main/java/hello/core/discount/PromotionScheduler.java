@@ -0,0 +1,347 @@
+package hello.core.discount;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 시간대별 프로모션 스케줄러 ( 해시 타이머 휠 )
+ *
+ * 프로모션 ( 기간 + 할인 정책 ) 을 예약해 두면, 시작 시각에 SwitchableDiscountPolicy 의 정책을 프로모션 정책으로 바꾸고
+ * 종료 시각에 다음 순위의 프로모션 정책 ( 없으면 기본 정책 ) 으로 되돌린다.
+ * => 주문 경로의 추가 비용은 SwitchableDiscountPolicy 의 volatile 읽기 한 번뿐이다.
+ *
+ * 타이머 휠 구조
+ *  - wheelSize 개의 칸(bucket) 이 원형으로 있고, tick 스레드가 tickMillis 마다 한 칸씩 이동하면서 그 칸의 이벤트를 실행한다.
+ *  - 이벤트 ( 시작 / 종료 ) 는 (실행 시각 / tickMillis) 번째 칸에 연결 리스트로 매달고,
+ *    휠을 한 바퀴 이상 기다려야 하면 남은 바퀴 수(rounds) 를 적어 두고 지나갈 때마다 1 씩 줄인다.
+ *  - 예약 : 다른 스레드는 락 없는 큐에 넣기만 하고, tick 스레드가 다음 tick 에 칸으로 옮긴다. => 프로모션 수와 관계없이 O(1)
+ *  - 정밀도 : 이벤트는 실행 시각이 속한 tick 이 끝날 때 실행된다. => 예약 시각보다 먼저 실행되지 않고, 최대 tickMillis 늦다.
+ *
+ * 적용 중인 프로모션 목록과 휠은 tick 스레드만 다루므로 락이 없다. ( 기간이 겹치면 Promotion.outranks 순서 )
+ *
+ * 스프링 빈으로 등록하면 빈 초기화 시 tick 스레드가 시작되고, 컨테이너 종료 시 종료된다.
+ *
+ * @Component 어노테이션 : 스프링 빈으로 등록 ( 주문 서비스에 주입된 SwitchableDiscountPolicy 빈을 주입받는다. )
+ */
+@Component
+public class PromotionScheduler {
+
+    static final long DEFAULT_TICK_MILLIS = 100;
+    static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final SwitchableDiscountPolicy target;
+    private final DiscountPolicy basePolicy;
+    private final LongSupplier clock;
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Event[] wheel;
+    private final int mask;
+
+    private final Queue<Event> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // tick 스레드만 사용
+    private final List<Promotion> active = new ArrayList<>();
+    private long tick;
+
+    private volatile Promotion current;
+    private volatile boolean closed;
+    private Thread ticker;
+
+    /**
+     * @param target 주문 서비스에 주입한 할인 정책, 생성 시점의 정책을 기본 정책으로 사용한다.
+     */
+    @Autowired
+    public PromotionScheduler(SwitchableDiscountPolicy target) {
+        this(target, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param target 주문 서비스에 주입한 할인 정책, 생성 시점의 정책을 기본 정책으로 사용한다.
+     * @param tickMillis 한 칸의 시간 ( 정밀도 )
+     * @param wheelSize 칸 수 ( 2 의 거듭제곱으로 올림 )
+     */
+    public PromotionScheduler(SwitchableDiscountPolicy target, long tickMillis, int wheelSize) {
+        this(target, tickMillis, wheelSize, System::currentTimeMillis);
+    }
+
+    PromotionScheduler(SwitchableDiscountPolicy target, long tickMillis, int wheelSize, LongSupplier clock) {
+
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis 는 0 보다 커야 합니다. tickMillis = " + tickMillis);
+        }
+
+        if (wheelSize <= 0 || wheelSize > 1 << 20) {
+            throw new IllegalArgumentException("wheelSize 는 1 ~ " + (1 << 20) + " 이어야 합니다. wheelSize = " + wheelSize);
+        }
+
+        // 칸 번호를 나머지 연산 대신 비트 AND 로 구하도록 2 의 거듭제곱으로 올림
+        int size = 1;
+
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+
+        this.target = target;
+        this.basePolicy = target.getDelegate();
+        this.clock = clock;
+        this.tickMillis = tickMillis;
+        this.startMillis = clock.getAsLong();
+        this.wheel = new Event[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 프로모션 예약
+     *
+     * 시작 시각이 이미 지났으면 다음 tick 에 바로 적용된다.
+     *
+     * @param code 프로모션 코드
+     * @param policy 기간 동안 적용할 할인 정책
+     * @param startMillis 시작 시각 ( epoch ms, 포함 )
+     * @param endMillis 종료 시각 ( epoch ms, 미포함 )
+     * @param priority 기간이 겹칠 때 우선순위 ( 높을수록 우선 )
+     * @return 예약된 프로모션 ( 상태 조회 및 취소용 )
+     */
+    public Promotion schedule(String code, DiscountPolicy policy, long startMillis, long endMillis, int priority) {
+
+        if (closed) {
+            throw new IllegalStateException("프로모션 스케줄러가 종료되었습니다.");
+        }
+
+        if (policy == null) {
+            throw new IllegalArgumentException("할인 정책이 없습니다. code = " + code);
+        }
+
+        if (startMillis >= endMillis) {
+            throw new IllegalArgumentException("종료 시각이 시작 시각보다 늦어야 합니다. code = " + code);
+        }
+
+        Promotion promotion = new Promotion(code, policy, startMillis, endMillis, priority, sequence.incrementAndGet());
+
+        pending.add(new Event(promotion, true, startMillis));
+        pending.add(new Event(promotion, false, endMillis));
+
+        return promotion;
+    }
+
+    public Promotion schedule(String code, DiscountPolicy policy, Instant start, Instant end) {
+        return schedule(code, policy, start.toEpochMilli(), end.toEpochMilli(), 0);
+    }
+
+    /**
+     * 프로모션 취소
+     *
+     * 아직 시작 전이면 시작되지 않고, 적용 중이면 다음 tick 에 종료된다.
+     *
+     * @param promotion
+     * @return 이미 종료되었거나 취소된 프로모션이면 false
+     */
+    public boolean cancel(Promotion promotion) {
+
+        if (promotion.transition(Promotion.State.SCHEDULED, Promotion.State.CANCELLED)) {
+            return true;
+        }
+
+        if (promotion.transition(Promotion.State.ACTIVE, Promotion.State.CANCELLED)) {
+            pending.add(new Event(promotion, false, 0));
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * 현재 적용 중인 프로모션
+     *
+     * @return 없으면 null ( 기본 정책 적용 중 )
+     */
+    public Promotion currentPromotion() {
+        return current;
+    }
+
+    public SwitchableDiscountPolicy getTarget() {
+        return target;
+    }
+
+    /**
+     * tick 스레드 시작
+     */
+    @PostConstruct
+    public synchronized void start() {
+
+        if (ticker != null || closed) {
+            return;
+        }
+
+        ticker = new Thread(this::run, "promotion-scheduler");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * tick 스레드 종료 ( 남은 예약은 실행되지 않고, 현재 적용 중인 정책은 그대로 둔다. )
+     *
+     * @throws InterruptedException
+     */
+    @PreDestroy
+    public synchronized void close() throws InterruptedException {
+
+        closed = true;
+
+        if (ticker != null) {
+            ticker.interrupt();
+            ticker.join();
+            ticker = null;
+        }
+    }
+
+    private void run() {
+
+        while (!closed) {
+            long sleepMillis = tickDeadline() - clock.getAsLong();
+
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+
+            advanceTo(clock.getAsLong());
+        }
+    }
+
+    /**
+     * 시각 now 까지 끝난 tick 을 모두 처리한다. ( tick 스레드, 또는 스레드를 시작하지 않은 테스트에서만 호출 )
+     *
+     * @param now
+     */
+    void advanceTo(long now) {
+
+        while (tickDeadline() <= now) {
+            transferPending();
+
+            int index = (int) (tick & mask);
+            wheel[index] = expire(wheel[index]);
+            tick++;
+        }
+    }
+
+    private long tickDeadline() {
+        return startMillis + (tick + 1) * tickMillis;
+    }
+
+    /**
+     * 예약 큐의 이벤트를 실행 시각에 해당하는 칸으로 옮긴다.
+     */
+    private void transferPending() {
+
+        Event event;
+
+        while ((event = pending.poll()) != null) {
+            long ticks = Math.max((event.deadline - startMillis) / tickMillis, tick);
+
+            event.rounds = (ticks - tick) / wheel.length;
+
+            int index = (int) (ticks & mask);
+            event.next = wheel[index];
+            wheel[index] = event;
+        }
+    }
+
+    /**
+     * 이번 바퀴에 실행할 이벤트는 실행하고, 남은 이벤트만 연결해서 반환한다.
+     */
+    private Event expire(Event head) {
+
+        Event remaining = null;
+        Event event = head;
+
+        while (event != null) {
+            Event next = event.next;
+
+            if (event.rounds <= 0) {
+                fire(event);
+            } else {
+                event.rounds--;
+                event.next = remaining;
+                remaining = event;
+            }
+
+            event = next;
+        }
+
+        return remaining;
+    }
+
+    private void fire(Event event) {
+
+        Promotion promotion = event.promotion;
+
+        if (event.activate) {
+            if (promotion.transition(Promotion.State.SCHEDULED, Promotion.State.ACTIVE)) {
+                active.add(promotion);
+                apply();
+            }
+        } else {
+            // 종료 시각 도래, 또는 취소
+            promotion.transition(Promotion.State.SCHEDULED, Promotion.State.EXPIRED);
+            promotion.transition(Promotion.State.ACTIVE, Promotion.State.EXPIRED);
+
+            if (active.remove(promotion)) {
+                apply();
+            }
+        }
+    }
+
+    /**
+     * 적용 중인 프로모션 중 가장 우선하는 정책으로 교체 ( 없으면 기본 정책 )
+     */
+    private void apply() {
+
+        Promotion best = null;
+
+        for (Promotion promotion : active) {
+            if (best == null || promotion.outranks(best)) {
+                best = promotion;
+            }
+        }
+
+        if (best != current) {
+            target.switchTo(best == null ? basePolicy : best.getPolicy());
+            current = best;
+        }
+    }
+
+    /**
+     * 타이머 휠 칸에 매다는 이벤트 ( 프로모션 시작 또는 종료 )
+     */
+    private static final class Event {
+
+        private final Promotion promotion;
+        private final boolean activate;
+        private final long deadline;
+
+        private long rounds;
+        private Event next;
+
+        private Event(Promotion promotion, boolean activate, long deadline) {
+            this.promotion = promotion;
+            this.activate = activate;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -1,31 +1,70 @@
 package hello.core.discount;
 
-import hello.core.annotation.MainDiscountPolicy;
+import hello.core.member.CompactMember;
 import hello.core.member.Grade;
 import hello.core.member.Member;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
 /**
  * @Component 어노테이션 : 스프링 빈으로 등록
- * @MainDiscountPolicy 어노테이션 : hello.core.annotation 디렉토리에 직접 만든 어노테이션
+ *
+ * 주문 서비스에는 이 정책을 감싼 SwitchableDiscountPolicy ( @MainDiscountPolicy ) 가 주입되고, 프로모션이 없을 때 이 정책이 적용된다.
+ *
+ * 할인율은 DiscountSettingsHolder 의 현재 스냅샷에서 읽는다. ( 기본 10%, 재시작 없이 변경 가능 )
  */
 @Component
-@MainDiscountPolicy
 public class RateDiscountPolicy implements DiscountPolicy {
 
-    // 10% 할인
-    private int discountPercent = 10;
+    private final DiscountSettingsHolder settings;
+
+    /**
+     * 기본 할인율 ( 10% ) 로 생성
+     */
+    public RateDiscountPolicy() {
+        this(new DiscountSettingsHolder());
+    }
+
+    @Autowired
+    public RateDiscountPolicy(DiscountSettingsHolder settings) {
+        this.settings = settings;
+    }
 
     @Override
     public int discount(Member member, int price) {
 
-        // VIP 인 경우 10% 할인 금액 리턴
+        // VIP 인 경우 할인율 만큼의 할인 금액 리턴
         if (member.getGrade() == Grade.VIP) {
-            return price * discountPercent / 100;
+            return price * settings.current().getRatePercent() / 100;
         } else {
             return 0;
         }
     }
+
+    @Override
+    public int discount(CompactMember member, int price) {
+        return member.getGrade() == Grade.VIP ? price * settings.current().getRatePercent() / 100 : 0;
+    }
+
+    /**
+     * 일괄 할인 계산
+     *
+     * 할인율은 배치 시작 시점의 스냅샷에서 한 번만 읽고, 루프 안에는 분기 없이 기본형 배열 연산만 둔다.
+     *  - VIP 여부를 0 / -1 마스크로 바꿔서, 모든 건의 할인 금액을 계산한 뒤 마스크로 VIP 가 아닌 건을 0 으로 만든다.
+     *  - 등급 분포와 관계없이 분기 예측 실패가 없고, JIT 가 루프를 펼치기(unroll) 쉽다.
+     */
+    @Override
+    public void discountAll(byte[] gradeOrdinals, int[] prices, int[] discounts, int length) {
+
+        int discountPercent = settings.current().getRatePercent();
+        int vip = Grade.VIP.ordinal();
+
+        for (int i = 0; i < length; i++) {
+            // VIP 이면 ( gradeOrdinal ^ vip ) - 1 = -1 => 부호 비트만 남기면 -1, 아니면 0
+            int vipMask = ((gradeOrdinals[i] ^ vip) - 1) >> 31;
+            discounts[i] = (prices[i] * discountPercent / 100) & vipMask;
+        }
+    }
 }
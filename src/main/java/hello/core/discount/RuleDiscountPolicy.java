@@ -0,0 +1,152 @@
+package hello.core.discount;
+
+import hello.core.member.CompactMember;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 선언한 할인 규칙으로 동작하는 할인 정책
+ *
+ * 새 프로모션마다 할인 정책 클래스를 만드는 대신, 규칙(DiscountRule) 목록으로 할인을 정의한다.
+ * 규칙은 선언한 순서대로 검사해서, 처음으로 조건이 맞는 규칙의 할인 금액을 적용한다. ( 맞는 규칙이 없으면 0 )
+ *
+ * 생성할 때 규칙을 회원 등급별 평면 테이블로 컴파일한다.
+ *  - 등급마다 그 등급에 적용되는 규칙만 남겨서, 최소 가격 / 최대 가격 / 상품명 / 할인율 / 할인 금액을 각각 배열에 담는다.
+ *  - 할인 계산은 회원 등급 ordinal 로 테이블을 고르고 배열을 순서대로 비교할 뿐이므로,
+ *    객체 생성, 리플렉션, Map 조회 없이 수행된다.
+ *  - 할인 금액 = 가격 * 할인율 / 100 + 정액 ( 정률 규칙은 정액이 0, 정액 규칙은 할인율이 0 )
+ *
+ * ex) RateDiscountPolicy 와 같은 정책 : RuleDiscountPolicy.of("grade=VIP percent=10")
+ *     FixDiscountPolicy 와 같은 정책 : RuleDiscountPolicy.of("grade=VIP fixed=1000")
+ */
+public class RuleDiscountPolicy implements DiscountPolicy {
+
+    private final List<DiscountRule> rules;
+    private final Table[] tables;
+
+    public RuleDiscountPolicy(List<DiscountRule> rules) {
+
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+
+        Grade[] grades = Grade.values();
+        this.tables = new Table[grades.length];
+
+        for (Grade grade : grades) {
+            tables[grade.ordinal()] = new Table(this.rules, grade.ordinal());
+        }
+    }
+
+    /**
+     * 한 줄에 규칙 하나씩 선언 ( DiscountRule.parse )
+     *
+     * @param rules
+     * @return
+     */
+    public static RuleDiscountPolicy of(String... rules) {
+        return parse(Arrays.asList(rules));
+    }
+
+    /**
+     * 한 줄에 규칙 하나씩 선언, 빈 줄과 # 으로 시작하는 줄은 무시한다.
+     *
+     * @param lines
+     * @return
+     */
+    public static RuleDiscountPolicy parse(List<String> lines) {
+
+        List<DiscountRule> rules = new ArrayList<>();
+
+        for (String line : lines) {
+            String trimmed = line.trim();
+
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                rules.add(DiscountRule.parse(trimmed));
+            }
+        }
+
+        return new RuleDiscountPolicy(rules);
+    }
+
+    public List<DiscountRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * 상품명 없이 계산하므로 상품명 조건이 있는 규칙은 적용되지 않는다.
+     */
+    @Override
+    public int discount(Member member, int price) {
+        return tables[member.getGrade().ordinal()].discount(null, price);
+    }
+
+    @Override
+    public int discount(CompactMember member, int price) {
+        return tables[member.getGradeOrdinal()].discount(null, price);
+    }
+
+    @Override
+    public int discount(Member member, String itemName, int price) {
+        return tables[member.getGrade().ordinal()].discount(itemName, price);
+    }
+
+    @Override
+    public int discount(CompactMember member, String itemName, int price) {
+        return tables[member.getGradeOrdinal()].discount(itemName, price);
+    }
+
+    /**
+     * 한 회원 등급에 적용되는 규칙을 선언 순서대로 펼친 테이블
+     */
+    private static final class Table {
+
+        private final int[] minPrices;
+        private final int[] maxPrices;
+        private final String[] itemNames;
+        private final int[] percents;
+        private final int[] fixedAmounts;
+
+        private Table(List<DiscountRule> rules, int gradeOrdinal) {
+
+            List<DiscountRule> applicable = new ArrayList<>();
+
+            for (DiscountRule rule : rules) {
+                if (rule.appliesTo(gradeOrdinal)) {
+                    applicable.add(rule);
+                }
+            }
+
+            int size = applicable.size();
+            this.minPrices = new int[size];
+            this.maxPrices = new int[size];
+            this.itemNames = new String[size];
+            this.percents = new int[size];
+            this.fixedAmounts = new int[size];
+
+            for (int i = 0; i < size; i++) {
+                DiscountRule rule = applicable.get(i);
+                minPrices[i] = rule.getMinPrice();
+                maxPrices[i] = rule.getMaxPrice();
+                itemNames[i] = rule.getItemName();
+                percents[i] = rule.getPercent();
+                fixedAmounts[i] = rule.getFixedAmount();
+            }
+        }
+
+        private int discount(String itemName, int price) {
+
+            for (int i = 0; i < minPrices.length; i++) {
+                if (price >= minPrices[i] && price <= maxPrices[i]
+                        && (itemNames[i] == null || itemNames[i].equals(itemName))) {
+                    return price * percents[i] / 100 + fixedAmounts[i];
+                }
+            }
+
+            return 0;
+        }
+    }
+}
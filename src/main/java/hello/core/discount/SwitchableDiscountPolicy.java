@@ -0,0 +1,92 @@
+package hello.core.discount;
+
+import hello.core.annotation.MainDiscountPolicy;
+import hello.core.member.CompactMember;
+import hello.core.member.Member;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 실행 중에 실제 할인 정책을 바꿔 끼울 수 있는 할인 정책
+ *
+ * 주문 서비스에는 이 객체를 주입해 두고, 실제 할인 계산은 현재 정책(delegate) 에 위임한다.
+ *  - 할인 계산 : volatile 읽기 한 번으로 현재 정책을 꺼내서 호출한다. ( 락 없음 )
+ *  - 정책 교체 : switchTo 로 참조를 통째로 바꾼다. 교체 직후의 할인 계산부터 새 정책이 적용된다.
+ *
+ * 시간대별 프로모션은 PromotionScheduler 가 예약한 시각에 switchTo 를 호출한다.
+ *
+ * @Component 어노테이션 : 스프링 빈으로 등록 ( 기본 정책은 RateDiscountPolicy )
+ * @MainDiscountPolicy 어노테이션 : 할인 정책 빈이 여러 개이므로 주문 서비스에는 이 빈이 주입된다.
+ *
+ * 주문 서비스와 PromotionScheduler 가 같은 객체를 봐야 하므로 컴포넌트 스캔으로 한 번만 등록한다. ( AppConfig 는 생성자로 주입받는다. )
+ */
+@Component
+@MainDiscountPolicy
+public class SwitchableDiscountPolicy implements DiscountPolicy {
+
+    private volatile DiscountPolicy delegate;
+
+    public SwitchableDiscountPolicy(DiscountPolicy delegate) {
+        this.delegate = requireNonNull(delegate);
+    }
+
+    @Autowired
+    public SwitchableDiscountPolicy(RateDiscountPolicy rateDiscountPolicy) {
+        this((DiscountPolicy) rateDiscountPolicy);
+    }
+
+    /**
+     * 할인 정책 교체
+     *
+     * @param next
+     * @return 이전 정책
+     */
+    public DiscountPolicy switchTo(DiscountPolicy next) {
+
+        DiscountPolicy previous = delegate;
+        delegate = requireNonNull(next);
+
+        return previous;
+    }
+
+    public DiscountPolicy getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public int discount(Member member, int price) {
+        return delegate.discount(member, price);
+    }
+
+    @Override
+    public int discount(CompactMember member, int price) {
+        return delegate.discount(member, price);
+    }
+
+    @Override
+    public int discount(Member member, String itemName, int price) {
+        return delegate.discount(member, itemName, price);
+    }
+
+    @Override
+    public int discount(CompactMember member, String itemName, int price) {
+        return delegate.discount(member, itemName, price);
+    }
+
+    /**
+     * 한 배치는 시작할 때의 정책 하나로 계산한다.
+     */
+    @Override
+    public void discountAll(byte[] gradeOrdinals, int[] prices, int[] discounts, int length) {
+        delegate.discountAll(gradeOrdinals, prices, discounts, length);
+    }
+
+    private static DiscountPolicy requireNonNull(DiscountPolicy policy) {
+
+        if (policy == null) {
+            throw new IllegalArgumentException("할인 정책이 없습니다.");
+        }
+
+        return policy;
+    }
+}
@@ -0,0 +1,401 @@
+package hello.core.member;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 크기 제한이 있는 조회 캐시 데코레이터
+ *
+ * 회원 저장소가 파일이나 원격 저장소처럼 느린 구현체일 때, OrderServiceImpl.createOrder 가 주문마다 호출하는
+ * findById 결과를 캐시한다. 실제 저장소(delegate)를 감싸기만 하므로 MemberRepository 의 어떤 구현체에도 적용할 수 있다.
+ *
+ * W-TinyLFU 방식의 제거 정책
+ *  : 새 회원은 전체 크기의 1% 인 window 영역(LRU)에 먼저 들어간다.
+ *  : window 에서 밀려난 회원은 main 영역(probation + protected, SLRU)의 제거 후보와 조회 빈도를 비교해서
+ *    빈도가 더 높은 쪽만 남긴다. ( 빈도는 FrequencySketch 로 근사 )
+ *  : probation 에서 다시 조회된 회원은 protected 로 승격된다.
+ *  => 한 번만 조회되고 마는 회원들이 자주 조회되는 회원을 밀어내지 못한다.
+ *
+ * 쓰기 시 무효화(write-through invalidation)
+ *  : save 는 실제 저장소에 먼저 저장한 뒤 캐시에서 해당 회원을 제거한다.
+ *  : 저장과 동시에 진행 중이던 캐시 미스 조회가 이전 값을 다시 캐시에 넣지 않도록, 저장할 때마다 세대(epoch)를 올리고
+ *    조회를 시작한 뒤 세대가 바뀌었으면 캐시에 넣지 않는다.
+ *
+ * 동시성 처리 ( 적중 경로에는 락이 없다. )
+ *  : 캐시 항목은 ConcurrentHashMap 에 두므로, 적중하면 락 없이 바로 반환한다.
+ *  : 적중할 때 해야 하는 빈도 증가와 큐 순서 변경은 스레드별로 나눈 읽기 버퍼(ReadBuffer)에 기록만 해 두고,
+ *    버퍼가 가득 차거나 캐시 미스로 항목을 추가할 때 락을 잡은 스레드가 한꺼번에 반영한다.
+ *  : 버퍼가 가득 찼는데 다른 스레드가 락을 잡고 있으면 기록을 버린다. ( 빈도는 근사 값이므로 일부 유실은 허용한다. )
+ *  : 락은 항목 추가(admission), 제거(eviction), 무효화와 버퍼 반영에만 사용하고, 캐시 미스 시 실제 저장소 조회는 락 밖에서 수행한다.
+ *
+ * 조회 적중 / 미스 / 제거 횟수는 LongAdder 로 집계한다.
+ */
+public class CachingMemberRepository implements MemberRepository {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final MemberRepository delegate;
+
+    private final ConcurrentMap<Long, Node> nodes = new ConcurrentHashMap<>();
+    private final ReadBuffer[] readBuffers = newReadBuffers();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    // 아래는 evictionLock 으로 보호
+    private final Node[] queues = {new Node(), new Node(), new Node()};
+    private final int[] sizes = new int[3];
+    private final FrequencySketch sketch;
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    // 변경은 evictionLock 안에서, 읽기는 락 없이
+    private volatile long epoch;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * @param delegate    실제 회원 저장소
+     * @param maximumSize 캐시할 최대 회원 수
+     */
+    public CachingMemberRepository(MemberRepository delegate, int maximumSize) {
+
+        if (maximumSize < 2) {
+            throw new IllegalArgumentException("캐시 크기는 2 이상이어야 합니다. maximumSize = " + maximumSize);
+        }
+
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (maximumSize - windowMaximum) * 80 / 100;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public void save(Member member) {
+        delegate.save(member);
+        invalidate(member.getId());
+    }
+
+    @Override
+    public void saveAll(Collection<Member> members) {
+
+        delegate.saveAll(members);
+
+        for (Member member : members) {
+            invalidate(member.getId());
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+
+        if (memberId == null) {
+            return null;
+        }
+
+        long startEpoch = epoch;
+        Node node = nodes.get(memberId);
+
+        if (node != null) {
+            hitCount.increment();
+            afterRead(node);
+            return node.member;
+        }
+
+        missCount.increment();
+        Member member = delegate.findById(memberId);
+
+        if (member != null) {
+            evictionLock.lock();
+            try {
+                drainReadBuffers();
+                sketch.increment(memberId);
+
+                if (epoch == startEpoch && !nodes.containsKey(memberId)) {
+                    onMiss(memberId, member);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+
+        return member;
+    }
+
+    /**
+     * 등급별 조회 결과는 캐시하지 않는다.
+     *
+     * @param grade
+     * @return
+     */
+    @Override
+    public Stream<Member> findByGrade(Grade grade) {
+        return delegate.findByGrade(grade);
+    }
+
+    /**
+     * 이름 검색 결과도 캐시하지 않는다.
+     *
+     * @param prefix
+     * @param limit
+     * @return
+     */
+    @Override
+    public List<Member> findByNamePrefix(String prefix, int limit) {
+        return delegate.findByNamePrefix(prefix, limit);
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    private void invalidate(Long memberId) {
+
+        evictionLock.lock();
+        try {
+            epoch++;
+            Node node = nodes.remove(memberId);
+
+            if (node != null && node.queue >= 0) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 적중 기록을 읽기 버퍼에 넣고, 버퍼가 가득 찼으면 락을 잡을 수 있을 때만 반영한다.
+     */
+    private void afterRead(Node node) {
+
+        ReadBuffer buffer = readBuffers[(int) mix(Thread.currentThread().getId()) & (readBuffers.length - 1)];
+
+        if (!buffer.offer(node) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+                buffer.offer(node);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 읽기 버퍼에 쌓인 적중 기록을 빈도와 큐 순서에 반영한다. ( evictionLock 안에서만 호출 )
+     */
+    private void drainReadBuffers() {
+        for (ReadBuffer buffer : readBuffers) {
+            buffer.drainTo(this::onHit);
+        }
+    }
+
+    private void onHit(Node node) {
+
+        sketch.increment(node.key);
+
+        // 기록된 뒤에 제거 / 무효화된 항목
+        if (node.queue < 0) {
+            return;
+        }
+
+        if (node.queue == PROBATION) {
+            unlink(node);
+            linkFirst(PROTECTED, node);
+
+            if (sizes[PROTECTED] > protectedMaximum) {
+                Node demoted = queues[PROTECTED].prev;
+                unlink(demoted);
+                linkFirst(PROBATION, demoted);
+            }
+        } else {
+            int queue = node.queue;
+            unlink(node);
+            linkFirst(queue, node);
+        }
+    }
+
+    private void onMiss(long memberId, Member member) {
+
+        Node node = new Node(memberId, member);
+        nodes.put(memberId, node);
+        linkFirst(WINDOW, node);
+
+        if (sizes[WINDOW] <= windowMaximum) {
+            return;
+        }
+
+        // window 에서 밀려난 후보를 main 영역에 넣을지 결정
+        Node candidate = queues[WINDOW].prev;
+        unlink(candidate);
+
+        if (sizes[WINDOW] + sizes[PROBATION] + sizes[PROTECTED] + 1 <= maximumSize) {
+            linkFirst(PROBATION, candidate);
+            return;
+        }
+
+        Node victim = sizes[PROBATION] > 0 ? queues[PROBATION].prev : queues[PROTECTED].prev;
+
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            evict(victim);
+            linkFirst(PROBATION, candidate);
+        } else {
+            evict(candidate);
+        }
+    }
+
+    private void evict(Node node) {
+
+        if (node.queue >= 0) {
+            unlink(node);
+        }
+
+        nodes.remove(node.key, node);
+        evictionCount.increment();
+    }
+
+    private void linkFirst(int queue, Node node) {
+
+        Node head = queues[queue];
+
+        node.queue = queue;
+        node.prev = head;
+        node.next = head.next;
+        head.next.prev = node;
+        head.next = node;
+        sizes[queue]++;
+    }
+
+    private void unlink(Node node) {
+
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        sizes[node.queue]--;
+        node.queue = -1;
+    }
+
+    private static ReadBuffer[] newReadBuffers() {
+
+        int count = 1;
+
+        while (count < Runtime.getRuntime().availableProcessors()) {
+            count <<= 1;
+        }
+
+        ReadBuffer[] buffers = new ReadBuffer[count];
+
+        for (int i = 0; i < count; i++) {
+            buffers[i] = new ReadBuffer();
+        }
+
+        return buffers;
+    }
+
+    private static long mix(long value) {
+        value *= 0x9E3779B97F4A7C15L;
+        return value ^ (value >>> 32);
+    }
+
+    /**
+     * 적중 기록용 고정 크기 링 버퍼
+     *
+     * 여러 스레드가 CAS 로 자리를 잡아 기록하고, 락을 잡은 스레드 하나만 비운다.
+     * 가득 찼거나 CAS 에 실패하면 기록하지 않고 false 를 반환한다. ( 기록 유실 허용 )
+     */
+    private static final class ReadBuffer {
+
+        private static final int SIZE = 16;
+        private static final int MASK = SIZE - 1;
+
+        private final AtomicReferenceArray<Node> slots = new AtomicReferenceArray<>(SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        boolean offer(Node node) {
+
+            long tail = writeCounter.get();
+
+            if (tail - readCounter >= SIZE || !writeCounter.compareAndSet(tail, tail + 1)) {
+                return false;
+            }
+
+            slots.lazySet((int) (tail & MASK), node);
+            return true;
+        }
+
+        void drainTo(Consumer<Node> consumer) {
+
+            long head = readCounter;
+            long tail = writeCounter.get();
+
+            for (; head < tail; head++) {
+                int index = (int) (head & MASK);
+                Node node = slots.get(index);
+
+                // 자리는 잡았지만 아직 기록하지 못한 슬롯부터는 다음에 비운다.
+                if (node == null) {
+                    break;
+                }
+
+                slots.lazySet(index, null);
+                consumer.accept(node);
+            }
+
+            readCounter = head;
+        }
+    }
+
+    /**
+     * 캐시 항목이자 이중 연결 리스트 노드
+     *
+     * 키 없이 생성한 노드는 각 큐의 시작점(sentinel)으로 사용한다.
+     */
+    private static final class Node {
+
+        final long key;
+        final Member member;
+
+        int queue = -1;
+        Node prev;
+        Node next;
+
+        Node() {
+            this.key = 0;
+            this.member = null;
+            this.prev = this;
+            this.next = this;
+        }
+
+        Node(long key, Member member) {
+            this.key = key;
+            this.member = member;
+        }
+    }
+}
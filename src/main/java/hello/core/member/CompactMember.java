@@ -0,0 +1,123 @@
+package hello.core.member;
+
+/**
+ * 불변 회원 값 객체
+ *
+ * Member 는 setter 가 있는 가변 객체이고 id 를 Long 으로 박싱해서 가지고 있기 때문에,
+ * 여러 스레드가 공유할 때 방어적으로 다뤄야 하고 회원마다 Long 객체 헤더가 추가로 든다.
+ * CompactMember 는 id 를 long 기본형으로, 등급을 ordinal 로 가지며 한 번 만들면 바뀌지 않는다.
+ * 오래 보관할 값( 공개 생성자, of )은 이름을 intern 해서 같은 이름의 회원들이 하나의 String 을 공유하고,
+ * 저장소가 조회할 때마다 만드는 값( snapshot )은 intern 하지 않는다. ( 조회마다 문자열 테이블을 찾지 않도록 )
+ *
+ * 회원 1명당 크기 ( 64bit JVM, compressed oops 기준, 이름 String 제외 )
+ *  - Member : 객체 헤더 12 + 참조 3개 12 = 24 byte, Long id 헤더 12 + long 8 = 20 => 정렬 후 24 byte => 48 byte
+ *  - CompactMember : 객체 헤더 12 + long 8 + 참조 4 + byte 1 = 25 => 정렬 후 32 byte
+ *  - 이름이 같은 회원이 많을수록 이름 String( 헤더 24 byte + byte 배열 )을 공유하는 만큼 차이가 더 커진다.
+ *  - 측정 : MemoryMemberRepositoryTest.compactMemberFootprint ( 스레드별 할당 바이트 )
+ *
+ * 주문 경로( MemberRepository.findCompactById -> DiscountPolicy.discount(CompactMember, int) )에서 사용한다.
+ */
+public final class CompactMember {
+
+    private static final Grade[] GRADES = Grade.values();
+
+    private final long id;
+    private final byte gradeOrdinal;
+    private final String name;
+
+    public CompactMember(long id, String name, Grade grade) {
+        this(id, name == null ? null : name.intern(), (byte) grade.ordinal());
+    }
+
+    private CompactMember(long id, String name, byte gradeOrdinal) {
+        this.id = id;
+        this.name = name;
+        this.gradeOrdinal = gradeOrdinal;
+    }
+
+    /**
+     * 가변 회원 객체의 현재 상태로 불변 회원 값을 만든다.
+     *
+     * @param member
+     * @return
+     */
+    public static CompactMember of(Member member) {
+        return new CompactMember(member.getId(), member.getName(), member.getGrade());
+    }
+
+    /**
+     * 조회 한 번에만 쓰는 값 ( 이름을 intern 하지 않고 Member 의 String 을 그대로 쓴다. )
+     *
+     * @param member
+     * @return
+     */
+    static CompactMember snapshot(Member member) {
+        return snapshot(member.getId(), member.getName(), member.getGrade());
+    }
+
+    /**
+     * 조회 한 번에만 쓰는 값 ( 저장소가 읽은 필드로 바로 만들고, 이름을 intern 하지 않는다. )
+     *
+     * @param id
+     * @param name
+     * @param grade
+     * @return
+     */
+    static CompactMember snapshot(long id, String name, Grade grade) {
+        return new CompactMember(id, name, (byte) grade.ordinal());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Grade getGrade() {
+        return GRADES[gradeOrdinal];
+    }
+
+    public int getGradeOrdinal() {
+        return gradeOrdinal;
+    }
+
+    /**
+     * 기존 API 와 호환이 필요할 때 가변 회원 객체로 변환
+     *
+     * @return
+     */
+    public Member toMember() {
+        return new Member(id, name, getGrade());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompactMember)) {
+            return false;
+        }
+
+        CompactMember that = (CompactMember) o;
+
+        return id == that.id && gradeOrdinal == that.gradeOrdinal && (name == null ? that.name == null : name.equals(that.name));
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id) * 31 + gradeOrdinal;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactMember{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", grade=" + getGrade() +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package hello.core.member;
+
+/**
+ * 회원 id 별 최근 조회 빈도를 근사하는 Count-Min Sketch ( CachingMemberRepository 전용 )
+ *
+ * - 4 개의 행마다 서로 다른 해시로 카운터를 고르고, 그중 가장 작은 값을 빈도로 본다.
+ * - 카운터는 4 bit ( 최대 15 ) 로 long 하나에 16 개씩 담는다.
+ * - 증가 횟수가 샘플 크기에 도달하면 모든 카운터를 절반으로 줄여서 오래된 빈도의 영향을 줄인다. ( aging )
+ *
+ * 동기화는 호출하는 쪽에서 처리한다.
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L
+    };
+    private static final long HALF_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int rowMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+
+        // 행마다 캐시 크기의 4 배 이상의 4 bit 카운터를 두어서, 한 번씩만 조회된 회원들끼리의 충돌로 빈도가 부풀지 않도록 한다.
+        int counters = Integer.highestOneBit(Math.max(16, maximumSize) - 1) << 3;
+
+        this.table = new long[counters / 16 * SEEDS.length];
+        this.rowMask = counters - 1;
+        this.sampleSize = 10 * Math.max(16, maximumSize);
+    }
+
+    int frequency(long key) {
+
+        int frequency = Integer.MAX_VALUE;
+
+        for (int row = 0; row < SEEDS.length; row++) {
+            frequency = Math.min(frequency, counter(row, indexOf(key, row)));
+        }
+
+        return frequency;
+    }
+
+    void increment(long key) {
+
+        boolean added = false;
+
+        for (int row = 0; row < SEEDS.length; row++) {
+            int index = indexOf(key, row);
+
+            if (counter(row, index) < 15) {
+                int slot = row * (rowMask + 1) / 16 + index / 16;
+                table[slot] += 1L << ((index & 15) * 4);
+                added = true;
+            }
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & HALF_MASK;
+        }
+
+        additions /= 2;
+    }
+
+    private int counter(int row, int index) {
+        int slot = row * (rowMask + 1) / 16 + index / 16;
+        return (int) (table[slot] >>> ((index & 15) * 4)) & 15;
+    }
+
+    private int indexOf(long key, int row) {
+        long h = (key + SEEDS[row]) * SEEDS[row];
+        h ^= h >>> 29;
+        return (int) h & rowMask;
+    }
+}
@@ -0,0 +1,154 @@
+package hello.core.member;
+
+/**
+ * 회원 등급별 id 인덱스 ( OffHeapMemberRepository, MappedMemberRepository 용 )
+ *
+ * GradeIndex 는 Member 객체를 보관하지만, 힙에 회원별 객체를 두지 않는 저장소는 등급마다 회원 id 만 기본형 long 집합으로 보관한다.
+ * ( 오픈 어드레싱(선형 탐사), 삭제 시 뒤쪽 원소를 앞으로 당겨서 삭제 표시 없이 탐사 길이를 유지 )
+ *
+ * 저장소가 회원을 저장할 때 이전 등급과 새 등급으로 update 를 호출하고, 조회할 때는 해당 등급의 id 만 배열로 복사한다.
+ * => 등급별 조회가 전체 회원이 아니라 해당 등급의 회원 수에 비례한다.
+ *
+ * 동기화하지 않으므로 update 는 저장소의 쓰기 락, ids 는 읽기 락을 잡은 상태에서 호출해야 한다.
+ */
+final class GradeIdIndex {
+
+    private static final Grade[] GRADES = Grade.values();
+
+    private final IdSet[] sets = new IdSet[GRADES.length];
+
+    GradeIdIndex() {
+        for (int i = 0; i < sets.length; i++) {
+            sets[i] = new IdSet();
+        }
+    }
+
+    /**
+     * @param memberId
+     * @param previous 같은 id 로 이전에 저장되어 있던 회원의 등급 ( 없으면 null )
+     * @param grade    새로 저장한 회원의 등급
+     */
+    void update(long memberId, Grade previous, Grade grade) {
+
+        if (previous == grade) {
+            return;
+        }
+
+        if (previous != null) {
+            sets[previous.ordinal()].remove(memberId);
+        }
+
+        sets[grade.ordinal()].add(memberId);
+    }
+
+    /**
+     * 해당 등급의 회원 id ( 순서는 보장하지 않는다. )
+     *
+     * @param grade
+     * @return 호출 시점의 복사본
+     */
+    long[] ids(Grade grade) {
+        return sets[grade.ordinal()].toArray();
+    }
+
+    /**
+     * long 기본형 집합 ( 슬롯의 절반까지만 채운다. )
+     */
+    private static final class IdSet {
+
+        private long[] keys = new long[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        void add(long key) {
+
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+
+            int slot = slot(key);
+
+            if (!used[slot]) {
+                keys[slot] = key;
+                used[slot] = true;
+                size++;
+            }
+        }
+
+        void remove(long key) {
+
+            int slot = slot(key);
+
+            if (!used[slot]) {
+                return;
+            }
+
+            int mask = keys.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+
+            // 비운 자리보다 뒤에 있지만 원래 자리가 비운 자리 이전인 원소를 앞으로 당긴다.
+            while (used[next]) {
+                int home = indexFor(keys[next], mask);
+
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    hole = next;
+                }
+
+                next = (next + 1) & mask;
+            }
+
+            used[hole] = false;
+            size--;
+        }
+
+        long[] toArray() {
+
+            long[] result = new long[size];
+            int count = 0;
+
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i]) {
+                    result[count++] = keys[i];
+                }
+            }
+
+            return result;
+        }
+
+        private int slot(long key) {
+
+            int mask = keys.length - 1;
+            int slot = indexFor(key, mask);
+
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            return slot;
+        }
+
+        private void resize() {
+
+            long[] oldKeys = keys;
+            boolean[] oldUsed = used;
+
+            keys = new long[oldKeys.length * 2];
+            used = new boolean[oldUsed.length * 2];
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    used[slot] = true;
+                }
+            }
+        }
+
+        private static int indexFor(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package hello.core.member;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 회원 등급별 보조 인덱스
+ *
+ * 등급마다 동시성 Set 을 두고, 회원이 저장될 때마다 현재 등급의 Set 으로 옮긴다.
+ * 조회는 Set 을 복사하지 않고 그대로 스트림으로 순회하며, 동시에 저장이 일어나도 예외 없이 순회된다. ( weakly consistent )
+ *
+ * 같은 회원 id 에 대한 update 는 저장소에서 직렬화해서 호출해야 한다.
+ */
+class GradeIndex {
+
+    private final Map<Grade, Set<Member>> index = new EnumMap<>(Grade.class);
+
+    GradeIndex() {
+        for (Grade grade : Grade.values()) {
+            index.put(grade, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * 저장된 회원을 현재 등급의 인덱스로 옮긴다.
+     *
+     * Member.setGrade 로 등급을 바꾼 뒤 같은 객체를 다시 저장한 경우도 이전 등급 인덱스에서 제거된다.
+     *
+     * @param previous 같은 id 로 이전에 저장되어 있던 회원 ( 없으면 null )
+     * @param member   새로 저장한 회원
+     */
+    void update(Member previous, Member member) {
+
+        for (Map.Entry<Grade, Set<Member>> entry : index.entrySet()) {
+            Set<Member> members = entry.getValue();
+
+            if (previous != null && previous != member) {
+                members.remove(previous);
+            }
+
+            if (entry.getKey() == member.getGrade()) {
+                members.add(member);
+            } else {
+                members.remove(member);
+            }
+        }
+    }
+
+    /**
+     * 저장 이후에 등급만 바뀌고 다시 저장되지 않은 회원은 결과에서 제외한다.
+     *
+     * @param grade
+     * @return
+     */
+    Stream<Member> find(Grade grade) {
+        return index.get(grade).stream().filter(member -> member.getGrade() == grade);
+    }
+}
@@ -0,0 +1,459 @@
+package hello.core.member;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 메모리 맵 파일 기반의 추가 전용(append-only) 회원 저장소 구현체
+ *
+ * MemoryMemberRepository 는 재시작하면 모든 회원이 사라진다.
+ * 이 저장소는 save 를 로그 파일 끝에 레코드로 덧붙이고, 메모리에는 회원 id -> 파일 오프셋 인덱스만 유지한다.
+ * 시작할 때 로그를 처음부터 읽어서 인덱스를 다시 만들기 때문에 재시작 후에도 회원이 유지된다.
+ *
+ * 레코드 형식
+ *  : [int 본문 길이][int 본문 CRC32][long 회원 id][byte 등급 ordinal][short 이름 길이][이름 UTF-8]
+ *  : 본문 길이가 0 이면 로그의 끝이다.
+ *  : 기록 도중 종료되어 CRC 가 맞지 않는 레코드를 만나면 그 위치를 로그의 끝으로 보고 이후 영역을 지운다.
+ *
+ * 그룹 커밋
+ *  : save 는 레코드를 매핑된 버퍼에 기록한 뒤, 디스크에 반영(force)될 때까지 기다린다.
+ *  : 동시에 대기 중인 스레드 중 하나만 force 를 호출하고, 그 사이에 기록된 다른 스레드의 레코드도 함께 반영된다.
+ *    => 동시에 저장하는 스레드가 많을수록 force 한 번에 더 많은 레코드가 묶인다.
+ *
+ * 등급별 조회는 등급별 회원 id 인덱스(GradeIdIndex) 를 사용한다. ( 저장 / 복구할 때 함께 갱신 )
+ *
+ * 한 번에 매핑할 수 있는 크기 제한 때문에 로그 파일은 최대 2GB 까지 사용할 수 있다.
+ *
+ * 스프링 빈으로 자동 등록하지 않으므로, 사용하려면 AppConfig 또는 appConfig.xml 에서 직접 등록한다.
+ * AutoCloseable 을 구현하므로 스프링 컨테이너가 종료될 때 close 가 자동으로 호출된다.
+ */
+public class MappedMemberRepository implements MemberRepository, AutoCloseable {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int FIXED_BODY_SIZE = 8 + 1 + 2;
+    private static final int NULL_NAME = 0xFFFF;
+    private static final int INITIAL_MAPPING = 16 * 1024 * 1024;
+
+    private static final Grade[] GRADES = Grade.values();
+
+    private final FileChannel channel;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object commitLock = new Object();
+    private final OffsetIndex index = new OffsetIndex();
+    private final GradeIdIndex gradeIndex = new GradeIdIndex();
+
+    private MappedByteBuffer log;
+    private int position;
+    private volatile int durablePosition;
+
+    public MappedMemberRepository(String path) {
+        this(Paths.get(path));
+    }
+
+    public MappedMemberRepository(Path path) {
+        try {
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAPPING, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("회원 로그 파일을 열 수 없습니다. path = " + path, e);
+        }
+
+        recover();
+    }
+
+    @Override
+    public void save(Member member) {
+
+        long memberId = MemoryMemberRepository.idOf(member);
+
+        if (member.getGrade() == null) {
+            throw new IllegalArgumentException("회원 등급이 없습니다. memberId = " + memberId);
+        }
+
+        byte[] name = member.getName() == null ? null : member.getName().getBytes(StandardCharsets.UTF_8);
+
+        if (name != null && name.length >= NULL_NAME) {
+            throw new IllegalArgumentException("회원 이름이 너무 깁니다. memberId = " + memberId);
+        }
+
+        int end;
+
+        lock.writeLock().lock();
+        try {
+            int offset = position;
+            end = append(memberId, member.getGrade(), name);
+            index(memberId, offset);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        awaitDurable(end);
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+
+        if (memberId == null) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            int offset = index.get(memberId);
+            return offset < 0 ? null : read(offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Member 를 거치지 않고 레코드에서 바로 불변 회원 값을 만든다. ( 박싱, intern 없음 )
+     *
+     * @param memberId
+     * @return
+     */
+    @Override
+    public CompactMember findCompactById(long memberId) {
+
+        lock.readLock().lock();
+        try {
+            int offset = index.get(memberId);
+
+            if (offset < 0) {
+                return null;
+            }
+
+            int body = offset + HEADER_SIZE;
+
+            return CompactMember.snapshot(memberId, readName(body), GRADES[log.get(body + 8)]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 등급별 인덱스에서 해당 등급의 회원 id 만 복사하고, 레코드는 스트림을 소비할 때 하나씩 읽는다.
+     *
+     * id 를 복사한 뒤에 다른 등급으로 다시 저장된 회원은 결과에서 제외한다.
+     *
+     * @param grade
+     * @return
+     */
+    @Override
+    public Stream<Member> findByGrade(Grade grade) {
+
+        long[] ids;
+
+        lock.readLock().lock();
+        try {
+            ids = gradeIndex.ids(grade);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return Arrays.stream(ids)
+                .mapToObj(this::findById)
+                .filter(member -> member != null && member.getGrade() == grade);
+    }
+
+    /**
+     * 이름 인덱스가 없으므로 오프셋 인덱스 전체를 훑는다.
+     *
+     * @param prefix
+     * @param limit
+     * @return
+     */
+    @Override
+    public List<Member> findByNamePrefix(String prefix, int limit) {
+
+        List<Member> members = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            index.forEachOffset(offset -> {
+                Member member = read(offset);
+
+                if (member.getName() != null && member.getName().startsWith(prefix)) {
+                    members.add(member);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return MemberNameIndex.sortByName(members, limit);
+    }
+
+    public int size() {
+
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+
+        awaitDurable(Integer.MAX_VALUE);
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 시작 시 로그를 처음부터 읽어서 인덱스를 복구
+     */
+    private void recover() {
+
+        int offset = 0;
+
+        while (offset + HEADER_SIZE <= log.capacity()) {
+            int length = log.getInt(offset);
+
+            if (length == 0) {
+                break;
+            }
+
+            if (length < FIXED_BODY_SIZE || offset + HEADER_SIZE + length > log.capacity()
+                    || log.getInt(offset + 4) != checksum(offset + HEADER_SIZE, length)) {
+                // 기록 도중 중단된 레코드 : 이후 영역을 지워서 다음 복구 때 잘못 읽지 않도록 한다.
+                for (int i = offset; i < log.capacity(); i++) {
+                    log.put(i, (byte) 0);
+                }
+                log.force();
+                break;
+            }
+
+            index(log.getLong(offset + HEADER_SIZE), offset);
+            offset += HEADER_SIZE + length;
+        }
+
+        position = offset;
+        durablePosition = offset;
+    }
+
+    /**
+     * 오프셋 인덱스와 등급별 인덱스를 새 레코드로 갱신 ( 쓰기 락을 잡은 상태, 또는 복구 중에 호출 )
+     */
+    private void index(long memberId, int offset) {
+
+        int previous = index.get(memberId);
+        Grade previousGrade = previous < 0 ? null : GRADES[log.get(previous + HEADER_SIZE + 8)];
+
+        index.put(memberId, offset);
+        gradeIndex.update(memberId, previousGrade, GRADES[log.get(offset + HEADER_SIZE + 8)]);
+    }
+
+    /**
+     * 쓰기 락을 잡은 상태에서 호출
+     *
+     * @return 기록한 레코드의 끝 위치
+     */
+    private int append(long memberId, Grade grade, byte[] name) {
+
+        int nameLength = name == null ? 0 : name.length;
+        int length = FIXED_BODY_SIZE + nameLength;
+
+        ensureMapped(position + HEADER_SIZE + length + HEADER_SIZE);
+
+        int body = position + HEADER_SIZE;
+
+        log.putLong(body, memberId);
+        log.put(body + 8, (byte) grade.ordinal());
+        log.putShort(body + 9, (short) (name == null ? NULL_NAME : nameLength));
+
+        for (int i = 0; i < nameLength; i++) {
+            log.put(body + FIXED_BODY_SIZE + i, name[i]);
+        }
+
+        // 본문과 CRC 를 먼저 쓰고 길이를 마지막에 써서, 길이가 보이면 레코드 전체가 기록된 상태가 되도록 한다.
+        log.putInt(position + 4, checksum(body, length));
+        log.putInt(position, length);
+
+        position = body + length;
+
+        return position;
+    }
+
+    private Member read(int offset) {
+
+        int body = offset + HEADER_SIZE;
+
+        return new Member(log.getLong(body), readName(body), GRADES[log.get(body + 8)]);
+    }
+
+    private String readName(int body) {
+
+        int nameLength = log.getShort(body + 9) & 0xFFFF;
+
+        if (nameLength == NULL_NAME) {
+            return null;
+        }
+
+        byte[] bytes = new byte[nameLength];
+
+        for (int i = 0; i < nameLength; i++) {
+            bytes[i] = log.get(body + FIXED_BODY_SIZE + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 그룹 커밋 : end 위치까지 디스크에 반영될 때까지 대기
+     *
+     * @param end
+     */
+    private void awaitDurable(int end) {
+
+        if (durablePosition >= end) {
+            return;
+        }
+
+        synchronized (commitLock) {
+            if (durablePosition >= end) {
+                return;
+            }
+
+            MappedByteBuffer target;
+            int targetPosition;
+
+            lock.readLock().lock();
+            try {
+                target = log;
+                targetPosition = position;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            target.force();
+            durablePosition = targetPosition;
+        }
+    }
+
+    private void ensureMapped(long required) {
+
+        if (required <= log.capacity()) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalStateException("회원 로그 파일 용량 초과");
+        }
+
+        try {
+            long size = Math.min(Integer.MAX_VALUE, Math.max(required, (long) log.capacity() * 2));
+            log.force();
+            log = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int checksum(int offset, int length) {
+
+        ByteBuffer body = log.duplicate();
+        body.position(offset).limit(offset + length);
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 회원 id -> 로그 오프셋 인덱스 ( long / int 기본형 배열 기반 오픈 어드레싱 )
+     *
+     * 락을 잡은 상태에서만 사용한다.
+     */
+    private static final class OffsetIndex {
+
+        private long[] keys = new long[1024];
+        // 오프셋 + 1 을 저장 ( 0 이면 빈 슬롯 )
+        private int[] offsets = new int[1024];
+        private int size;
+
+        int get(long key) {
+            return offsets[slot(keys, offsets, key)] - 1;
+        }
+
+        void put(long key, int offset) {
+
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+
+            int slot = slot(keys, offsets, key);
+
+            if (offsets[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+
+            offsets[slot] = offset + 1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void forEachOffset(IntConsumer consumer) {
+            for (int offset : offsets) {
+                if (offset != 0) {
+                    consumer.accept(offset - 1);
+                }
+            }
+        }
+
+        private void resize() {
+
+            long[] oldKeys = keys;
+            int[] oldOffsets = offsets;
+
+            keys = new long[oldKeys.length * 2];
+            offsets = new int[oldOffsets.length * 2];
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldOffsets[i] != 0) {
+                    int slot = slot(keys, offsets, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    offsets[slot] = oldOffsets[i];
+                }
+            }
+        }
+
+        private static int slot(long[] keys, int[] offsets, long key) {
+
+            int mask = keys.length - 1;
+            long h = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (h ^ (h >>> 32)) & mask;
+
+            while (offsets[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            return slot;
+        }
+    }
+}
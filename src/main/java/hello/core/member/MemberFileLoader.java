@@ -0,0 +1,450 @@
+package hello.core.member;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 회원 파일 일괄 로더
+ *
+ * 서비스 시작 시 join 을 수백만 번 호출해서 회원 저장소를 채우는 대신,
+ * 회원 파일을 메모리 맵으로 청크 단위로 읽고 fork/join 으로 병렬 파싱한 뒤 saveAll 로 일괄 저장한다.
+ *
+ * 지원 형식
+ *  - CSV : 한 줄에 "회원 id,이름,등급" ( UTF-8, 이름에 쉼표는 사용할 수 없다. )
+ *          첫 줄이 숫자로 시작하지 않으면 헤더로 보고 건너뛰고, 빈 줄은 건너뛴다.
+ *  - 바이너리 : [int 매직 "MBR1"][int 레코드 크기] 헤더 뒤에 64 byte 고정 길이 레코드가 이어진다.
+ *              레코드 = [long 회원 id][byte 등급 ordinal][byte 이름 길이][이름 UTF-8, 최대 54 byte]
+ *
+ * 확장자가 .csv 이면 CSV, 그 외에는 바이너리로 읽는다.
+ *
+ * 잘못된 줄이나 레코드( 숫자가 아닌 id, long 범위를 넘는 id, 빠진 필드, 없는 등급, 잘린 레코드 등 )를 만나면
+ * 건너뛰지 않고 그 줄이나 레코드의 파일 위치(offset)를 담은 IllegalArgumentException 으로 실패한다.
+ * ( 청크를 병렬로 읽으므로 줄 번호 대신 파일 위치로 알린다. )
+ *
+ * AppConfig 에서 스프링 빈으로 등록되며, 파일 경로(member.loader.path)가 설정되어 있으면 빈 초기화 시점에 로딩한다.
+ */
+public class MemberFileLoader {
+
+    static final int BINARY_MAGIC = 0x4D425231;
+    static final int BINARY_HEADER_SIZE = 8;
+    static final int BINARY_RECORD_SIZE = 64;
+    static final int BINARY_MAX_NAME = BINARY_RECORD_SIZE - 10;
+
+    private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final Grade[] GRADES = Grade.values();
+
+    private final MemberRepository memberRepository;
+    private final String path;
+    private final int parallelism;
+    private final int chunkSize;
+
+    /**
+     * @param memberRepository 회원을 채울 저장소
+     * @param path             시작 시 로딩할 파일 경로 ( 비어 있으면 시작 시 로딩하지 않는다. )
+     * @param parallelism      파싱 스레드 수 ( 0 이하이면 CPU 코어 수 )
+     * @param chunkSize        한 작업이 맡는 청크 크기 ( byte, 0 이하이면 8MB )
+     */
+    public MemberFileLoader(MemberRepository memberRepository, String path, int parallelism, int chunkSize) {
+        this.memberRepository = memberRepository;
+        this.path = path;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * 설정된 파일이 있으면 빈 초기화 시점에 로딩
+     */
+    @PostConstruct
+    public void init() {
+
+        if (path == null || path.isEmpty()) {
+            return;
+        }
+
+        LoadResult result = load(Paths.get(path));
+
+        System.out.println("member load : " + result);
+    }
+
+    /**
+     * 회원 파일을 병렬로 읽어서 저장소에 일괄 저장
+     *
+     * @param file
+     * @return 로딩 결과 ( 건수, 크기, 소요 시간 )
+     */
+    public LoadResult load(Path file) {
+
+        long startNanos = System.nanoTime();
+        boolean csv = file.getFileName().toString().toLowerCase().endsWith(".csv");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<long[]> chunks = csv ? csvChunks(channel, size) : binaryChunks(channel, size);
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            long records;
+
+            try {
+                records = pool.invoke(new ChunkTask(channel, chunks, 0, chunks.size(), csv));
+            } finally {
+                pool.shutdown();
+            }
+
+            return new LoadResult(records, size, chunks.size(), System.nanoTime() - startNanos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("회원 파일을 읽을 수 없습니다. file = " + file, e);
+        }
+    }
+
+    /**
+     * 회원 목록을 바이너리 형식으로 저장 ( 변환 및 테스트 용도 )
+     *
+     * @param file
+     * @param members
+     */
+    public static void writeBinary(Path file, Collection<Member> members) {
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer buffer = ByteBuffer.allocate(BINARY_RECORD_SIZE * 1024);
+            buffer.putInt(BINARY_MAGIC).putInt(BINARY_RECORD_SIZE);
+
+            for (Member member : members) {
+                byte[] name = member.getName().getBytes(StandardCharsets.UTF_8);
+
+                if (name.length > BINARY_MAX_NAME) {
+                    throw new IllegalArgumentException("회원 이름이 너무 깁니다. memberId = " + member.getId());
+                }
+                if (buffer.remaining() < BINARY_RECORD_SIZE) {
+                    buffer.flip();
+                    writeFully(channel, buffer);
+                    buffer.clear();
+                }
+
+                int start = buffer.position();
+                buffer.putLong(member.getId()).put((byte) member.getGrade().ordinal()).put((byte) name.length).put(name);
+                buffer.position(start + BINARY_RECORD_SIZE);
+            }
+
+            buffer.flip();
+            writeFully(channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 청크 경계를 줄바꿈 바로 뒤로 맞춘다.
+     */
+    private List<long[]> csvChunks(FileChannel channel, long size) throws IOException {
+
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(256);
+        long start = 0;
+
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                int newline = -1;
+
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+
+            chunks.add(new long[]{start, Math.min(end, size)});
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * 청크 크기를 레코드 크기의 배수로 맞춘다.
+     */
+    private List<long[]> binaryChunks(FileChannel channel, long size) throws IOException {
+
+        ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_SIZE);
+        channel.read(header, 0);
+
+        if (size < BINARY_HEADER_SIZE || header.getInt(0) != BINARY_MAGIC || header.getInt(4) != BINARY_RECORD_SIZE) {
+            throw new IllegalArgumentException("회원 바이너리 파일 형식이 아닙니다.");
+        }
+        // 저장하기 전에 실패하도록 청크를 나누기 전에 확인한다.
+        if ((size - BINARY_HEADER_SIZE) % BINARY_RECORD_SIZE != 0) {
+            throw malformed("마지막 레코드가 잘려 있습니다.", size - (size - BINARY_HEADER_SIZE) % BINARY_RECORD_SIZE);
+        }
+
+        long step = Math.max(1, chunkSize / BINARY_RECORD_SIZE) * BINARY_RECORD_SIZE;
+        List<long[]> chunks = new ArrayList<>();
+
+        for (long start = BINARY_HEADER_SIZE; start < size; start += step) {
+            chunks.add(new long[]{start, Math.min(size, start + step)});
+        }
+
+        return chunks;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 청크 목록을 반씩 나눠서 병렬로 처리하고, 저장한 회원 수를 합산
+     */
+    private class ChunkTask extends RecursiveTask<Long> {
+
+        private final FileChannel channel;
+        private final List<long[]> chunks;
+        private final int from;
+        private final int to;
+        private final boolean csv;
+
+        ChunkTask(FileChannel channel, List<long[]> chunks, int from, int to, boolean csv) {
+            this.channel = channel;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.csv = csv;
+        }
+
+        @Override
+        protected Long compute() {
+
+            if (to - from <= 1) {
+                return from == to ? 0L : loadChunk(chunks.get(from));
+            }
+
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(channel, chunks, from, mid, csv);
+            left.fork();
+            long right = new ChunkTask(channel, chunks, mid, to, csv).compute();
+
+            return left.join() + right;
+        }
+
+        private long loadChunk(long[] chunk) {
+
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+                List<Member> members = csv ? parseCsv(buffer, chunk[0]) : parseBinary(buffer, chunk[0]);
+
+                memberRepository.saveAll(members);
+
+                return members.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * @param buffer
+     * @param offset buffer 의 시작이 파일에서 차지하는 위치 ( 0 이면 첫 줄을 헤더로 볼 수 있다. )
+     * @return
+     */
+    static List<Member> parseCsv(ByteBuffer buffer, long offset) {
+
+        List<Member> members = new ArrayList<>();
+        int limit = buffer.limit();
+        int lineStart = 0;
+
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+
+            int end = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            byte first = lineStart < end ? buffer.get(lineStart) : 0;
+            boolean header = offset == 0 && lineStart == 0 && !(first >= '0' && first <= '9');
+
+            if (lineStart < end && !header) {
+                members.add(parseCsvLine(buffer, lineStart, end, offset));
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        return members;
+    }
+
+    private static Member parseCsvLine(ByteBuffer buffer, int start, int end, long offset) {
+
+        long id = 0;
+        int i = start;
+
+        while (i < end && buffer.get(i) != ',') {
+            int digit = buffer.get(i) - '0';
+
+            if (digit < 0 || digit > 9) {
+                throw malformed("회원 id 가 숫자가 아닙니다.", offset + start);
+            }
+            if (id > (Long.MAX_VALUE - digit) / 10) {
+                throw malformed("회원 id 가 너무 큽니다.", offset + start);
+            }
+
+            id = id * 10 + digit;
+            i++;
+        }
+
+        if (i == start || i == end) {
+            throw malformed("회원 id, 이름, 등급이 쉼표로 구분되어 있지 않습니다.", offset + start);
+        }
+
+        int nameStart = ++i;
+
+        while (i < end && buffer.get(i) != ',') {
+            i++;
+        }
+
+        if (i == end) {
+            throw malformed("회원 id, 이름, 등급이 쉼표로 구분되어 있지 않습니다.", offset + start);
+        }
+
+        String name = decode(buffer, nameStart, i - nameStart);
+        String grade = decode(buffer, i + 1, end - i - 1).trim();
+
+        return new Member(id, name, gradeOf(grade, offset + start));
+    }
+
+    /**
+     * @param buffer
+     * @param offset buffer 의 시작이 파일에서 차지하는 위치
+     * @return
+     */
+    static List<Member> parseBinary(ByteBuffer buffer, long offset) {
+
+        if (buffer.limit() % BINARY_RECORD_SIZE != 0) {
+            throw malformed("마지막 레코드가 잘려 있습니다.", offset + buffer.limit() / BINARY_RECORD_SIZE * BINARY_RECORD_SIZE);
+        }
+
+        int count = buffer.limit() / BINARY_RECORD_SIZE;
+        List<Member> members = new ArrayList<>(count);
+
+        for (int r = 0; r < count; r++) {
+            int base = r * BINARY_RECORD_SIZE;
+            long id = buffer.getLong(base);
+            int gradeOrdinal = buffer.get(base + 8);
+            int nameLength = buffer.get(base + 9) & 0xFF;
+
+            if (gradeOrdinal < 0 || gradeOrdinal >= GRADES.length) {
+                throw malformed("없는 등급입니다. ordinal = " + gradeOrdinal, offset + base);
+            }
+            if (nameLength > BINARY_MAX_NAME) {
+                throw malformed("회원 이름 길이가 레코드를 넘습니다. length = " + nameLength, offset + base);
+            }
+
+            members.add(new Member(id, decode(buffer, base + 10, nameLength), GRADES[gradeOrdinal]));
+        }
+
+        return members;
+    }
+
+    private static Grade gradeOf(String grade, long offset) {
+
+        try {
+            return Grade.valueOf(grade);
+        } catch (IllegalArgumentException e) {
+            throw malformed("없는 등급입니다. grade = " + grade, offset);
+        }
+    }
+
+    private static IllegalArgumentException malformed(String reason, long offset) {
+        return new IllegalArgumentException("회원 파일 형식이 잘못되었습니다. " + reason + " offset = " + offset);
+    }
+
+    private static String decode(ByteBuffer buffer, int offset, int length) {
+
+        byte[] bytes = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 로딩 결과 ( 로딩 시간 지표 )
+     */
+    public static class LoadResult {
+
+        private final long records;
+        private final long bytes;
+        private final int chunks;
+        private final long elapsedNanos;
+
+        public LoadResult(long records, long bytes, int chunks, long elapsedNanos) {
+            this.records = records;
+            this.bytes = bytes;
+            this.chunks = chunks;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public long getRecordsPerSecond() {
+            return elapsedNanos == 0 ? records : records * 1_000_000_000L / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "LoadResult{" +
+                    "records=" + records +
+                    ", bytes=" + bytes +
+                    ", chunks=" + chunks +
+                    ", elapsedMillis=" + getElapsedMillis() +
+                    ", recordsPerSecond=" + getRecordsPerSecond() +
+                    '}';
+        }
+    }
+}
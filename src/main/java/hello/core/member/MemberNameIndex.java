@@ -0,0 +1,131 @@
+package hello.core.member;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 회원 이름 접두사 검색용 보조 인덱스
+ *
+ * 이름 순으로 정렬된 ConcurrentSkipListSet 에 ( 이름, 회원 id ) 항목을 두고,
+ * 접두사 이상인 첫 항목부터 접두사가 맞지 않을 때까지만 순회한다.
+ *  => 조회 비용은 전체 회원 수가 아니라 ( log N + 접두사 길이 x 결과 수 ) 에 비례한다.
+ *
+ * 이름 변경
+ *  : 회원 id 별로 마지막에 색인한 항목을 기억해 두고, 다시 저장될 때 이전 이름의 항목을 지운 뒤 새 이름으로 색인한다.
+ *  : Member.setName 으로 이름만 바꾸고 다시 저장하지 않은 회원은, 조회할 때 현재 이름을 확인해서 결과에서 제외한다. ( GradeIndex 와 같은 규칙 )
+ *
+ * 동시성 처리
+ *  : 조회와 갱신 모두 인덱스 전체 락 없이 수행된다. ( 저장소의 세그먼트 락 안에서 호출되어도 세그먼트끼리 경합하지 않는다. )
+ *  : id 별 마지막 항목은 compare-and-set 으로 교체하고, 교체에 성공한 쪽만 이전 항목을 지운다.
+ *  : 새 항목을 넣은 뒤 그 사이에 다른 갱신이 자기 항목을 교체했다면 방금 넣은 항목을 다시 지운다. => 같은 id 의 항목이 남지 않는다.
+ */
+class MemberNameIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry entry) -> entry.name)
+            .thenComparingLong(entry -> entry.memberId);
+
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+    private final ConcurrentMap<Long, Entry> indexed = new ConcurrentHashMap<>();
+
+    /**
+     * 저장된 회원의 현재 이름으로 색인한다.
+     *
+     * @param memberId
+     * @param member   새로 저장한 회원
+     */
+    void update(long memberId, Member member) {
+
+        String name = member.getName();
+        // 이름이 없는 회원은 검색 대상에서 빠지지만, 다음 저장 때 비교할 수 있도록 id 별 항목은 남겨 둔다.
+        Entry entry = new Entry(name, memberId, member);
+        Entry previous;
+
+        do {
+            previous = indexed.get(memberId);
+
+            if (previous != null && previous.member == member && Objects.equals(previous.name, name)) {
+                return;
+            }
+        } while (previous == null ? indexed.putIfAbsent(memberId, entry) != null : !indexed.replace(memberId, previous, entry));
+
+        if (previous != null && previous.name != null) {
+            entries.remove(previous);
+        }
+
+        if (name != null) {
+            entries.add(entry);
+
+            if (indexed.get(memberId) != entry) {
+                entries.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * 이름이 접두사로 시작하는 회원을 이름 순으로 최대 limit 명까지 조회
+     *
+     * @param prefix
+     * @param limit 0 이하이면 빈 결과
+     * @return
+     */
+    List<Member> find(String prefix, int limit) {
+
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        List<Member> members = new ArrayList<>(Math.min(limit, 64));
+
+        for (Entry entry : entries.tailSet(new Entry(prefix, Long.MIN_VALUE, null), true)) {
+            if (members.size() >= limit || !entry.name.startsWith(prefix)) {
+                break;
+            }
+
+            String currentName = entry.member.getName();
+
+            if (currentName != null && currentName.startsWith(prefix)) {
+                members.add(entry.member);
+            }
+        }
+
+        return members;
+    }
+
+    /**
+     * 인덱스가 없는 저장소에서 전체를 훑어 찾은 회원을 같은 순서로 정렬해서 limit 명만 남긴다.
+     *
+     * @param matches
+     * @param limit
+     * @return
+     */
+    static List<Member> sortByName(List<Member> matches, int limit) {
+
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        matches.sort(Comparator.comparing(Member::getName).thenComparing(Member::getId));
+
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    private static final class Entry {
+
+        private final String name;
+        private final long memberId;
+        private final Member member;
+
+        private Entry(String name, long memberId, Member member) {
+            this.name = name;
+            this.memberId = memberId;
+            this.member = member;
+        }
+    }
+}
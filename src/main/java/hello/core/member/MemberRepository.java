@@ -1,5 +1,11 @@
 package hello.core.member;
 
+import hello.core.common.LongObjectMap;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * 회원 저장소 인터페이스
  */
@@ -19,4 +25,71 @@ public interface MemberRepository {
      * @return
      */
     Member findById(Long memberId);
+
+    /**
+     * 불변 회원 값으로 조회 ( 주문 경로용, id 박싱 없음 )
+     *
+     * 기본 구현은 findById 결과를 이름 intern 없이 변환하며( id 는 박싱된다. ),
+     * 구현체는 박싱 없이 Member 를 거치지 않도록 재정의할 수 있다.
+     *
+     * @param memberId
+     * @return 회원이 없으면 null
+     */
+    default CompactMember findCompactById(long memberId) {
+
+        Member member = findById(memberId);
+
+        return member == null ? null : CompactMember.snapshot(member);
+    }
+
+    /**
+     * 등급별 회원 조회
+     *
+     * @param grade
+     * @return 해당 등급의 회원 ( 순서는 보장하지 않는다. )
+     */
+    Stream<Member> findByGrade(Grade grade);
+
+    /**
+     * 이름 접두사로 회원 검색
+     *
+     * @param prefix 찾을 이름의 앞부분
+     * @param limit  최대 결과 수 ( 0 이하이면 빈 결과 )
+     * @return 이름 순으로 정렬된 회원 ( 이름이 같으면 id 순 )
+     */
+    List<Member> findByNamePrefix(String prefix, int limit);
+
+    /**
+     * 회원 일괄 저장
+     *
+     * 기본 구현은 save 를 반복 호출하며, 구현체는 한 번의 패스로 처리하도록 재정의할 수 있다.
+     *
+     * @param members
+     */
+    default void saveAll(Collection<Member> members) {
+        for (Member member : members) {
+            save(member);
+        }
+    }
+
+    /**
+     * 회원 일괄 조회
+     *
+     * @param memberIds
+     * @return 회원 id 를 키로 하는 결과 ( 존재하지 않는 id 는 포함되지 않는다. )
+     */
+    default LongObjectMap<Member> findAllById(long... memberIds) {
+
+        LongObjectMap<Member> result = new LongObjectMap<>(memberIds.length);
+
+        for (long memberId : memberIds) {
+            Member member = findById(memberId);
+
+            if (member != null) {
+                result.put(memberId, member);
+            }
+        }
+
+        return result;
+    }
 }
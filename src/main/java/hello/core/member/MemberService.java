@@ -1,5 +1,10 @@
 package hello.core.member;
 
+import hello.core.common.LongObjectMap;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 회원 서비스 인터페이스
  */
@@ -19,4 +24,29 @@ public interface MemberService {
      * @return
      */
     Member findMember(Long memberId);
+
+    /**
+     * 회원 비동기 조회
+     *
+     * 호출한 스레드를 막지 않고 서비스 실행기에서 조회한다.
+     *
+     * @param memberId
+     * @return 조회 결과 ( 실행기가 포화 상태이면 RejectedExecutionException 으로 실패한다. )
+     */
+    CompletableFuture<Member> findMemberAsync(Long memberId);
+
+    /**
+     * 회원 일괄 가입
+     *
+     * @param members
+     */
+    void joinAll(Collection<Member> members);
+
+    /**
+     * 회원 일괄 조회
+     *
+     * @param memberIds
+     * @return 회원 id 를 키로 하는 결과
+     */
+    LongObjectMap<Member> findMembers(long... memberIds);
 }
@@ -1,8 +1,13 @@
 package hello.core.member;
 
+import hello.core.common.LongObjectMap;
+import hello.core.common.ServiceExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 회원 서비스 구현체
  *
@@ -18,6 +23,7 @@ import org.springframework.stereotype.Component;
 public class MemberServiceImpl implements MemberService {
 
     private final MemberRepository memberRepository;
+    private final ServiceExecutor serviceExecutor;
 
     /**
      * 생성자
@@ -28,10 +34,12 @@ public class MemberServiceImpl implements MemberService {
      * @Autowired 어노테이션 : 의존관계를 자동으로 주입
      * 
      * @param memberRepository
+     * @param serviceExecutor 비동기 조회를 수행할 실행기
      */
     @Autowired
-    public MemberServiceImpl(MemberRepository memberRepository) {
+    public MemberServiceImpl(MemberRepository memberRepository, ServiceExecutor serviceExecutor) {
         this.memberRepository = memberRepository;
+        this.serviceExecutor = serviceExecutor;
     }
 
     @Override
@@ -44,6 +52,21 @@ public class MemberServiceImpl implements MemberService {
         return memberRepository.findById(memberId);
     }
 
+    @Override
+    public CompletableFuture<Member> findMemberAsync(Long memberId) {
+        return serviceExecutor.supply(() -> memberRepository.findById(memberId));
+    }
+
+    @Override
+    public void joinAll(Collection<Member> members) {
+        memberRepository.saveAll(members);
+    }
+
+    @Override
+    public LongObjectMap<Member> findMembers(long... memberIds) {
+        return memberRepository.findAllById(memberIds);
+    }
+
     /**
      * 스프링 컨테이너가 싱글톤의 문제점을 해결하는지 검증 테스트 용도
      *
@@ -1,31 +1,238 @@
 package hello.core.member;
 
+import hello.core.common.LongObjectMap;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 메모리 회원 저장소 구현체
  *
  * 데이터베이스가 아직 확정되지 않았다는 가정 하에 가장 단순한 메모리 회원 저장소를 구현하기로 결정
  *
- * 참고) HashMap 을 사용하여 동시성 이슈가 발생한 경우 ConcurrentHashMap 사용
+ * 동시성 처리
+ *  : HashMap 은 여러 요청 스레드가 동시에 save / findById 를 호출하면 내부 구조가 깨질 수 있다.
+ *  : 회원 id 로 세그먼트를 나누고, 세그먼트마다 long 키 전용 해시 테이블(LongObjectMap)을 둔다.
+ *  : 조회는 락 없이 수행되고, 저장은 해당 세그먼트에만 락을 걸기 때문에 서로 다른 세그먼트의 저장은 경합하지 않는다.
+ *  : 키를 long 기본형으로 다루므로 조회할 때마다 Long 객체가 생성되지 않는다.
+ *
+ * 주문 경로 조회 ( findCompactById )
+ *  : 회원은 Member 하나로만 보관하고, 불변 회원 값(CompactMember)은 조회할 때 Member 의 현재 상태로 만든다.
+ *    => 회원마다 Member 와 CompactMember 를 함께 보관하지 않으므로 회원 1명당 CompactMember 만큼( 32 byte )의 힙을 더 쓰지 않는다.
+ *  : 조회할 때 만드는 값은 Member 의 이름 String 을 그대로 쓰고 intern 하지 않는다.
+ *
+ * 등급별 조회 / 이름 접두사 검색
+ *  : 저장할 때마다 등급별 보조 인덱스(GradeIndex)와 이름 인덱스(MemberNameIndex)를 함께 갱신하므로,
+ *    전체 회원을 훑지 않고 등급별 회원이나 이름이 특정 접두사로 시작하는 회원을 조회할 수 있다.
  *
  * @Component 어노테이션 : 스프링 빈으로 등록
  */
 @Component
 public class MemoryMemberRepository implements MemberRepository {
 
-    private static Map<Long, Member> store = new HashMap<>();
+    // 세그먼트 개수 ( 2의 제곱수 )
+    private static final int SEGMENTS = 16;
+
+    private static final LongObjectMap<Member>[] store = newSegments();
+    private static final GradeIndex gradeIndex = new GradeIndex();
+    private static final MemberNameIndex nameIndex = new MemberNameIndex();
 
     @Override
     public void save(Member member) {
-        store.put(member.getId(), member);
+
+        long memberId = idOf(member);
+        LongObjectMap<Member> segment = segmentFor(memberId);
+
+        synchronized (segment) {
+            gradeIndex.update(segment.put(memberId, member), member);
+            nameIndex.update(memberId, member);
+        }
+    }
+
+    /**
+     * 회원 일괄 저장
+     *
+     * 회원을 세그먼트별로 한 번 분류(계수 정렬)한 뒤, 세그먼트마다 락을 한 번만 잡고
+     * 필요한 크기만큼 한 번에 확장한 다음 저장한다.
+     *
+     * @param members
+     */
+    @Override
+    public void saveAll(Collection<Member> members) {
+
+        Member[] batch = members.toArray(new Member[0]);
+        long[] ids = new long[batch.length];
+
+        for (int i = 0; i < batch.length; i++) {
+            ids[i] = idOf(batch[i]);
+        }
+
+        int[] start = new int[SEGMENTS + 1];
+        int[] order = orderBySegment(ids, start);
+
+        for (int s = 0; s < SEGMENTS; s++) {
+            int from = start[s];
+            int to = start[s + 1];
+
+            if (from == to) {
+                continue;
+            }
+
+            LongObjectMap<Member> segment = store[s];
+
+            synchronized (segment) {
+                segment.ensureCapacity(to - from);
+
+                for (int k = from; k < to; k++) {
+                    Member member = batch[order[k]];
+                    gradeIndex.update(segment.put(ids[order[k]], member), member);
+                    nameIndex.update(ids[order[k]], member);
+                }
+            }
+        }
+    }
+
+    /**
+     * 회원 일괄 조회
+     *
+     * saveAll 과 같이 id 를 세그먼트별로 모은 뒤, 세그먼트마다 한 번만 테이블을 읽어서 그 세그먼트의 id 를 연속으로 조회한다.
+     * ( 기본 구현과 달리 id 를 Long 으로 박싱하지 않고, 한 세그먼트의 테이블을 읽는 동안 다른 세그먼트의 테이블로 오가지 않는다. )
+     *
+     * @param memberIds
+     * @return
+     */
+    @Override
+    public LongObjectMap<Member> findAllById(long... memberIds) {
+
+        LongObjectMap<Member> result = new LongObjectMap<>(memberIds.length);
+        int[] start = new int[SEGMENTS + 1];
+        int[] order = orderBySegment(memberIds, start);
+
+        for (int s = 0; s < SEGMENTS; s++) {
+            LongObjectMap<Member> segment = store[s];
+
+            for (int k = start[s]; k < start[s + 1]; k++) {
+                long memberId = memberIds[order[k]];
+                Member member = segment.get(memberId);
+
+                if (member != null) {
+                    result.put(memberId, member);
+                }
+            }
+        }
+
+        return result;
     }
 
     @Override
     public Member findById(Long memberId) {
-        return store.get(memberId);
+
+        if (memberId == null) {
+            return null;
+        }
+
+        return findById(memberId.longValue());
+    }
+
+    /**
+     * 박싱 없이 회원 조회
+     *
+     * @param memberId
+     * @return
+     */
+    public Member findById(long memberId) {
+        return segmentFor(memberId).get(memberId);
+    }
+
+    /**
+     * 불변 회원 값 조회 ( 박싱, intern 없음 )
+     *
+     * @param memberId
+     * @return
+     */
+    @Override
+    public CompactMember findCompactById(long memberId) {
+
+        Member member = findById(memberId);
+
+        return member == null ? null : CompactMember.snapshot(member);
+    }
+
+    /**
+     * 인덱스를 복사하지 않고 그대로 스트림으로 순회한다.
+     *
+     * @param grade
+     * @return
+     */
+    @Override
+    public Stream<Member> findByGrade(Grade grade) {
+        return gradeIndex.find(grade);
+    }
+
+    @Override
+    public List<Member> findByNamePrefix(String prefix, int limit) {
+        return nameIndex.find(prefix, limit);
+    }
+
+    static long idOf(Member member) {
+
+        Long memberId = member.getId();
+
+        if (memberId == null) {
+            throw new IllegalArgumentException("회원 id 가 없습니다.");
+        }
+
+        return memberId;
+    }
+
+    private static LongObjectMap<Member> segmentFor(long memberId) {
+        return store[segmentIndex(memberId)];
+    }
+
+    /**
+     * id 의 인덱스를 세그먼트 순으로 정렬 ( 계수 정렬 )
+     *
+     * @param ids
+     * @param start 세그먼트 s 의 인덱스는 반환 배열의 [ start[s], start[s + 1] ) 에 담긴다. ( 길이 SEGMENTS + 1 )
+     * @return
+     */
+    private static int[] orderBySegment(long[] ids, int[] start) {
+
+        int[] segmentOf = new int[ids.length];
+
+        for (int i = 0; i < ids.length; i++) {
+            segmentOf[i] = segmentIndex(ids[i]);
+            start[segmentOf[i] + 1]++;
+        }
+        for (int s = 0; s < SEGMENTS; s++) {
+            start[s + 1] += start[s];
+        }
+
+        int[] order = new int[ids.length];
+        int[] next = start.clone();
+
+        for (int i = 0; i < ids.length; i++) {
+            order[next[segmentOf[i]]++] = i;
+        }
+
+        return order;
+    }
+
+    private static int segmentIndex(long memberId) {
+        return (int) (memberId ^ (memberId >>> 32)) & (SEGMENTS - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> LongObjectMap<V>[] newSegments() {
+
+        LongObjectMap<V>[] segments = new LongObjectMap[SEGMENTS];
+
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new LongObjectMap<>();
+        }
+
+        return segments;
     }
 }
@@ -0,0 +1,383 @@
+package hello.core.member;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 오프힙(direct memory) 회원 저장소 구현체
+ *
+ * 회원 수가 수백만 단위가 되면 Member 객체 ( + Long id, String name ) 가 힙과 GC 시간을 대부분 차지한다.
+ * 이 저장소는 회원 정보를 힙 밖의 direct ByteBuffer 에 고정 길이 레코드로 저장하고,
+ * findById 가 호출될 때만 Member 객체를 만들어서 반환한다.
+ * => 힙 사용량과 old 영역 GC 부담이 회원 수에 비례해서 늘어나지 않는다.
+ *
+ * 슬롯 테이블 ( 오픈 어드레싱, 슬롯 당 16 byte )
+ *  : [0..7] 회원 id / [8..11] 이름 영역 오프셋 / [12..13] 이름 길이 / [14] 등급 ordinal + 1 ( 0 이면 빈 슬롯 )
+ *
+ * 이름 영역
+ *  : 이름을 UTF-8 로 이어 붙여 저장하는 영역
+ *  : 이름이 바뀌어 다시 저장되면 새 이름을 뒤에 덧붙이며, 이전 이름이 차지하던 공간은 재사용하지 않는다.
+ *
+ * 등급별 조회는 등급별 회원 id 인덱스(GradeIdIndex) 를 사용한다. ( 힙에 회원별 객체를 두지 않도록 id 만 기본형으로 보관 )
+ *
+ * 조회는 읽기 락, 저장은 쓰기 락으로 보호한다.
+ * 한 ByteBuffer 의 최대 크기 제한 때문에 약 3천 3백만 명까지 저장할 수 있다.
+ *
+ * 스프링 빈으로 자동 등록하지 않으므로, 사용하려면 AppConfig 에서 직접 생성해서 등록한다.
+ */
+public class OffHeapMemberRepository implements MemberRepository {
+
+    private static final int SLOT_SIZE = 16;
+    private static final int ID_OFFSET = 0;
+    private static final int NAME_OFFSET = 8;
+    private static final int NAME_LENGTH = 12;
+    private static final int GRADE = 14;
+
+    private static final int MAX_SLOTS = 1 << 26;
+    private static final int MAX_NAME_BYTES = 0xFFFE;
+
+    // 이름이 null 인 회원을 표시하는 길이 값
+    private static final int NULL_NAME = 0xFFFF;
+
+    private static final Grade[] GRADES = Grade.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final GradeIdIndex gradeIndex = new GradeIdIndex();
+
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+
+    private ByteBuffer names;
+
+    public OffHeapMemberRepository() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedMembers 확장 없이 저장할 수 있는 예상 회원 수
+     */
+    public OffHeapMemberRepository(int expectedMembers) {
+
+        int capacity = slotCapacityFor(expectedMembers);
+
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        this.mask = capacity - 1;
+        this.names = ByteBuffer.allocateDirect(Math.max(1024, expectedMembers * 8));
+    }
+
+    @Override
+    public void save(Member member) {
+
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(1);
+            write(member);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 쓰기 락을 한 번만 잡고, 슬롯 테이블도 한 번만 확장한다.
+     *
+     * @param members
+     */
+    @Override
+    public void saveAll(Collection<Member> members) {
+
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(members.size());
+
+            for (Member member : members) {
+                write(member);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+
+        if (memberId == null) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(memberId);
+
+            if (gradeCode(slot) == 0) {
+                return null;
+            }
+
+            return readMember(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Member 를 거치지 않고 슬롯에서 바로 불변 회원 값을 만든다.
+     *
+     * @param memberId
+     * @return
+     */
+    @Override
+    public CompactMember findCompactById(long memberId) {
+
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(memberId);
+
+            if (gradeCode(slot) == 0) {
+                return null;
+            }
+
+            int base = slot * SLOT_SIZE;
+
+            return CompactMember.snapshot(memberId, readName(base), GRADES[gradeCode(slot) - 1]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 등급별 인덱스에서 해당 등급의 회원 id 만 복사하고, Member 는 스트림을 소비할 때 하나씩 만든다.
+     *
+     * id 를 복사한 뒤에 다른 등급으로 다시 저장된 회원은 결과에서 제외한다.
+     *
+     * @param grade
+     * @return
+     */
+    @Override
+    public Stream<Member> findByGrade(Grade grade) {
+
+        long[] ids;
+
+        lock.readLock().lock();
+        try {
+            ids = gradeIndex.ids(grade);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return Arrays.stream(ids)
+                .mapToObj(this::findById)
+                .filter(member -> member != null && member.getGrade() == grade);
+    }
+
+    /**
+     * 이름 인덱스가 없으므로 슬롯 테이블 전체를 훑는다.
+     *
+     * @param prefix
+     * @param limit
+     * @return
+     */
+    @Override
+    public List<Member> findByNamePrefix(String prefix, int limit) {
+
+        List<Member> members = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot <= mask; slot++) {
+                if (gradeCode(slot) == 0) {
+                    continue;
+                }
+
+                String name = readName(slot * SLOT_SIZE);
+
+                if (name != null && name.startsWith(prefix)) {
+                    members.add(readMember(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return MemberNameIndex.sortByName(members, limit);
+    }
+
+    public int size() {
+
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Member member) {
+
+        long memberId = MemoryMemberRepository.idOf(member);
+
+        if (member.getGrade() == null) {
+            throw new IllegalArgumentException("회원 등급이 없습니다. memberId = " + memberId);
+        }
+
+        int slot = findSlot(memberId);
+        int base = slot * SLOT_SIZE;
+        boolean isNew = gradeCode(slot) == 0;
+        Grade previousGrade = isNew ? null : GRADES[gradeCode(slot) - 1];
+
+        String name = member.getName();
+        int nameOffset = 0;
+        int nameLength = NULL_NAME;
+
+        if (name != null) {
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+
+            if (encoded.length > MAX_NAME_BYTES) {
+                throw new IllegalArgumentException("회원 이름이 너무 깁니다. memberId = " + memberId);
+            }
+
+            nameLength = encoded.length;
+            nameOffset = !isNew && sameName(slot, encoded) ? slots.getInt(base + NAME_OFFSET) : appendName(encoded);
+        }
+
+        slots.putLong(base + ID_OFFSET, memberId);
+        slots.putInt(base + NAME_OFFSET, nameOffset);
+        slots.putShort(base + NAME_LENGTH, (short) nameLength);
+        slots.put(base + GRADE, (byte) (member.getGrade().ordinal() + 1));
+        gradeIndex.update(memberId, previousGrade, member.getGrade());
+
+        if (isNew) {
+            size++;
+        }
+    }
+
+    private Member readMember(int slot) {
+
+        int base = slot * SLOT_SIZE;
+
+        return new Member(slots.getLong(base + ID_OFFSET), readName(base), GRADES[gradeCode(slot) - 1]);
+    }
+
+    private String readName(int base) {
+
+        int nameLength = slots.getShort(base + NAME_LENGTH) & 0xFFFF;
+
+        if (nameLength == NULL_NAME) {
+            return null;
+        }
+
+        byte[] bytes = new byte[nameLength];
+        ByteBuffer view = names.duplicate();
+        view.position(slots.getInt(base + NAME_OFFSET));
+        view.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 회원 id 가 저장된 슬롯, 없으면 저장될 빈 슬롯을 반환
+     */
+    private int findSlot(long memberId) {
+
+        long h = memberId * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+
+        while (gradeCode(slot) != 0 && slots.getLong(slot * SLOT_SIZE + ID_OFFSET) != memberId) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private int gradeCode(int slot) {
+        return slots.get(slot * SLOT_SIZE + GRADE);
+    }
+
+    private boolean sameName(int slot, byte[] encoded) {
+
+        int base = slot * SLOT_SIZE;
+
+        if ((slots.getShort(base + NAME_LENGTH) & 0xFFFF) != encoded.length) {
+            return false;
+        }
+
+        int offset = slots.getInt(base + NAME_OFFSET);
+
+        for (int i = 0; i < encoded.length; i++) {
+            if (names.get(offset + i) != encoded[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int appendName(byte[] encoded) {
+
+        if (names.remaining() < encoded.length) {
+            long required = (long) names.position() + encoded.length;
+            long grown = Math.max(required, (long) names.capacity() * 2);
+
+            if (required > Integer.MAX_VALUE) {
+                throw new IllegalStateException("이름 영역 용량 초과");
+            }
+
+            ByteBuffer resized = ByteBuffer.allocateDirect((int) Math.min(grown, Integer.MAX_VALUE));
+            names.flip();
+            resized.put(names);
+            names = resized;
+        }
+
+        int offset = names.position();
+        names.put(encoded);
+
+        return offset;
+    }
+
+    private void ensureCapacity(int additional) {
+
+        long required = (long) size + additional;
+
+        if (required * 2 <= mask + 1) {
+            return;
+        }
+
+        ByteBuffer previous = slots;
+        int previousCapacity = mask + 1;
+        int capacity = slotCapacityFor(required);
+
+        slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        mask = capacity - 1;
+
+        for (int slot = 0; slot < previousCapacity; slot++) {
+            int base = slot * SLOT_SIZE;
+
+            if (previous.get(base + GRADE) == 0) {
+                continue;
+            }
+
+            int target = findSlot(previous.getLong(base + ID_OFFSET)) * SLOT_SIZE;
+
+            for (int i = 0; i < SLOT_SIZE; i += 8) {
+                slots.putLong(target + i, previous.getLong(base + i));
+            }
+        }
+    }
+
+    private static int slotCapacityFor(long expectedMembers) {
+
+        long needed = Math.max(16, expectedMembers * 2);
+
+        if (needed > MAX_SLOTS) {
+            throw new IllegalStateException("저장 가능한 회원 수 초과 : " + expectedMembers);
+        }
+
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
@@ -0,0 +1,273 @@
+package hello.core.order;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 컬럼 기반 메모리 주문 저장소
+ *
+ * 주문마다 Order 객체를 보관하는 대신, 컬럼별 기본형 배열에 값을 나눠서 저장한다.
+ *  - 주문 id / 회원 id : long[]
+ *  - 상품 가격 / 할인 금액 : int[]
+ *  - 상품명 : 사전(dictionary) 인코딩 => 상품명마다 한 번만 저장하고, 각 주문에는 int 코드만 저장한다.
+ *
+ * 배열은 고정 크기(65,536 행) 청크 단위로 늘려 가므로, 주문이 늘어나도 기존 데이터를 복사하지 않는다.
+ *
+ * 주문 1건당 크기 ( 64bit JVM, compressed oops 기준 추정치 )
+ *  - List<Order> : Order 객체 40 byte + Long 회원 id 16 byte + 리스트 참조 4 byte => 약 60 byte ( 상품명 String 은 별도 )
+ *  - ColumnarOrderRepository : 8 + 8 + 4 + 4 + 4 => 28 byte ( 상품명은 종류별로 한 번만 저장 )
+ *
+ * 동시성 처리
+ *  : 저장은 락으로 직렬화하고, 값을 다 쓴 뒤에 volatile 주문 수를 늘려서 공개한다.
+ *  : 조회(scan)는 락 없이 공개된 주문 수까지만 읽으므로, 저장과 동시에 수행되어도 쓰는 중인 행은 보이지 않는다.
+ *
+ * @Component 어노테이션 : 스프링 빈으로 등록
+ */
+@Component
+public class ColumnarOrderRepository implements OrderRepository {
+
+    static final int CHUNK_SHIFT = 16;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // 상품명이 없는 주문의 코드
+    private static final int NULL_ITEM = -1;
+
+    private final Object writeLock = new Object();
+
+    // 쓰기 전용 사전 ( 락 안에서만 사용 )
+    private final Map<String, Integer> itemCodes = new HashMap<>();
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile String[] itemNames = new String[16];
+    private volatile long count;
+
+    @Override
+    public void save(Order order) {
+
+        synchronized (writeLock) {
+            append(order);
+        }
+    }
+
+    /**
+     * 주문 일괄 저장
+     *
+     * 락을 한 번만 잡고 모두 저장한 뒤 한 번에 공개한다.
+     *
+     * @param orders
+     */
+    @Override
+    public void saveAll(Collection<Order> orders) {
+
+        synchronized (writeLock) {
+            for (Order order : orders) {
+                append(order);
+            }
+        }
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public void scan(OrderVisitor visitor) {
+
+        // 주문 수를 먼저 읽어야 그 이전에 저장된 청크와 사전이 모두 보인다.
+        long total = count;
+        Chunk[] chunks = this.chunks;
+        String[] itemNames = this.itemNames;
+
+        for (int c = 0; (long) c * CHUNK_SIZE < total; c++) {
+            Chunk chunk = chunks[c];
+            int rows = (int) Math.min(CHUNK_SIZE, total - (long) c * CHUNK_SIZE);
+
+            for (int row = 0; row < rows; row++) {
+                int itemCode = chunk.itemCodes[row];
+
+                visitor.visit(chunk.orderIds[row], chunk.memberIds[row], itemCode == NULL_ITEM ? null : itemNames[itemCode],
+                        chunk.itemPrices[row], chunk.discountPrices[row]);
+            }
+        }
+    }
+
+    /**
+     * 상품 가격 합계 ( 상품 가격 컬럼만 순차로 읽는다. )
+     *
+     * @return
+     */
+    public long sumItemPrice() {
+
+        long total = count;
+        Chunk[] chunks = this.chunks;
+        long sum = 0;
+
+        for (int c = 0; (long) c * CHUNK_SIZE < total; c++) {
+            sum += sum(chunks[c].itemPrices, (int) Math.min(CHUNK_SIZE, total - (long) c * CHUNK_SIZE));
+        }
+
+        return sum;
+    }
+
+    /**
+     * 할인 금액 합계 ( 할인 금액 컬럼만 순차로 읽는다. )
+     *
+     * @return
+     */
+    public long sumDiscountPrice() {
+
+        long total = count;
+        Chunk[] chunks = this.chunks;
+        long sum = 0;
+
+        for (int c = 0; (long) c * CHUNK_SIZE < total; c++) {
+            sum += sum(chunks[c].discountPrices, (int) Math.min(CHUNK_SIZE, total - (long) c * CHUNK_SIZE));
+        }
+
+        return sum;
+    }
+
+    /**
+     * 지금까지 저장된 상품명 종류 수
+     *
+     * @return
+     */
+    public int itemCount() {
+
+        synchronized (writeLock) {
+            return itemCodes.size();
+        }
+    }
+
+    /**
+     * 지금까지 공개된 주문의 읽기 전용 뷰 ( 분석용 )
+     *
+     * 뷰를 만든 뒤에 저장된 주문은 포함되지 않는다.
+     *
+     * @return
+     */
+    Snapshot snapshot() {
+
+        long total = count;
+
+        return new Snapshot(chunks, itemNames, total);
+    }
+
+    private void append(Order order) {
+
+        Long memberId = order.getMemberId();
+
+        if (memberId == null) {
+            throw new IllegalArgumentException("주문의 회원 id 가 없습니다.");
+        }
+
+        long index = count;
+        int row = (int) (index & CHUNK_MASK);
+
+        if (row == 0) {
+            addChunk();
+        }
+
+        Chunk chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+        chunk.orderIds[row] = order.getId();
+        chunk.memberIds[row] = memberId;
+        chunk.itemCodes[row] = encode(order.getItemName());
+        chunk.itemPrices[row] = order.getItemPrice();
+        chunk.discountPrices[row] = order.getDiscountPrice();
+
+        // 값을 모두 쓴 뒤에 공개
+        count = index + 1;
+    }
+
+    private void addChunk() {
+
+        Chunk[] grown = new Chunk[chunks.length + 1];
+        System.arraycopy(chunks, 0, grown, 0, chunks.length);
+        grown[chunks.length] = new Chunk();
+
+        chunks = grown;
+    }
+
+    private int encode(String itemName) {
+
+        if (itemName == null) {
+            return NULL_ITEM;
+        }
+
+        Integer code = itemCodes.get(itemName);
+
+        if (code != null) {
+            return code;
+        }
+
+        int newCode = itemCodes.size();
+        String[] names = itemNames;
+
+        if (newCode == names.length) {
+            String[] grown = new String[names.length * 2];
+            System.arraycopy(names, 0, grown, 0, names.length);
+            names = grown;
+        }
+
+        names[newCode] = itemName;
+        itemNames = names;
+        itemCodes.put(itemName, newCode);
+
+        return newCode;
+    }
+
+    private static long sum(int[] column, int rows) {
+
+        long sum = 0;
+
+        for (int row = 0; row < rows; row++) {
+            sum += column[row];
+        }
+
+        return sum;
+    }
+
+    /**
+     * 특정 시점까지 저장된 주문의 청크와 상품명 사전
+     */
+    static final class Snapshot {
+
+        final Chunk[] chunks;
+        final String[] itemNames;
+        final long count;
+
+        private Snapshot(Chunk[] chunks, String[] itemNames, long count) {
+            this.chunks = chunks;
+            this.itemNames = itemNames;
+            this.count = count;
+        }
+
+        Chunk chunk(long row) {
+            return chunks[(int) (row >>> CHUNK_SHIFT)];
+        }
+
+        /**
+         * 상품명 코드 -> 상품명 ( 코드가 -1 이면 상품명 없음 )
+         */
+        String itemName(int itemCode) {
+            return itemCode == NULL_ITEM ? null : itemNames[itemCode];
+        }
+    }
+
+    /**
+     * 65,536 행 단위의 컬럼 묶음
+     */
+    static final class Chunk {
+
+        final long[] orderIds = new long[CHUNK_SIZE];
+        final long[] memberIds = new long[CHUNK_SIZE];
+        final int[] itemCodes = new int[CHUNK_SIZE];
+        final int[] itemPrices = new int[CHUNK_SIZE];
+        final int[] discountPrices = new int[CHUNK_SIZE];
+    }
+}
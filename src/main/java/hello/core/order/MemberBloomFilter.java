@@ -0,0 +1,73 @@
+package hello.core.order;
+
+/**
+ * 회원 id 블룸 필터 ( OrderSegment 전용 )
+ *
+ * - 회원 id 마다 HASHES 개의 비트를 켜 두고, 조회 시 하나라도 꺼져 있으면 그 회원의 주문은 세그먼트에 없다.
+ * - 모두 켜져 있어도 다른 회원 id 와 겹친 것일 수 있다. ( 회원 id 당 10 bit, 해시 7 개 기준 오탐률 약 1% )
+ * - 두 개의 해시 값을 조합해서 HASHES 개의 위치를 만든다. ( h1 + i * h2 )
+ *
+ * 세그먼트를 쓸 때 한 번 채우고 나면 읽기만 하므로 별도의 동기화는 없다.
+ */
+class MemberBloomFilter {
+
+    static final int BITS_PER_KEY = 10;
+    static final int HASHES = 7;
+
+    private final long[] words;
+    private final long bitCount;
+
+    MemberBloomFilter(long expectedKeys) {
+        this(new long[(int) Math.min(Integer.MAX_VALUE - 8, (Math.max(64, expectedKeys * BITS_PER_KEY) + 63) / 64)]);
+    }
+
+    MemberBloomFilter(long[] words) {
+        this.words = words;
+        this.bitCount = (long) words.length * 64;
+    }
+
+    void add(long memberId) {
+
+        long h1 = mix(memberId);
+        long h2 = (h1 >>> 32) | 1;
+
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long memberId) {
+
+        long h1 = mix(memberId);
+        long h2 = (h1 >>> 32) | 1;
+
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+
+            if ((words[(int) (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * 연속된 회원 id 도 비트 위치가 고르게 퍼지도록 섞는다. ( MurmurHash3 finalizer )
+     */
+    private static long mix(long key) {
+
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+
+        return key;
+    }
+}
@@ -0,0 +1,120 @@
+package hello.core.order;
+
+import hello.core.common.LongObjectMap;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 회원별 주문 집계 저장소
+ *
+ * 주문이 생성될 때마다 회원별 주문 수 / 결제 금액 / 할인 금액을 바로 누적하므로,
+ * 집계를 조회할 때 전체 주문을 다시 훑을 필요가 없다.
+ *
+ * 동시성 처리
+ *  : 회원별 카운터는 LongAdder 로 두어서, 주문이 몰리는 회원이 있어도 누적하는 스레드끼리 하나의 값을 두고 경합하지 않는다.
+ *  : 회원 id -> 카운터 테이블은 MemoryMemberRepository 와 같이 세그먼트별 LongObjectMap 으로 두고,
+ *    카운터 조회는 락 없이, 처음 주문한 회원의 카운터 생성만 해당 세그먼트에 락을 건다.
+ *  : 조회 결과는 각 카운터를 따로 읽은 값이므로, 누적과 동시에 조회하면 세 값이 서로 다른 시점의 값일 수 있다.
+ *
+ * 주문을 누적하는 쪽과 조회하는 쪽이 같은 집계를 봐야 하므로 컴포넌트 스캔으로 한 번만 등록한다. ( AppConfig 는 생성자로 주입받는다. )
+ *
+ * @Component 어노테이션 : 스프링 빈으로 등록
+ */
+@Component
+public class MemberOrderAggregates {
+
+    // 세그먼트 개수 ( 2의 제곱수 )
+    private static final int SEGMENTS = 16;
+
+    private final LongObjectMap<Counters>[] segments = newSegments();
+
+    /**
+     * 주문 한 건 누적
+     *
+     * @param memberId
+     * @param itemPrice
+     * @param discountPrice
+     */
+    public void record(long memberId, int itemPrice, int discountPrice) {
+
+        Counters counters = countersFor(memberId);
+
+        counters.orderCount.increment();
+        counters.totalSpend.add(itemPrice - discountPrice);
+        counters.totalDiscount.add(discountPrice);
+    }
+
+    public void record(Order order) {
+        record(order.getMemberId(), order.getItemPrice(), order.getDiscountPrice());
+    }
+
+    public void recordAll(Collection<Order> orders) {
+        for (Order order : orders) {
+            record(order);
+        }
+    }
+
+    /**
+     * 회원별 주문 집계 조회
+     *
+     * @param memberId
+     * @return 주문이 없는 회원은 모든 값이 0 인 집계
+     */
+    public MemberOrderSummary find(long memberId) {
+
+        Counters counters = segmentFor(memberId).get(memberId);
+
+        if (counters == null) {
+            return new MemberOrderSummary(memberId, 0, 0, 0);
+        }
+
+        return new MemberOrderSummary(memberId, counters.orderCount.sum(), counters.totalSpend.sum(),
+                counters.totalDiscount.sum());
+    }
+
+    private Counters countersFor(long memberId) {
+
+        LongObjectMap<Counters> segment = segmentFor(memberId);
+        Counters counters = segment.get(memberId);
+
+        if (counters != null) {
+            return counters;
+        }
+
+        synchronized (segment) {
+            counters = segment.get(memberId);
+
+            if (counters == null) {
+                counters = new Counters();
+                segment.put(memberId, counters);
+            }
+
+            return counters;
+        }
+    }
+
+    private LongObjectMap<Counters> segmentFor(long memberId) {
+        return segments[(int) (memberId ^ (memberId >>> 32)) & (SEGMENTS - 1)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static LongObjectMap<Counters>[] newSegments() {
+
+        LongObjectMap<Counters>[] segments = new LongObjectMap[SEGMENTS];
+
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new LongObjectMap<>();
+        }
+
+        return segments;
+    }
+
+    private static final class Counters {
+
+        private final LongAdder orderCount = new LongAdder();
+        private final LongAdder totalSpend = new LongAdder();
+        private final LongAdder totalDiscount = new LongAdder();
+    }
+}
@@ -0,0 +1,49 @@
+package hello.core.order;
+
+/**
+ * 회원별 주문 집계 ( 조회 시점의 스냅샷 )
+ *
+ *  - orderCount : 주문 수
+ *  - totalSpend : 할인 적용 후 결제 금액 합계 ( Order.calculatePrice 의 합 )
+ *  - totalDiscount : 할인 금액 합계
+ */
+public final class MemberOrderSummary {
+
+    private final long memberId;
+    private final long orderCount;
+    private final long totalSpend;
+    private final long totalDiscount;
+
+    public MemberOrderSummary(long memberId, long orderCount, long totalSpend, long totalDiscount) {
+        this.memberId = memberId;
+        this.orderCount = orderCount;
+        this.totalSpend = totalSpend;
+        this.totalDiscount = totalDiscount;
+    }
+
+    public long getMemberId() {
+        return memberId;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public long getTotalSpend() {
+        return totalSpend;
+    }
+
+    public long getTotalDiscount() {
+        return totalDiscount;
+    }
+
+    @Override
+    public String toString() {
+        return "MemberOrderSummary{" +
+                "memberId=" + memberId +
+                ", orderCount=" + orderCount +
+                ", totalSpend=" + totalSpend +
+                ", totalDiscount=" + totalDiscount +
+                '}';
+    }
+}
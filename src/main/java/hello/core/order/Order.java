@@ -2,12 +2,19 @@ package hello.core.order;
 
 public class Order {
 
+    // 주문 id ( OrderIdGenerator 가 발급, 0 이면 발급되지 않은 주문 )
+    private long id;
     private Long memberId;
     private String itemName;
     private int itemPrice;
     private int discountPrice;
 
     public Order(Long memberId, String itemName, int itemPrice, int discountPrice) {
+        this(0L, memberId, itemName, itemPrice, discountPrice);
+    }
+
+    public Order(long id, Long memberId, String itemName, int itemPrice, int discountPrice) {
+        this.id = id;
         this.memberId = memberId;
         this.itemName = itemName;
         this.itemPrice = itemPrice;
@@ -22,6 +29,14 @@ public class Order {
         return itemPrice - discountPrice;
     }
 
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
     public Long getMemberId() {
         return memberId;
     }
@@ -61,7 +76,8 @@ public class Order {
     @Override
     public String toString() {
         return "Order{" +
-                "memberId=" + memberId +
+                "id=" + id +
+                ", memberId=" + memberId +
                 ", itemName='" + itemName + '\'' +
                 ", itemPrice=" + itemPrice +
                 ", discountPrice=" + discountPrice +
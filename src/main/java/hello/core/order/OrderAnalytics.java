@@ -0,0 +1,345 @@
+package hello.core.order;
+
+import hello.core.common.LongObjectMap;
+import hello.core.member.CompactMember;
+import hello.core.member.Grade;
+import hello.core.member.MemberRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 주문 분석 쿼리 ( 상품별 매출, 등급별 할인 합계, 가격 분포 )
+ *
+ * ColumnarOrderRepository 의 청크를 fork/join 으로 나눠서 병렬로 집계한다.
+ *  - 조회 시점의 스냅샷(공개된 주문 수)까지만 읽으므로, 집계 중에 저장되는 주문은 포함되지 않는다.
+ *  - 행 범위를 반으로 나누되 청크 경계에 맞춰서 나누므로, 각 작업은 자기 청크의 컬럼 배열만 순차로 읽는다.
+ *  - 각 작업은 자기 범위의 결과를 long 배열에 모으고, 합칠 때 배열끼리 더한다.
+ *    long 덧셈은 순서와 관계없이 결과가 같으므로, 병렬 실행 결과는 순차 실행(parallelism = 1) 결과와 항상 같다.
+ *
+ * 병렬 집계는 전용 ForkJoinPool 에서 수행하므로 공용 풀(parallel stream 등)의 작업과 섞이지 않는다. ( 컨테이너 종료 시 풀도 종료 )
+ *
+ * 주문 서비스와 같은 OrderRepository 빈을 주입받는다.
+ *  - ColumnarOrderRepository ( WalOrderRepository 로 감싼 경우 포함 ) 이면 청크를 그대로 읽는다.
+ *  - 그 밖의 저장소 ( SegmentOrderStore 등 ) 는 조회할 때마다 scan 으로 임시 컬럼 저장소에 복사한 뒤 집계한다.
+ *
+ * @Component 어노테이션 : 스프링 빈으로 등록
+ */
+@Component
+public class OrderAnalytics {
+
+    // 한 작업이 더 나누지 않고 직접 처리하는 최대 행 수
+    private static final int LEAF_ROWS = 16 * 1024;
+
+    private static final Grade[] GRADES = Grade.values();
+
+    private final OrderRepository orderRepository;
+    private final ColumnarOrderRepository columnarOrderRepository;
+    private final MemberRepository memberRepository;
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public OrderAnalytics(OrderRepository orderRepository, MemberRepository memberRepository) {
+        this(orderRepository, memberRepository, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param orderRepository
+     * @param memberRepository 등급별 집계 시 회원 등급 조회
+     * @param parallelism      집계 스레드 수
+     */
+    public OrderAnalytics(OrderRepository orderRepository, MemberRepository memberRepository, int parallelism) {
+        this.orderRepository = orderRepository;
+        this.columnarOrderRepository = columnarOf(orderRepository);
+        this.memberRepository = memberRepository;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * 집계 스레드 종료 ( 컨테이너 종료 시 자동 호출 )
+     */
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * 상품별 매출 ( 할인 적용 후 결제 금액 합계 )
+     *
+     * @return 상품명 -> 매출 ( 상품이 처음 주문된 순서 )
+     */
+    public Map<String, Long> revenueByItem() {
+
+        ColumnarOrderRepository.Snapshot snapshot = snapshot();
+        long[] revenue = pool.invoke(new RevenueByItemTask(snapshot, 0, snapshot.count));
+
+        Map<String, Long> result = new LinkedHashMap<>();
+
+        for (int itemCode = 0; itemCode < revenue.length; itemCode++) {
+            String itemName = snapshot.itemName(itemCode);
+
+            if (itemName != null) {
+                result.put(itemName, revenue[itemCode]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 회원 등급별 할인 금액 합계
+     *
+     * 주문 시점이 아니라 집계 시점의 회원 등급 기준이며, 저장소에 없는 회원의 주문은 제외한다.
+     *
+     * @return
+     */
+    public Map<Grade, Long> discountByGrade() {
+
+        ColumnarOrderRepository.Snapshot snapshot = snapshot();
+        long[] discounts = pool.invoke(new DiscountByGradeTask(snapshot, 0, snapshot.count));
+
+        Map<Grade, Long> result = new EnumMap<>(Grade.class);
+
+        for (Grade grade : GRADES) {
+            result.put(grade, discounts[grade.ordinal()]);
+        }
+
+        return result;
+    }
+
+    /**
+     * 상품 가격 분포
+     *
+     * i 번째 구간은 [ i * bucketWidth, (i + 1) * bucketWidth ) 가격의 주문 수이고,
+     * 마지막 구간은 그 이상의 가격을 모두 포함한다. ( 음수 가격은 첫 구간 )
+     *
+     * @param bucketWidth 구간 폭
+     * @param buckets     구간 수
+     * @return
+     */
+    public long[] priceHistogram(int bucketWidth, int buckets) {
+
+        if (bucketWidth <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("구간 폭과 구간 수는 1 이상이어야 합니다.");
+        }
+
+        ColumnarOrderRepository.Snapshot snapshot = snapshot();
+
+        return pool.invoke(new HistogramTask(snapshot, 0, snapshot.count, bucketWidth, buckets));
+    }
+
+    private ColumnarOrderRepository.Snapshot snapshot() {
+
+        if (columnarOrderRepository != null) {
+            return columnarOrderRepository.snapshot();
+        }
+
+        ColumnarOrderRepository copy = new ColumnarOrderRepository();
+
+        orderRepository.scan((orderId, memberId, itemName, itemPrice, discountPrice) ->
+                copy.save(new Order(orderId, memberId, itemName, itemPrice, discountPrice)));
+
+        return copy.snapshot();
+    }
+
+    /**
+     * 청크를 직접 읽을 수 있는 컬럼 저장소 ( 없으면 null )
+     */
+    private static ColumnarOrderRepository columnarOf(OrderRepository orderRepository) {
+
+        if (orderRepository instanceof ColumnarOrderRepository) {
+            return (ColumnarOrderRepository) orderRepository;
+        }
+
+        if (orderRepository instanceof WalOrderRepository) {
+            return columnarOf(((WalOrderRepository) orderRepository).getDelegate());
+        }
+
+        return null;
+    }
+
+    /**
+     * 행 범위 [from, to) 를 집계하는 작업
+     *
+     * 범위가 LEAF_ROWS 보다 크거나 여러 청크에 걸쳐 있으면 청크 경계에 맞춰 둘로 나눠서 한쪽은 fork 하고 다른 한쪽은 직접 처리한 뒤 결과를 더한다.
+     */
+    private abstract static class RangeTask extends RecursiveTask<long[]> {
+
+        final ColumnarOrderRepository.Snapshot snapshot;
+        final long from;
+        final long to;
+
+        RangeTask(ColumnarOrderRepository.Snapshot snapshot, long from, long to) {
+            this.snapshot = snapshot;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+
+            boolean sameChunk = from == to
+                    || from >>> ColumnarOrderRepository.CHUNK_SHIFT == (to - 1) >>> ColumnarOrderRepository.CHUNK_SHIFT;
+
+            if (to - from <= LEAF_ROWS && sameChunk) {
+                long[] result = newResult();
+
+                // 하나의 청크 안의 행만 처리
+                if (from < to) {
+                    int offset = (int) (from & ColumnarOrderRepository.CHUNK_MASK);
+                    accumulate(snapshot.chunk(from), offset, offset + (int) (to - from), result);
+                }
+
+                return result;
+            }
+
+            long middle = split();
+            RangeTask left = subTask(from, middle);
+            RangeTask right = subTask(middle, to);
+
+            left.fork();
+            long[] result = right.compute();
+            long[] leftResult = left.join();
+
+            for (int i = 0; i < result.length; i++) {
+                result[i] += leftResult[i];
+            }
+
+            return result;
+        }
+
+        /**
+         * 범위가 여러 청크에 걸쳐 있으면 가운데에 가장 가까운 청크 경계에서, 한 청크 안이면 가운데에서 나눈다.
+         */
+        private long split() {
+
+            long middle = (from + to) >>> 1;
+            long boundary = (middle + ColumnarOrderRepository.CHUNK_SIZE / 2) & ~(long) ColumnarOrderRepository.CHUNK_MASK;
+
+            return boundary > from && boundary < to ? boundary : middle;
+        }
+
+        abstract long[] newResult();
+
+        abstract RangeTask subTask(long from, long to);
+
+        abstract void accumulate(ColumnarOrderRepository.Chunk chunk, int fromRow, int toRow, long[] result);
+    }
+
+    private static final class RevenueByItemTask extends RangeTask {
+
+        RevenueByItemTask(ColumnarOrderRepository.Snapshot snapshot, long from, long to) {
+            super(snapshot, from, to);
+        }
+
+        @Override
+        long[] newResult() {
+            return new long[snapshot.itemNames.length];
+        }
+
+        @Override
+        RangeTask subTask(long from, long to) {
+            return new RevenueByItemTask(snapshot, from, to);
+        }
+
+        @Override
+        void accumulate(ColumnarOrderRepository.Chunk chunk, int fromRow, int toRow, long[] result) {
+
+            int[] itemCodes = chunk.itemCodes;
+            int[] itemPrices = chunk.itemPrices;
+            int[] discountPrices = chunk.discountPrices;
+
+            for (int row = fromRow; row < toRow; row++) {
+                int itemCode = itemCodes[row];
+
+                if (itemCode >= 0) {
+                    result[itemCode] += itemPrices[row] - discountPrices[row];
+                }
+            }
+        }
+    }
+
+    private final class DiscountByGradeTask extends RangeTask {
+
+        DiscountByGradeTask(ColumnarOrderRepository.Snapshot snapshot, long from, long to) {
+            super(snapshot, from, to);
+        }
+
+        @Override
+        long[] newResult() {
+            return new long[GRADES.length];
+        }
+
+        @Override
+        RangeTask subTask(long from, long to) {
+            return new DiscountByGradeTask(snapshot, from, to);
+        }
+
+        /**
+         * 같은 회원의 주문이 반복되는 경우가 많으므로, 작업 안에서 회원 id -> 등급 ordinal 을 기억해 두고 재사용한다.
+         * ( 저장소에 없는 회원은 -1 )
+         */
+        @Override
+        void accumulate(ColumnarOrderRepository.Chunk chunk, int fromRow, int toRow, long[] result) {
+
+            LongObjectMap<Integer> grades = new LongObjectMap<>();
+            long[] memberIds = chunk.memberIds;
+            int[] discountPrices = chunk.discountPrices;
+
+            for (int row = fromRow; row < toRow; row++) {
+                long memberId = memberIds[row];
+                Integer grade = grades.get(memberId);
+
+                if (grade == null) {
+                    CompactMember member = memberRepository.findCompactById(memberId);
+                    grade = member == null ? -1 : member.getGradeOrdinal();
+                    grades.put(memberId, grade);
+                }
+
+                if (grade >= 0) {
+                    result[grade] += discountPrices[row];
+                }
+            }
+        }
+    }
+
+    private static final class HistogramTask extends RangeTask {
+
+        private final int bucketWidth;
+        private final int buckets;
+
+        HistogramTask(ColumnarOrderRepository.Snapshot snapshot, long from, long to, int bucketWidth, int buckets) {
+            super(snapshot, from, to);
+            this.bucketWidth = bucketWidth;
+            this.buckets = buckets;
+        }
+
+        @Override
+        long[] newResult() {
+            return new long[buckets];
+        }
+
+        @Override
+        RangeTask subTask(long from, long to) {
+            return new HistogramTask(snapshot, from, to, bucketWidth, buckets);
+        }
+
+        @Override
+        void accumulate(ColumnarOrderRepository.Chunk chunk, int fromRow, int toRow, long[] result) {
+
+            int[] itemPrices = chunk.itemPrices;
+            int lastBucket = buckets - 1;
+
+            for (int row = fromRow; row < toRow; row++) {
+                int bucket = Math.max(0, itemPrices[row]) / bucketWidth;
+                result[Math.min(bucket, lastBucket)]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package hello.core.order;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 주문 전체 내보내기 ( NDJSON / CSV )
+ *
+ * Order.toString() 처럼 주문마다 String 을 만들어서 스트림으로 쓰면, 주문 수만큼 객체가 생성되고 문자셋 인코딩도 반복된다.
+ * 이 클래스는 주문 저장소를 scan 으로 순회하면서 숫자와 상품명을 다이렉트 ByteBuffer 에 바로 인코딩하고,
+ * 버퍼가 차면 채널(FileChannel, HTTP 응답 등)에 그대로 쓴다.
+ *  => 행마다 생성되는 객체가 없으므로, 내보내기 속도는 GC 가 아니라 디스크 / 네트워크 속도에 좌우된다.
+ *
+ * 다이렉트 버퍼는 할당 비용이 크기 때문에 스레드마다 하나를 만들어 두고 재사용한다.
+ *
+ * 형식
+ *  - NDJSON : 한 줄에 {"orderId":1,"memberId":1,"itemName":"itemA","itemPrice":10000,"discountPrice":1000}
+ *  - CSV : 첫 줄은 헤더 orderId,memberId,itemName,itemPrice,discountPrice ( 쉼표 / 따옴표 / 줄바꿈이 있는 상품명은 따옴표로 감싼다. )
+ *
+ * @Component 어노테이션 : 스프링 빈으로 등록
+ */
+@Component
+public class OrderExporter {
+
+    public enum Format {
+
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 한 행의 숫자 / 구분자 부분이 차지할 수 있는 최대 크기 ( 상품명 제외 )
+    private static final int MAX_ROW_OVERHEAD = 160;
+
+    private static final byte[] CSV_HEADER = ascii("orderId,memberId,itemName,itemPrice,discountPrice\n");
+    private static final byte[] JSON_ORDER_ID = ascii("{\"orderId\":");
+    private static final byte[] JSON_MEMBER_ID = ascii(",\"memberId\":");
+    private static final byte[] JSON_ITEM_NAME = ascii(",\"itemName\":");
+    private static final byte[] JSON_ITEM_PRICE = ascii(",\"itemPrice\":");
+    private static final byte[] JSON_DISCOUNT_PRICE = ascii(",\"discountPrice\":");
+    private static final byte[] JSON_NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final OrderRepository orderRepository;
+
+    @Autowired
+    public OrderExporter(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * 파일로 내보내기 ( 기존 파일은 덮어쓴다. )
+     *
+     * @param file
+     * @param format
+     * @return 내보낸 주문 수
+     */
+    public long export(Path file, Format format) {
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return export(channel, format);
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문을 내보낼 수 없습니다. file = " + file, e);
+        }
+    }
+
+    /**
+     * 채널로 내보내기 ( 채널은 닫지 않는다. )
+     *
+     * @param channel
+     * @param format
+     * @return 내보낸 주문 수
+     */
+    public long export(WritableByteChannel channel, Format format) {
+
+        ByteBuffer buffer = BUFFERS.get();
+        buffer.clear();
+
+        long[] rows = new long[1];
+
+        try {
+            if (format == Format.CSV) {
+                buffer.put(CSV_HEADER);
+            }
+
+            orderRepository.scan((orderId, memberId, itemName, itemPrice, discountPrice) -> {
+                ensureRemaining(channel, buffer, itemName);
+
+                if (format == Format.CSV) {
+                    writeCsvRow(buffer, orderId, memberId, itemName, itemPrice, discountPrice);
+                } else {
+                    writeJsonRow(buffer, orderId, memberId, itemName, itemPrice, discountPrice);
+                }
+
+                rows[0]++;
+            });
+
+            flush(channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문을 내보낼 수 없습니다.", e);
+        }
+
+        return rows[0];
+    }
+
+    private static void writeJsonRow(ByteBuffer buffer, long orderId, long memberId, String itemName, int itemPrice,
+                                     int discountPrice) {
+
+        buffer.put(JSON_ORDER_ID);
+        putLong(buffer, orderId);
+        buffer.put(JSON_MEMBER_ID);
+        putLong(buffer, memberId);
+        buffer.put(JSON_ITEM_NAME);
+
+        if (itemName == null) {
+            buffer.put(JSON_NULL);
+        } else {
+            buffer.put((byte) '"');
+            putJsonString(buffer, itemName);
+            buffer.put((byte) '"');
+        }
+
+        buffer.put(JSON_ITEM_PRICE);
+        putLong(buffer, itemPrice);
+        buffer.put(JSON_DISCOUNT_PRICE);
+        putLong(buffer, discountPrice);
+        buffer.put((byte) '}').put((byte) '\n');
+    }
+
+    private static void writeCsvRow(ByteBuffer buffer, long orderId, long memberId, String itemName, int itemPrice,
+                                    int discountPrice) {
+
+        putLong(buffer, orderId);
+        buffer.put((byte) ',');
+        putLong(buffer, memberId);
+        buffer.put((byte) ',');
+
+        if (itemName != null) {
+            putCsvString(buffer, itemName);
+        }
+
+        buffer.put((byte) ',');
+        putLong(buffer, itemPrice);
+        buffer.put((byte) ',');
+        putLong(buffer, discountPrice);
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * 10진수 정수를 임시 문자열 없이 버퍼에 직접 쓴다.
+     *
+     * 자릿수를 먼저 구하고, 끝 자리부터 절대 위치로 채운다.
+     */
+    static void putLong(ByteBuffer buffer, long value) {
+
+        if (value == Long.MIN_VALUE) {
+            buffer.put(ascii(Long.toString(value)));
+            return;
+        }
+
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+
+        int end = buffer.position() + digits;
+
+        for (int i = end - 1; i >= buffer.position(); i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+
+        buffer.position(end);
+    }
+
+    /**
+     * JSON 문자열 이스케이프 후 UTF-8 로 쓴다.
+     */
+    private static void putJsonString(ByteBuffer buffer, String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                buffer.put((byte) '\\').put((byte) c);
+            } else if (c == '\n') {
+                buffer.put((byte) '\\').put((byte) 'n');
+            } else if (c == '\r') {
+                buffer.put((byte) '\\').put((byte) 'r');
+            } else if (c == '\t') {
+                buffer.put((byte) '\\').put((byte) 't');
+            } else if (c < 0x20) {
+                buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                        .put(HEX[c >> 4]).put(HEX[c & 0xF]);
+            } else {
+                i = putUtf8(buffer, value, i);
+            }
+        }
+    }
+
+    /**
+     * 쉼표, 따옴표, 줄바꿈이 있으면 따옴표로 감싸고 안의 따옴표는 두 번 쓴다. ( RFC 4180 )
+     */
+    private static void putCsvString(ByteBuffer buffer, String value) {
+
+        boolean quote = false;
+
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (quote) {
+            buffer.put((byte) '"');
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                buffer.put((byte) '"');
+            }
+            i = putUtf8(buffer, value, i);
+        }
+
+        if (quote) {
+            buffer.put((byte) '"');
+        }
+    }
+
+    /**
+     * index 위치의 문자 하나를 UTF-8 로 쓴다.
+     *
+     * @return 마지막으로 읽은 문자의 위치 ( 서로게이트 쌍이면 index + 1 )
+     */
+    private static int putUtf8(ByteBuffer buffer, String value, int index) {
+
+        char c = value.charAt(index);
+
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+
+            buffer.put((byte) (0xF0 | codePoint >> 18))
+                    .put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                    .put((byte) (0x80 | codePoint >> 6 & 0x3F))
+                    .put((byte) (0x80 | codePoint & 0x3F));
+
+            return index + 1;
+        } else if (Character.isSurrogate(c)) {
+            // 짝이 없는 서로게이트는 '?' 로 바꾼다.
+            buffer.put((byte) '?');
+        } else {
+            buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+        }
+
+        return index;
+    }
+
+    /**
+     * 다음 행을 쓸 공간이 없으면 버퍼를 채널로 비운다.
+     *
+     * 상품명은 문자 하나가 최대 6 byte ( JSON \\u 이스케이프 ) 이므로 그만큼을 여유로 본다.
+     */
+    private static void ensureRemaining(WritableByteChannel channel, ByteBuffer buffer, String itemName) {
+
+        int required = MAX_ROW_OVERHEAD + (itemName == null ? 0 : itemName.length() * 6);
+
+        if (required > BUFFER_SIZE) {
+            throw new IllegalArgumentException("상품명이 너무 길어서 내보낼 수 없습니다. length = " + itemName.length());
+        }
+
+        if (buffer.remaining() < required) {
+            try {
+                flush(channel, buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    private static byte[] ascii(String value) {
+
+        byte[] bytes = new byte[value.length()];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) value.charAt(i);
+        }
+
+        return bytes;
+    }
+}
@@ -0,0 +1,115 @@
+package hello.core.order;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 주문 id 생성기 ( Snowflake 방식 )
+ *
+ * 64bit id 구성 ( 앞에서부터 )
+ *  - 1 bit : 항상 0 ( 양수 )
+ *  - 41 bit : 기준 시각(2021-01-01 UTC) 이후 경과 시간 ( ms, 약 69년 )
+ *  - 10 bit : 노드 id ( 0 ~ 1023, 서버마다 다르게 설정 )
+ *  - 12 bit : 같은 ms 안의 순번 ( 0 ~ 4095 )
+ *  => 한 노드 안에서는 항상 증가하므로 id 순서가 곧 생성 순서이고, 노드 id 가 다르면 서로 겹치지 않는다.
+ *
+ * 동시성 처리
+ *  : 마지막으로 발급한 (시각, 순번) 을 AtomicLong 하나에 담아 두고 CAS 로 갱신한다. => 락과 객체 생성 없이 발급한다.
+ *  : 같은 ms 안에서 순번 4096 개를 다 쓰면 다음 ms 를 앞당겨 사용한다. ( 노드당 초당 약 400만 개 )
+ *
+ * 시계가 뒤로 가는 경우 ( NTP 보정 등 )
+ *  : 현재 시각이 마지막 발급 시각보다 이르면, 마지막 발급 시각에서 순번을 이어서 발급한다. => id 가 중복되거나 줄어들지 않는다.
+ *  : 다만 마지막 발급 시각이 현재 시각보다 MAX_DRIFT_MILLIS 이상 앞서 있으면 시계 이상으로 보고 예외를 던진다.
+ *
+ * 같은 노드 id 의 생성기가 둘이면 서로 같은 id 를 발급할 수 있으므로, 컴포넌트 스캔으로 한 번만 등록한다.
+ * ( AppConfig 는 생성자로 주입받는다. )
+ *
+ * @Component 어노테이션 : 스프링 빈으로 등록
+ */
+@Component
+public class OrderIdGenerator {
+
+    // 2021-01-01T00:00:00Z
+    static final long EPOCH_MILLIS = 1609459200000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_DRIFT_MILLIS = 5_000;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    // ( 기준 시각 이후 경과 ms << SEQUENCE_BITS ) | 순번
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * @param nodeId 노드 id ( application.properties 의 order.id.node-id, 없으면 0 )
+     */
+    @Autowired
+    public OrderIdGenerator(@Value("${order.id.node-id:0}") int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    OrderIdGenerator(int nodeId, LongSupplier clock) {
+
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("노드 id 는 0 ~ " + MAX_NODE_ID + " 이어야 합니다. nodeId = " + nodeId);
+        }
+
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    /**
+     * 새 주문 id 발급
+     *
+     * @return
+     */
+    public long nextId() {
+
+        while (true) {
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long previous = last.get();
+            long previousMillis = previous >>> SEQUENCE_BITS;
+
+            // 시각이 지났으면 순번 0 부터, 아니면 ( 같은 ms 이거나 시계가 뒤로 간 경우 ) 이전 값에서 순번을 늘린다.
+            // 순번이 넘치면 자연스럽게 다음 ms 로 올라간다.
+            long next = now > previousMillis ? now << SEQUENCE_BITS : previous + 1;
+
+            if ((next >>> SEQUENCE_BITS) - now > MAX_DRIFT_MILLIS) {
+                throw new IllegalStateException("시계가 마지막 id 발급 시각보다 " + (previousMillis - now) + "ms 뒤에 있습니다.");
+            }
+
+            if (last.compareAndSet(previous, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * id 에 담긴 발급 시각 ( epoch ms )
+     *
+     * @param id
+     * @return
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    /**
+     * id 를 발급한 노드 id
+     *
+     * @param id
+     * @return
+     */
+    public static int nodeIdOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,320 @@
+package hello.core.order;
+
+import hello.core.common.LongObjectMap;
+import hello.core.discount.DiscountPolicy;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 주문 수집 파이프라인
+ *
+ * 주문이 몰리는 시점에 모든 웹 요청 스레드가 OrderService.createOrder 를 직접 호출하면,
+ * 저장소 락 경합 때문에 지연이 튄다. 이 파이프라인은 요청 스레드는 링 버퍼에 주문 요청만 넣고 바로 돌아가고,
+ * 소비자 스레드들이 버퍼에서 주문 요청을 묶음 단위로 꺼내서 처리한다.
+ *
+ * 소비자 스레드의 처리 단계 ( 묶음 단위 )
+ *  1. 회원 조회 : 묶음 안의 회원 id 를 중복 제거해서 findAllById 로 한 번에 조회
+ *  2. 할인 : 각 주문 요청의 할인 금액 계산
+ *  3. 저장 : 묶음의 주문에 id 를 발급하고 saveAll 로 한 번에 저장하고 회원별 주문 집계에 누적
+ *
+ * 실패 처리 ( 주문 요청 단위 )
+ *  : 회원이 없거나, 상품 정보가 잘못되었거나, 할인 계산에 실패한 주문 요청은 그 주문 요청만 저장하지 않는다.
+ *  : 회원 조회나 저장에 실패하면 해당 단계에 들어간 주문 요청만 실패로 처리한다. ( saveAll 은 묶음 단위로 성공 / 실패한다고 본다. )
+ *  : 실패한 주문 요청은 하나씩 실패 건수에 더하고 FailureListener 에 원인과 함께 전달한다. ( 기본 : 콘솔 출력 )
+ *
+ * backpressure
+ *  : 버퍼가 가득 차면 tryPublish 가 기다리지 않고 false 를 반환한다.
+ *  : 호출한 쪽은 거절 응답을 주거나, 동기 주문(OrderService.createOrder)으로 처리하는 등 직접 결정한다.
+ *
+ * 종료
+ *  : close 는 running 을 내린 뒤 running 을 확인하고 버퍼에 넣는 중인 tryPublish 가 모두 끝날 때까지 기다린 다음 남은 요청을 처리한다.
+ *    => tryPublish 가 true 를 반환한 주문 요청은 반드시 처리된다.
+ */
+public class OrderIngestionPipeline {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final MemberRepository memberRepository;
+    private final DiscountPolicy discountPolicy;
+    private final OrderRepository orderRepository;
+    private final MemberOrderAggregates memberOrderAggregates;
+    private final OrderIdGenerator orderIdGenerator;
+
+    private final OrderRingBuffer ringBuffer;
+    private final int consumers;
+    private final int batchSize;
+    private final WaitStrategy waitStrategy;
+
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder processedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final FailureListener failureListener;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    // running 을 확인하고 버퍼에 넣는 중인 tryPublish 수
+    private final AtomicInteger publishing = new AtomicInteger();
+
+    /**
+     * 처리하지 못한 주문 요청을 전달받는다. ( 소비자 스레드, 또는 close 를 호출한 스레드에서 호출된다. )
+     */
+    @FunctionalInterface
+    public interface FailureListener {
+
+        FailureListener CONSOLE = (memberId, itemName, itemPrice, cause) ->
+                System.out.println("order ingestion failed : memberId = " + memberId + ", itemName = " + itemName
+                        + ", itemPrice = " + itemPrice + ", cause = " + cause);
+
+        void onFailure(long memberId, String itemName, int itemPrice, RuntimeException cause);
+    }
+
+    /**
+     * @param memberRepository
+     * @param discountPolicy
+     * @param orderRepository
+     * @param memberOrderAggregates
+     * @param orderIdGenerator
+     * @param capacity     링 버퍼 슬롯 수 ( 2의 제곱수로 올림, 0 이하이면 1024 )
+     * @param consumers    소비자 스레드 수 ( 0 이하이면 1 )
+     * @param batchSize    소비자가 한 번에 꺼내는 최대 주문 요청 수 ( 0 이하이면 64 )
+     * @param waitStrategy 처리할 주문이 없을 때 소비자가 기다리는 방법 ( null 이면 SLEEPING )
+     */
+    public OrderIngestionPipeline(MemberRepository memberRepository, DiscountPolicy discountPolicy,
+                                  OrderRepository orderRepository, MemberOrderAggregates memberOrderAggregates,
+                                  OrderIdGenerator orderIdGenerator, int capacity, int consumers, int batchSize, WaitStrategy waitStrategy) {
+
+        this(memberRepository, discountPolicy, orderRepository, memberOrderAggregates, orderIdGenerator,
+                capacity, consumers, batchSize, waitStrategy, FailureListener.CONSOLE);
+    }
+
+    /**
+     * @param failureListener 처리하지 못한 주문 요청을 전달받을 리스너 ( null 이면 콘솔 출력 )
+     */
+    public OrderIngestionPipeline(MemberRepository memberRepository, DiscountPolicy discountPolicy,
+                                  OrderRepository orderRepository, MemberOrderAggregates memberOrderAggregates,
+                                  OrderIdGenerator orderIdGenerator, int capacity, int consumers, int batchSize, WaitStrategy waitStrategy,
+                                  FailureListener failureListener) {
+
+        this.memberRepository = memberRepository;
+        this.discountPolicy = discountPolicy;
+        this.orderRepository = orderRepository;
+        this.memberOrderAggregates = memberOrderAggregates;
+        this.orderIdGenerator = orderIdGenerator;
+        this.ringBuffer = new OrderRingBuffer(capacity > 0 ? capacity : DEFAULT_CAPACITY);
+        this.consumers = consumers > 0 ? consumers : 1;
+        this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        this.waitStrategy = waitStrategy != null ? waitStrategy : WaitStrategy.SLEEPING;
+        this.failureListener = failureListener != null ? failureListener : FailureListener.CONSOLE;
+    }
+
+    /**
+     * 소비자 스레드 시작
+     */
+    @PostConstruct
+    public synchronized void start() {
+
+        if (running) {
+            return;
+        }
+
+        running = true;
+
+        for (int i = 0; i < consumers; i++) {
+            Thread thread = new Thread(this::consume, "order-ingestion-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    /**
+     * 주문 요청을 버퍼에 넣는다.
+     *
+     * @param memberId
+     * @param itemName
+     * @param itemPrice
+     * @return 버퍼가 가득 찼거나 파이프라인이 멈춰 있으면 false ( backpressure )
+     */
+    public boolean tryPublish(long memberId, String itemName, int itemPrice) {
+
+        publishing.incrementAndGet();
+
+        try {
+            if (running && ringBuffer.tryPublish(memberId, itemName, itemPrice)) {
+                publishedCount.increment();
+                return true;
+            }
+        } finally {
+            publishing.decrementAndGet();
+        }
+
+        rejectedCount.increment();
+        return false;
+    }
+
+    /**
+     * 새 주문 요청은 거절하고, 이미 버퍼에 들어온 주문 요청을 모두 처리한 뒤 소비자 스레드를 종료한다.
+     *
+     * 소비자 스레드가 끝난 뒤 종료 직전에 들어온 요청이 남아 있으면 호출한 스레드에서 마저 처리한다.
+     * ( 버퍼에 넣는 중인 요청이 모두 들어간 뒤에 처리하므로 남는 요청이 없다. )
+     *
+     * @throws InterruptedException
+     */
+    @PreDestroy
+    public synchronized void close() throws InterruptedException {
+
+        running = false;
+
+        while (publishing.get() > 0) {
+            Thread.onSpinWait();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        threads.clear();
+        drainRemaining();
+    }
+
+    public long publishedCount() {
+        return publishedCount.sum();
+    }
+
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long processedCount() {
+        return processedCount.sum();
+    }
+
+    public long failedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * 버퍼에서 아직 꺼내지 않은 주문 요청 수 ( 근사값 )
+     *
+     * @return
+     */
+    public int backlog() {
+        return ringBuffer.backlog();
+    }
+
+    public int capacity() {
+        return ringBuffer.capacity();
+    }
+
+    /**
+     * 소비자 스레드 루프
+     *
+     * 꺼내 올 배열은 스레드마다 한 번만 만들고 묶음마다 재사용한다.
+     */
+    private void consume() {
+
+        long[] memberIds = new long[batchSize];
+        String[] itemNames = new String[batchSize];
+        int[] itemPrices = new int[batchSize];
+        int attempt = 0;
+
+        while (true) {
+            int count = ringBuffer.drain(memberIds, itemNames, itemPrices, batchSize);
+
+            if (count == 0) {
+                if (!running) {
+                    return;
+                }
+                waitStrategy.idle(attempt++);
+                continue;
+            }
+
+            attempt = 0;
+            process(memberIds, itemNames, itemPrices, count);
+        }
+    }
+
+    private void drainRemaining() {
+
+        long[] memberIds = new long[batchSize];
+        String[] itemNames = new String[batchSize];
+        int[] itemPrices = new int[batchSize];
+        int count;
+
+        while ((count = ringBuffer.drain(memberIds, itemNames, itemPrices, batchSize)) > 0) {
+            process(memberIds, itemNames, itemPrices, count);
+        }
+    }
+
+    private void process(long[] memberIds, String[] itemNames, int[] itemPrices, int count) {
+
+        // 1. 회원 조회
+        LongObjectMap<Member> members;
+
+        try {
+            members = memberRepository.findAllById(OrderServiceImpl.distinct(memberIds, count));
+        } catch (RuntimeException e) {
+            for (int i = 0; i < count; i++) {
+                fail(memberIds[i], itemNames[i], itemPrices[i], e);
+            }
+            return;
+        }
+
+        // 2. 할인
+        List<Order> orders = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Member member = members.get(memberIds[i]);
+
+            if (member == null) {
+                fail(memberIds[i], itemNames[i], itemPrices[i], new IllegalArgumentException("회원이 없습니다."));
+                continue;
+            }
+
+            if (!OrderServiceImpl.isValidItem(itemNames[i], itemPrices[i])) {
+                fail(memberIds[i], itemNames[i], itemPrices[i], new IllegalArgumentException("상품 정보가 잘못되었습니다."));
+                continue;
+            }
+
+            try {
+                int discountPrice = discountPolicy.discount(member, itemNames[i], itemPrices[i]);
+                orders.add(new Order(orderIdGenerator.nextId(), memberIds[i], itemNames[i], itemPrices[i], discountPrice));
+            } catch (RuntimeException e) {
+                fail(memberIds[i], itemNames[i], itemPrices[i], e);
+            }
+        }
+
+        // 3. 저장
+        try {
+            orderRepository.saveAll(orders);
+        } catch (RuntimeException e) {
+            for (Order order : orders) {
+                fail(order.getMemberId(), order.getItemName(), order.getItemPrice(), e);
+            }
+            return;
+        }
+
+        memberOrderAggregates.recordAll(orders);
+        processedCount.add(orders.size());
+    }
+
+    private void fail(long memberId, String itemName, int itemPrice, RuntimeException cause) {
+
+        failedCount.increment();
+
+        try {
+            failureListener.onFailure(memberId, itemName, itemPrice, cause);
+        } catch (RuntimeException e) {
+            // 리스너의 예외 때문에 소비자 스레드가 멈추지 않도록 무시
+        }
+    }
+}
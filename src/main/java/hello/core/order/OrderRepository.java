@@ -0,0 +1,68 @@
+package hello.core.order;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 주문 저장소 인터페이스
+ */
+public interface OrderRepository {
+
+    /**
+     * 주문 저장
+     *
+     * @param order
+     */
+    void save(Order order);
+
+    /**
+     * 주문 일괄 저장
+     *
+     * 기본 구현은 save 를 반복 호출하며, 구현체는 한 번에 처리하도록 재정의할 수 있다.
+     *
+     * @param orders
+     */
+    default void saveAll(Collection<Order> orders) {
+        for (Order order : orders) {
+            save(order);
+        }
+    }
+
+    /**
+     * 저장된 주문 수
+     *
+     * @return
+     */
+    long count();
+
+    /**
+     * 저장된 순서대로 모든 주문을 순회 ( 회원 id 순으로 보관하는 저장소는 회원 id 순 )
+     *
+     * 주문마다 Order 객체를 만들지 않고 각 컬럼 값을 그대로 전달한다.
+     *
+     * @param visitor
+     */
+    void scan(OrderVisitor visitor);
+
+    /**
+     * 회원의 모든 주문
+     *
+     * 기본 구현은 전체 주문을 순회하며, 회원 id 로 찾을 수 있는 구현체는 재정의한다.
+     *
+     * @param memberId
+     * @return
+     */
+    default List<Order> findByMemberId(long memberId) {
+
+        List<Order> orders = new ArrayList<>();
+
+        scan((orderId, id, itemName, itemPrice, discountPrice) -> {
+            if (id == memberId) {
+                orders.add(new Order(orderId, id, itemName, itemPrice, discountPrice));
+            }
+        });
+
+        return orders;
+    }
+}
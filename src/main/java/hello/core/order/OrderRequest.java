@@ -0,0 +1,63 @@
+package hello.core.order;
+
+import java.util.Objects;
+
+/**
+ * 주문 요청 ( 일괄 주문의 한 줄 )
+ *
+ * OrderService.createOrders 에 장바구니의 각 줄을 전달할 때 사용하는 불변 값 객체
+ * 회원 id 는 일괄 조회 시 정렬 / 중복 제거를 박싱 없이 하기 위해 long 기본형으로 가진다.
+ */
+public final class OrderRequest {
+
+    private final long memberId;
+    private final String itemName;
+    private final int itemPrice;
+
+    public OrderRequest(long memberId, String itemName, int itemPrice) {
+        this.memberId = memberId;
+        this.itemName = itemName;
+        this.itemPrice = itemPrice;
+    }
+
+    public long getMemberId() {
+        return memberId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public int getItemPrice() {
+        return itemPrice;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof OrderRequest)) {
+            return false;
+        }
+
+        OrderRequest that = (OrderRequest) o;
+
+        return memberId == that.memberId && itemPrice == that.itemPrice && Objects.equals(itemName, that.itemName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(memberId, itemName, itemPrice);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderRequest{" +
+                "memberId=" + memberId +
+                ", itemName='" + itemName + '\'' +
+                ", itemPrice=" + itemPrice +
+                '}';
+    }
+}
@@ -0,0 +1,128 @@
+package hello.core.order;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 주문 요청용 고정 크기 링 버퍼 ( 다중 생산자 / 다중 소비자 )
+ *
+ * 슬롯은 생성 시점에 컬럼별 배열로 한 번만 만들고 계속 재사용하므로, 주문 요청마다 객체를 만들지 않는다.
+ *
+ * 슬롯마다 시퀀스 번호를 두어서 상태를 구분한다. ( Vyukov 방식 bounded MPMC 큐 )
+ *  - 시퀀스 == 위치 : 비어 있음 => 생산자가 CAS 로 위치를 차지하고 값을 쓴 뒤 시퀀스를 위치 + 1 로 바꾼다.
+ *  - 시퀀스 == 위치 + 1 : 값이 들어 있음 => 소비자가 연속된 여러 슬롯을 CAS 한 번으로 차지하고 읽은 뒤
+ *                      시퀀스를 위치 + 크기 로 바꿔서 다음 바퀴의 생산자에게 돌려준다.
+ *
+ * 버퍼가 가득 차면 생산자는 기다리지 않고 바로 false 를 받는다. ( backpressure )
+ */
+class OrderRingBuffer {
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+
+    private final long[] memberIds;
+    private final String[] itemNames;
+    private final int[] itemPrices;
+
+    private final AtomicLong publishPosition = new AtomicLong();
+    private final AtomicLong consumePosition = new AtomicLong();
+
+    /**
+     * @param capacity 슬롯 수 ( 2의 제곱수로 올림 )
+     */
+    OrderRingBuffer(int capacity) {
+
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.memberIds = new long[size];
+        this.itemNames = new String[size];
+        this.itemPrices = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 빈 슬롯 하나를 차지해서 주문 요청을 쓴다.
+     *
+     * @return 버퍼가 가득 차 있으면 false
+     */
+    boolean tryPublish(long memberId, String itemName, int itemPrice) {
+
+        long position = publishPosition.get();
+
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+
+            if (difference == 0) {
+                if (publishPosition.compareAndSet(position, position + 1)) {
+                    memberIds[slot] = memberId;
+                    itemNames[slot] = itemName;
+                    itemPrices[slot] = itemPrice;
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = publishPosition.get();
+            } else if (difference < 0) {
+                // 한 바퀴 전의 값이 아직 소비되지 않았다.
+                return false;
+            } else {
+                position = publishPosition.get();
+            }
+        }
+    }
+
+    /**
+     * 값이 들어 있는 연속된 슬롯을 최대 maxBatch 개까지 한 번에 차지해서 배열로 옮긴다.
+     *
+     * @return 옮긴 주문 요청 수 ( 처리할 요청이 없으면 0 )
+     */
+    int drain(long[] memberIds, String[] itemNames, int[] itemPrices, int maxBatch) {
+
+        while (true) {
+            long position = consumePosition.get();
+            int ready = 0;
+
+            while (ready < maxBatch && sequences.get((int) (position + ready) & mask) == position + ready + 1) {
+                ready++;
+            }
+
+            if (ready == 0) {
+                return 0;
+            }
+
+            if (!consumePosition.compareAndSet(position, position + ready)) {
+                continue;
+            }
+
+            for (int i = 0; i < ready; i++) {
+                int slot = (int) (position + i) & mask;
+
+                memberIds[i] = this.memberIds[slot];
+                itemNames[i] = this.itemNames[slot];
+                itemPrices[i] = this.itemPrices[slot];
+                this.itemNames[slot] = null;
+                sequences.set(slot, position + i + mask + 1);
+            }
+
+            return ready;
+        }
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 아직 소비되지 않은 요청 수 ( 근사값 )
+     *
+     * @return
+     */
+    int backlog() {
+        return (int) Math.max(0, publishPosition.get() - consumePosition.get());
+    }
+}
@@ -0,0 +1,526 @@
+package hello.core.order;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 회원 id 순으로 정렬된 불변 주문 세그먼트 파일 ( SegmentOrderStore 전용 )
+ *
+ * 파일 구성
+ *  - 데이터 블록 : (회원 id, 주문 id) 순으로 정렬된 레코드를 약 4KB 단위 블록으로 나눠서 기록
+ *    레코드 = [long 주문 id][long 회원 id][int 상품 가격][int 할인 금액][short 상품명 길이 ( -1 이면 없음 )][상품명 UTF-8]
+ *  - 희소 인덱스 : 블록마다 (첫 레코드의 회원 id, 블록 시작 위치) 한 쌍
+ *  - 블룸 필터 : 세그먼트에 있는 회원 id
+ *  - 꼬리말 : 인덱스 / 블룸 필터 위치, 레코드 수, 회원 id 범위, 세그먼트 번호 범위, 주문 로그 위치, 매직 넘버
+ *
+ * 세그먼트를 열 때는 희소 인덱스와 블룸 필터만 힙에 올리고, 데이터 블록은 조회할 때 필요한 블록만 읽는다.
+ *
+ * 세그먼트 번호 범위
+ *  : 메모리 버퍼를 내려 쓴 세그먼트는 [n, n], 세그먼트 [a, b] 와 [b + 1, c] 를 병합한 세그먼트는 [a, c] 이다.
+ *  : 병합 직후 종료되어 원본 세그먼트가 남아 있어도, 재시작 시 범위가 포함되는 세그먼트를 지워서 중복을 막는다.
+ *
+ * 주문 로그 위치 ( walEnd )
+ *  : 주문 로그(OrderWriteAheadLog)에서 기록 위치가 walEnd 보다 작은 레코드의 주문은 이 세그먼트나 그 이전 세그먼트에 들어 있다.
+ *  : 재시작 시 SegmentOrderStore 는 세그먼트들의 가장 큰 walEnd 부터 로그를 읽어서, 세그먼트에 없는 주문만 메모리 버퍼로 복구한다.
+ *
+ * 참조 수
+ *  : 조회 중인 세그먼트가 병합으로 교체되어도, 마지막 조회가 끝난 뒤에 파일을 닫고 지운다.
+ */
+final class OrderSegment {
+
+    static final int BLOCK_SIZE = 4 * 1024;
+
+    private static final int MAGIC = 0x4F534547;
+    private static final int FOOTER_SIZE = 8 * 8 + 4;
+    private static final int RECORD_FIXED_SIZE = 8 + 8 + 4 + 4 + 2;
+    private static final int NULL_ITEM_NAME = -1;
+
+    // 상품명 길이는 short 로 기록하므로 UTF-8 로 Short.MAX_VALUE 바이트까지 ( 기록 버퍼 64KB 보다 작다. )
+    static final int MAX_ITEM_NAME = Short.MAX_VALUE;
+
+    // (회원 id, 주문 id) 순
+    static final Comparator<Cursor> CURSOR_ORDER =
+            Comparator.<Cursor>comparingLong(cursor -> cursor.memberId).thenComparingLong(cursor -> cursor.orderId);
+
+    final Path file;
+    final long firstSequence;
+    final long lastSequence;
+    final long count;
+    final long minMemberId;
+    final long maxMemberId;
+    final long walEnd;
+
+    private final FileChannel channel;
+    private final long[] blockMemberIds;
+    // 블록 i 의 범위는 [blockOffsets[i], blockOffsets[i + 1])
+    private final long[] blockOffsets;
+    private final MemberBloomFilter bloomFilter;
+
+    private final AtomicInteger references = new AtomicInteger(1);
+    private volatile boolean retired;
+
+    private OrderSegment(Path file, FileChannel channel, long firstSequence, long lastSequence, long count,
+                         long minMemberId, long maxMemberId, long walEnd, long[] blockMemberIds, long[] blockOffsets,
+                         MemberBloomFilter bloomFilter) {
+        this.file = file;
+        this.channel = channel;
+        this.firstSequence = firstSequence;
+        this.lastSequence = lastSequence;
+        this.count = count;
+        this.minMemberId = minMemberId;
+        this.maxMemberId = maxMemberId;
+        this.walEnd = walEnd;
+        this.blockMemberIds = blockMemberIds;
+        this.blockOffsets = blockOffsets;
+        this.bloomFilter = bloomFilter;
+    }
+
+    /**
+     * 정렬된 레코드를 세그먼트 파일로 기록한 뒤 연다.
+     *
+     * 임시 파일에 모두 쓰고 디스크에 반영한 다음 이름을 바꾸므로, 기록 도중 종료되어도 불완전한 세그먼트는 남지 않는다.
+     *
+     * @param file          세그먼트 파일
+     * @param firstSequence
+     * @param lastSequence
+     * @param walEnd        이 세그먼트까지 옮겨 둔 주문 로그의 끝 위치
+     * @param expectedCount 블룸 필터 크기를 정할 예상 레코드 수
+     * @param source        (회원 id, 주문 id) 순으로 정렬된 레코드
+     * @return
+     */
+    static OrderSegment write(Path file, long firstSequence, long lastSequence, long walEnd, long expectedCount, Cursor source)
+            throws IOException {
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        MemberBloomFilter bloomFilter = new MemberBloomFilter(expectedCount);
+        long[] blockMemberIds = new long[16];
+        long[] blockOffsets = new long[16];
+        int blocks = 0;
+        long count = 0;
+        long minMemberId = Long.MAX_VALUE;
+        long maxMemberId = Long.MIN_VALUE;
+
+        try (FileChannel out = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            Output output = new Output(out);
+            long blockStart = -BLOCK_SIZE;
+
+            while (source.next()) {
+                long offset = output.position();
+
+                if (offset - blockStart >= BLOCK_SIZE) {
+                    if (blocks == blockOffsets.length) {
+                        blockMemberIds = Arrays.copyOf(blockMemberIds, blocks * 2);
+                        blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+                    }
+                    blockMemberIds[blocks] = source.memberId;
+                    blockOffsets[blocks++] = offset;
+                    blockStart = offset;
+                }
+
+                byte[] name = source.itemName == null ? null : source.itemName.getBytes(StandardCharsets.UTF_8);
+
+                if (name != null && name.length > MAX_ITEM_NAME) {
+                    throw new IllegalArgumentException("상품명이 너무 깁니다. orderId = " + source.orderId + ", bytes = " + name.length);
+                }
+
+                output.ensure(RECORD_FIXED_SIZE + (name == null ? 0 : name.length));
+                output.buffer.putLong(source.orderId)
+                        .putLong(source.memberId)
+                        .putInt(source.itemPrice)
+                        .putInt(source.discountPrice)
+                        .putShort((short) (name == null ? NULL_ITEM_NAME : name.length));
+                if (name != null) {
+                    output.buffer.put(name);
+                }
+
+                bloomFilter.add(source.memberId);
+                minMemberId = Math.min(minMemberId, source.memberId);
+                maxMemberId = Math.max(maxMemberId, source.memberId);
+                count++;
+            }
+
+            // 희소 인덱스
+            long indexOffset = output.position();
+            output.ensure(4);
+            output.buffer.putInt(blocks);
+            for (int i = 0; i < blocks; i++) {
+                output.ensure(16);
+                output.buffer.putLong(blockMemberIds[i]).putLong(blockOffsets[i]);
+            }
+
+            // 블룸 필터
+            long bloomOffset = output.position();
+            long[] words = bloomFilter.words();
+            output.ensure(4);
+            output.buffer.putInt(words.length);
+            for (long word : words) {
+                output.ensure(8);
+                output.buffer.putLong(word);
+            }
+
+            // 꼬리말
+            output.ensure(FOOTER_SIZE);
+            output.buffer.putLong(indexOffset).putLong(bloomOffset).putLong(count)
+                    .putLong(minMemberId).putLong(maxMemberId)
+                    .putLong(firstSequence).putLong(lastSequence)
+                    .putLong(walEnd)
+                    .putInt(MAGIC);
+            output.flush();
+            out.force(true);
+        }
+
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        return open(file);
+    }
+
+    /**
+     * 세그먼트 파일을 열어서 희소 인덱스와 블룸 필터를 읽는다.
+     *
+     * @param file
+     * @return
+     */
+    static OrderSegment open(Path file) throws IOException {
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            long size = channel.size();
+
+            if (size < FOOTER_SIZE) {
+                throw new IOException("세그먼트 파일이 너무 짧습니다. file = " + file);
+            }
+
+            ByteBuffer footer = read(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+
+            if (footer.getInt(FOOTER_SIZE - 4) != MAGIC) {
+                throw new IOException("세그먼트 파일이 아닙니다. file = " + file);
+            }
+
+            long indexOffset = footer.getLong(0);
+            long bloomOffset = footer.getLong(8);
+
+            ByteBuffer index = read(channel, indexOffset, (int) (bloomOffset - indexOffset));
+            int blocks = index.getInt();
+            long[] blockMemberIds = new long[blocks];
+            long[] blockOffsets = new long[blocks + 1];
+
+            for (int i = 0; i < blocks; i++) {
+                blockMemberIds[i] = index.getLong();
+                blockOffsets[i] = index.getLong();
+            }
+            blockOffsets[blocks] = indexOffset;
+
+            ByteBuffer bloom = read(channel, bloomOffset, (int) (size - FOOTER_SIZE - bloomOffset));
+            long[] words = new long[bloom.getInt()];
+            bloom.asLongBuffer().get(words);
+
+            return new OrderSegment(file, channel, footer.getLong(40), footer.getLong(48), footer.getLong(16),
+                    footer.getLong(24), footer.getLong(32), footer.getLong(56), blockMemberIds, blockOffsets,
+                    new MemberBloomFilter(words));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 회원의 주문이 이 세그먼트에 있을 수 있는지 ( false 이면 확실히 없다. )
+     *
+     * @param memberId
+     * @return
+     */
+    boolean mightContain(long memberId) {
+        return memberId >= minMemberId && memberId <= maxMemberId && bloomFilter.mightContain(memberId);
+    }
+
+    /**
+     * 회원 id 가 fromMemberId 이상인 레코드를 순서대로 읽는 커서
+     *
+     * 희소 인덱스에서 fromMemberId 보다 작은 회원 id 로 시작하는 마지막 블록부터 읽는다.
+     * ( 그 블록의 뒷부분에 fromMemberId 의 레코드가 있을 수 있다. )
+     *
+     * @param fromMemberId
+     * @return
+     */
+    Cursor cursor(long fromMemberId) {
+
+        int low = 0;
+        int high = blockMemberIds.length - 1;
+        int start = 0;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if (blockMemberIds[middle] < fromMemberId) {
+                start = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return new SegmentCursor(start, fromMemberId);
+    }
+
+    /**
+     * 조회를 시작할 때 참조를 얻는다.
+     *
+     * @return 이미 닫힌 세그먼트이면 false
+     */
+    boolean acquire() {
+
+        while (true) {
+            int current = references.get();
+
+            if (current == 0) {
+                return false;
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 조회가 끝나면 참조를 반환한다. 마지막 참조이면 파일을 닫고, 교체된 세그먼트이면 지운다.
+     */
+    void release() {
+
+        if (references.decrementAndGet() == 0) {
+            try {
+                channel.close();
+
+                if (retired) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                // 파일을 지우지 못해도 재시작 시 범위가 포함되는 세그먼트로 정리된다.
+            }
+        }
+    }
+
+    /**
+     * 병합으로 교체된 세그먼트 ( 조회 중인 곳이 없으면 바로 지운다. )
+     */
+    void retire() {
+        retired = true;
+        release();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("세그먼트 파일이 예상보다 짧습니다.");
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    /**
+     * 정렬된 레코드를 하나씩 읽는 커서
+     *
+     * next 가 true 를 반환하면 필드에 현재 레코드의 값이 들어 있다.
+     */
+    abstract static class Cursor {
+
+        long orderId;
+        long memberId;
+        String itemName;
+        int itemPrice;
+        int discountPrice;
+
+        abstract boolean next();
+    }
+
+    /**
+     * (회원 id, 주문 id) 순으로 정렬된 주문 배열의 커서 ( 메모리 버퍼용 )
+     */
+    static final class ArrayCursor extends Cursor {
+
+        private final Order[] orders;
+        private int index = -1;
+
+        ArrayCursor(Order[] orders) {
+            this.orders = orders;
+        }
+
+        @Override
+        boolean next() {
+
+            if (++index >= orders.length) {
+                return false;
+            }
+
+            Order order = orders[index];
+            orderId = order.getId();
+            memberId = order.getMemberId();
+            itemName = order.getItemName();
+            itemPrice = order.getItemPrice();
+            discountPrice = order.getDiscountPrice();
+
+            return true;
+        }
+    }
+
+    /**
+     * 여러 커서를 (회원 id, 주문 id) 순으로 합치는 커서 ( 조회와 병합에서 사용 )
+     */
+    static final class MergeCursor extends Cursor {
+
+        private final PriorityQueue<Cursor> queue;
+        private Cursor current;
+
+        MergeCursor(List<Cursor> sources) {
+
+            this.queue = new PriorityQueue<>(Math.max(1, sources.size()), CURSOR_ORDER);
+
+            for (Cursor source : sources) {
+                if (source.next()) {
+                    queue.add(source);
+                }
+            }
+        }
+
+        @Override
+        boolean next() {
+
+            if (current != null && current.next()) {
+                queue.add(current);
+            }
+
+            current = queue.poll();
+
+            if (current == null) {
+                return false;
+            }
+
+            orderId = current.orderId;
+            memberId = current.memberId;
+            itemName = current.itemName;
+            itemPrice = current.itemPrice;
+            discountPrice = current.discountPrice;
+
+            return true;
+        }
+    }
+
+    /**
+     * 블록 단위로 읽는 커서 ( 한 번에 블록 하나만 힙에 둔다. )
+     */
+    private final class SegmentCursor extends Cursor {
+
+        private final long fromMemberId;
+        private int block;
+        private ByteBuffer buffer = ByteBuffer.allocate(0);
+
+        private SegmentCursor(int startBlock, long fromMemberId) {
+            this.block = startBlock - 1;
+            this.fromMemberId = fromMemberId;
+        }
+
+        @Override
+        boolean next() {
+
+            do {
+                while (!buffer.hasRemaining()) {
+                    if (++block >= blockMemberIds.length) {
+                        return false;
+                    }
+                    loadBlock();
+                }
+
+                orderId = buffer.getLong();
+                memberId = buffer.getLong();
+                itemPrice = buffer.getInt();
+                discountPrice = buffer.getInt();
+
+                short nameLength = buffer.getShort();
+                itemName = null;
+
+                if (nameLength != NULL_ITEM_NAME) {
+                    itemName = new String(buffer.array(), buffer.position(), nameLength, StandardCharsets.UTF_8);
+                    buffer.position(buffer.position() + nameLength);
+                }
+            } while (memberId < fromMemberId);
+
+            return true;
+        }
+
+        private void loadBlock() {
+
+            int length = (int) (blockOffsets[block + 1] - blockOffsets[block]);
+
+            if (buffer.capacity() < length) {
+                buffer = ByteBuffer.allocate(length);
+            }
+
+            buffer.clear().limit(length);
+
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, blockOffsets[block] + buffer.position()) < 0) {
+                        throw new IOException("세그먼트 파일이 예상보다 짧습니다. file = " + file);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            buffer.flip();
+        }
+    }
+
+    /**
+     * 세그먼트 기록용 버퍼 ( 가득 차면 파일에 쓴다. )
+     */
+    private static final class Output {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private long written;
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private long position() {
+            return written + buffer.position();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, written);
+            }
+
+            buffer.clear();
+        }
+    }
+}
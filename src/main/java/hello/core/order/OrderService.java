@@ -1,5 +1,8 @@
 package hello.core.order;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 주문 서비스 인터페이스
  */
@@ -14,4 +17,56 @@ public interface OrderService {
      * @return
      */
     Order createOrder(Long memberId, String itemName, int itemPrice);
+
+    /**
+     * 멱등 키를 사용한 주문
+     *
+     * 클라이언트가 재시도하면서 같은 멱등 키로 다시 요청하면, 일정 시간 안에는 새 주문을 만들지 않고 처음 만든 주문을 반환한다.
+     * 같은 멱등 키로 회원 / 상품 정보가 다른 주문을 요청하면 IllegalArgumentException 으로 거절한다.
+     *
+     * @param idempotencyKey 클라이언트가 주문 요청마다 만드는 고유 키 ( null 이면 키 없는 주문과 같다. )
+     * @param memberId
+     * @param itemName
+     * @param itemPrice
+     * @return
+     */
+    Order createOrder(String idempotencyKey, Long memberId, String itemName, int itemPrice);
+
+    /**
+     * 일괄 주문
+     *
+     * 주문 요청에 포함된 회원을 한 번에 조회한 뒤 할인 금액을 계산한다.
+     *
+     * @param requests
+     * @return 요청과 같은 순서의 주문 ( 회원이 없거나 상품 정보가 잘못된 요청이 있으면 IllegalArgumentException )
+     */
+    List<Order> createOrders(List<OrderRequest> requests);
+
+    /**
+     * 회원별 주문 집계 조회
+     *
+     * @param memberId
+     * @return 주문 수, 결제 금액 합계, 할인 금액 합계 ( 주문이 없으면 모두 0 )
+     */
+    MemberOrderSummary findOrderSummary(long memberId);
+
+    /**
+     * 회원의 모든 주문 조회
+     *
+     * @param memberId
+     * @return
+     */
+    List<Order> findOrders(long memberId);
+
+    /**
+     * 비동기 주문
+     *
+     * 상품 정보는 호출한 스레드에서 검증하고, 회원 조회와 주문 생성은 호출한 스레드를 막지 않고 서비스 실행기에서 수행한다.
+     *
+     * @param memberId
+     * @param itemName
+     * @param itemPrice
+     * @return 생성된 주문 ( 상품 정보가 잘못되었으면 IllegalArgumentException, 실행기가 포화 상태이면 RejectedExecutionException 으로 실패한다. )
+     */
+    CompletableFuture<Order> createOrderAsync(Long memberId, String itemName, int itemPrice);
 }
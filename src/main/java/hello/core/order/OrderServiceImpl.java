@@ -1,7 +1,11 @@
 package hello.core.order;
 
 import hello.core.annotation.MainDiscountPolicy;
+import hello.core.common.IdempotencyCache;
+import hello.core.common.LongObjectMap;
+import hello.core.common.ServiceExecutor;
 import hello.core.discount.DiscountPolicy;
+import hello.core.member.CompactMember;
 import hello.core.member.Member;
 import hello.core.member.MemberRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +13,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 주문 서비스 구현체
  *
@@ -27,8 +36,17 @@ import org.springframework.stereotype.Component;
 //@RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    // 멱등 키는 최대 10만 개, 10분 동안 기억한다.
+    private static final int IDEMPOTENCY_KEYS = 100_000;
+    private static final long IDEMPOTENCY_TTL_MILLIS = 10 * 60 * 1000;
+
     private final MemberRepository memberRepository;
     private final DiscountPolicy discountPolicy;
+    private final OrderRepository orderRepository;
+    private final MemberOrderAggregates memberOrderAggregates;
+    private final OrderIdGenerator orderIdGenerator;
+    private final ServiceExecutor serviceExecutor;
+    private final IdempotencyCache<Order> idempotencyCache = new IdempotencyCache<>(IDEMPOTENCY_KEYS, IDEMPOTENCY_TTL_MILLIS);
 
     /**
      * 생성자
@@ -59,24 +77,225 @@ public class OrderServiceImpl implements OrderService {
      *
      * @param memberRepository
      * @param discountPolicy
+     * @param orderRepository 생성한 주문을 보관할 저장소
+     * @param memberOrderAggregates 주문마다 누적하는 회원별 주문 집계
+     * @param orderIdGenerator 주문마다 id 를 발급
+     * @param serviceExecutor 비동기 주문을 수행할 실행기
      */
     @Autowired
-    public OrderServiceImpl(MemberRepository memberRepository, @MainDiscountPolicy DiscountPolicy discountPolicy) {
+    public OrderServiceImpl(MemberRepository memberRepository, @MainDiscountPolicy DiscountPolicy discountPolicy,
+                            OrderRepository orderRepository, MemberOrderAggregates memberOrderAggregates,
+                            OrderIdGenerator orderIdGenerator, ServiceExecutor serviceExecutor) {
         this.memberRepository = memberRepository;
         this.discountPolicy = discountPolicy;
+        this.orderRepository = orderRepository;
+        this.memberOrderAggregates = memberOrderAggregates;
+        this.orderIdGenerator = orderIdGenerator;
+        this.serviceExecutor = serviceExecutor;
     }
 
     @Override
     public Order createOrder(Long memberId, String itemName, int itemPrice) {
 
-        // 회원 정보 조회
-        Member member = memberRepository.findById(memberId);
+        // 상품 정보 검증
+        validateItem(itemName, itemPrice);
+
+        // 회원 정보 조회 ( 불변 회원 값으로 조회해서 id 박싱 없이 할인 정책까지 전달 )
+        CompactMember member = findMember(memberId);
 
         // 할인 정책에 따른 각 회원의 할인 가격 조회
-        int discountPrice = discountPolicy.discount(member, itemPrice);
+        int discountPrice = discountPolicy.discount(member, itemName, itemPrice);
+
+        // id 를 발급해서 주문 객체를 생성하고 저장 후 반환
+        Order order = new Order(orderIdGenerator.nextId(), memberId, itemName, itemPrice, discountPrice);
+        orderRepository.save(order);
+        memberOrderAggregates.record(order);
+
+        return order;
+    }
+
+    /**
+     * 같은 키의 주문이 처리 중이면 새로 만들지 않고 그 결과를 기다렸다가 반환한다.
+     * 주문 생성이 실패하면 키를 기억하지 않으므로, 같은 키로 다시 시도할 수 있다.
+     * 같은 키로 회원 / 상품 정보가 다른 주문을 요청하면 IllegalArgumentException 으로 거절한다.
+     *
+     * @param idempotencyKey
+     * @param memberId
+     * @param itemName
+     * @param itemPrice
+     * @return
+     */
+    @Override
+    public Order createOrder(String idempotencyKey, Long memberId, String itemName, int itemPrice) {
+
+        if (idempotencyKey == null) {
+            return createOrder(memberId, itemName, itemPrice);
+        }
+
+        OrderRequest request = new OrderRequest(memberId == null ? 0 : memberId, itemName, itemPrice);
+
+        return idempotencyCache.getOrCompute(idempotencyKey, request, () -> createOrder(memberId, itemName, itemPrice));
+    }
+
+    /**
+     * 일괄 주문
+     *
+     * 주문마다 findById / discount 를 반복하는 대신
+     *  1. 상품 정보를 먼저 모두 검증하고
+     *  2. 회원 id 를 long 배열로 모아 정렬 후 중복을 제거해서 ( 같은 회원의 여러 줄은 한 번만 조회 )
+     *  3. findAllById 로 한 번에 조회한 다음
+     *  4. 요청 크기로 미리 잡아 둔 결과 리스트에 순서대로 주문을 채우고 한 번에 저장한다.
+     *
+     * @param requests
+     * @return
+     */
+    @Override
+    public List<Order> createOrders(List<OrderRequest> requests) {
+
+        int size = requests.size();
+        long[] memberIds = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            OrderRequest request = requests.get(i);
+            validateItem(request.getItemName(), request.getItemPrice());
+            memberIds[i] = request.getMemberId();
+        }
+
+        LongObjectMap<Member> members = memberRepository.findAllById(distinct(memberIds, size));
+        List<Order> orders = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            OrderRequest request = requests.get(i);
+            Member member = members.get(memberIds[i]);
+
+            if (member == null) {
+                throw new IllegalArgumentException("회원이 없습니다. memberId = " + memberIds[i]);
+            }
+
+            int discountPrice = discountPolicy.discount(member, request.getItemName(), request.getItemPrice());
+            orders.add(new Order(orderIdGenerator.nextId(), member.getId(), request.getItemName(), request.getItemPrice(), discountPrice));
+        }
+
+        orderRepository.saveAll(orders);
+        memberOrderAggregates.recordAll(orders);
+
+        return orders;
+    }
+
+    /**
+     * 주문마다 누적해 둔 집계를 그대로 읽으므로 주문 수와 관계없이 일정한 시간에 조회된다.
+     *
+     * @param memberId
+     * @return
+     */
+    @Override
+    public MemberOrderSummary findOrderSummary(long memberId) {
+        return memberOrderAggregates.find(memberId);
+    }
+
+    /**
+     * 주문 저장소에서 회원의 주문을 찾는다. ( SegmentOrderStore 는 희소 인덱스와 블룸 필터로 필요한 블록만 읽는다. )
+     *
+     * @param memberId
+     * @return
+     */
+    @Override
+    public List<Order> findOrders(long memberId) {
+        return orderRepository.findByMemberId(memberId);
+    }
+
+    /**
+     * 정렬된 복사본에서 연속된 같은 값을 건너뛰어 중복을 제거 ( 주문 수집 파이프라인에서도 사용 )
+     *
+     * @param memberIds
+     * @param length    앞에서부터 사용할 개수
+     * @return
+     */
+    static long[] distinct(long[] memberIds, int length) {
+
+        long[] sorted = Arrays.copyOf(memberIds, length);
+        Arrays.sort(sorted);
+
+        int count = 0;
+
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[count - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+
+        return Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * 상품 검증은 호출한 스레드에서 바로 수행하고 ( 실행기 작업으로 넘기는 비용이 검증보다 크다. )
+     * 회원 조회만 실행기에서 수행한 뒤, 조회가 끝나면 할인 금액을 계산해서 주문을 만든다.
+     * 검증에 실패해도 예외를 던지지 않고 예외로 완료된 future 를 반환한다.
+     *
+     * @param memberId
+     * @param itemName
+     * @param itemPrice
+     * @return
+     */
+    @Override
+    public CompletableFuture<Order> createOrderAsync(Long memberId, String itemName, int itemPrice) {
+
+        try {
+            validateItem(itemName, itemPrice);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
-        // 주문 객체를 생성해서 반환
-        return new Order(memberId, itemName, itemPrice, discountPrice);
+        return serviceExecutor.supply(() -> findMember(memberId)).thenApply(findMember -> {
+            Order order = new Order(orderIdGenerator.nextId(), memberId, itemName, itemPrice, discountPolicy.discount(findMember, itemName, itemPrice));
+            orderRepository.save(order);
+            memberOrderAggregates.record(order);
+            return order;
+        });
+    }
+
+    /**
+     * 회원 조회 ( 일괄 주문과 같이 회원 id 가 없거나 가입하지 않은 회원이면 주문할 수 없다. )
+     *
+     * @param memberId
+     * @return
+     */
+    private CompactMember findMember(Long memberId) {
+
+        CompactMember member = memberId == null ? null : memberRepository.findCompactById(memberId);
+
+        if (member == null) {
+            throw new IllegalArgumentException("회원이 없습니다. memberId = " + memberId);
+        }
+
+        return member;
+    }
+
+    /**
+     * 상품명이 비어 있거나 가격이 음수이면 주문할 수 없다.
+     *
+     * @param itemName
+     * @param itemPrice
+     */
+    private static void validateItem(String itemName, int itemPrice) {
+
+        if (itemName == null || itemName.isBlank()) {
+            throw new IllegalArgumentException("상품명이 없습니다.");
+        }
+        if (itemPrice < 0) {
+            throw new IllegalArgumentException("상품 가격은 0 이상이어야 합니다. itemPrice = " + itemPrice);
+        }
+    }
+
+    /**
+     * validateItem 과 같은 기준으로 검증하되, 예외 대신 결과를 반환한다. ( 주문 수집 파이프라인용 )
+     *
+     * @param itemName
+     * @param itemPrice
+     * @return
+     */
+    static boolean isValidItem(String itemName, int itemPrice) {
+        return itemName != null && !itemName.isBlank() && itemPrice >= 0;
     }
 
     /**
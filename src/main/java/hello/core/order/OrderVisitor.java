@@ -0,0 +1,19 @@
+package hello.core.order;
+
+/**
+ * 주문 저장소 순회 콜백
+ *
+ * 주문 한 건의 값을 기본형 그대로 받는다. ( OrderRepository.scan )
+ */
+@FunctionalInterface
+public interface OrderVisitor {
+
+    /**
+     * @param orderId       주문 id ( 발급되지 않은 주문은 0 )
+     * @param memberId
+     * @param itemName      같은 상품명은 같은 String 인스턴스로 전달된다.
+     * @param itemPrice
+     * @param discountPrice
+     */
+    void visit(long orderId, long memberId, String itemName, int itemPrice, int discountPrice);
+}
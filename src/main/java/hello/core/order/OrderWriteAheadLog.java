@@ -0,0 +1,782 @@
+package hello.core.order;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 주문 로그 선기록 ( write-ahead log )
+ *
+ * 주문을 저장소에 반영하기 전에 로그 파일에 먼저 기록하고 디스크에 반영(force)해서, 프로세스가 종료되어도 주문이 유실되지 않도록 한다.
+ * 재시작할 때 replay 로 로그의 주문을 처음부터 다시 읽어서 저장소를 복구한다.
+ *
+ * 그룹 커밋
+ *  : append / appendAll 은 주문을 레코드 하나로 인코딩해서 대기 큐에 넣고 바로 CompletableFuture 를 반환한다.
+ *  : 전용 flusher 스레드가 큐에 쌓인 레코드를 최대 maxBatch 건까지 한 번에 꺼내서 파일에 쓰고 force 를 한 번만 호출한 뒤,
+ *    묶음의 모든 future 를 완료시킨다. => future 가 완료되면 그 레코드의 주문은 디스크에 반영된 것이다.
+ *  : 동시에 기록하는 스레드가 많을수록 force 한 번에 더 많은 레코드가 묶인다.
+ *  : appendAll 의 주문은 CRC 하나로 보호되는 레코드 하나에 기록되므로, 재시작 시 모두 읽히거나 모두 읽히지 않는다.
+ *  : 쓰기나 force 에 실패하면 묶음의 future 를 모두 예외로 완료하고, 마지막으로 force 한 위치 뒤에 쓴 영역을 0 으로 지운다.
+ *    => 실패를 통보받은 주문이 나중에 다른 묶음의 force 로 디스크에 반영되어 재시작 시 되살아나는 일이 없다.
+ *
+ * 세그먼트
+ *  : 로그는 orders-00000001.wal 처럼 번호가 붙은 고정 크기 세그먼트 파일로 나뉜다.
+ *  : 새 세그먼트는 만들 때 전체 크기를 미리 확보해 두므로, 기록 중에 파일 크기 변경(메타데이터 반영)이 일어나지 않는다.
+ *  : 다음 레코드가 현재 세그먼트에 들어가지 않으면 그 앞까지를 한 묶음으로 force 하고 다음 세그먼트로 넘어간다.
+ *    ( 한 번의 force 는 항상 한 세그먼트 안에서 끝나므로, 실패한 묶음의 일부가 이전 세그먼트에 반영되는 일이 없다. )
+ *  : 다음 세그먼트를 만들지 못하면 그 묶음은 실패로 처리하고, 다음 묶음에서 다시 만든다.
+ *  : 레코드의 주문을 다른 곳에 모두 옮긴 뒤에는 truncate 로 그 앞의 세그먼트 파일을 지울 수 있다. ( replay(from, ...) 로 옮기지 않은 레코드부터 읽는다. )
+ *
+ * 취소
+ *  : 이미 반영된 레코드의 주문을 저장소에 반영하지 못하면 abort 로 그 레코드의 기록 위치를 취소 레코드로 남긴다.
+ *  : replay 는 먼저 취소 레코드를 모두 모은 뒤, 취소되지 않은 레코드의 주문만 읽는다. => 실패를 통보받은 주문은 재시작 후에도 되살아나지 않는다.
+ *
+ * 레코드 형식
+ *  : [int 본문 길이][int 본문 CRC32][본문]
+ *  : 주문 레코드 본문 : [byte 레코드 종류 2][int 주문 수] + 주문마다 [long 주문 id][long 회원 id][int 상품 가격][int 할인 금액][short 상품명 길이][상품명 UTF-8]
+ *  : 취소 레코드 본문 : [byte 레코드 종류 3][long 취소할 레코드의 기록 위치]
+ *  : 본문 길이가 0 이면 세그먼트의 끝이다.
+ *  : 마지막 세그먼트에서 CRC 가 맞지 않는 레코드를 만나면 기록 도중 종료된 것으로 보고, 그 위치부터 이어서 기록한다.
+ */
+public class OrderWriteAheadLog implements AutoCloseable {
+
+    static final int HEADER_SIZE = 8;
+    static final byte ORDERS_RECORD = 2;
+    static final byte ABORT_RECORD = 3;
+
+    // 주문 레코드 본문의 고정 부분 ( 레코드 종류 + 주문 수 ) 과 주문 하나의 고정 부분
+    static final int ORDERS_FIXED_SIZE = 1 + 4;
+    static final int ORDER_FIXED_SIZE = 8 + 8 + 4 + 4 + 2;
+
+    private static final int ABORT_BODY_SIZE = 1 + 8;
+    private static final int MAX_ITEM_NAME = Short.MAX_VALUE;
+    private static final int NULL_ITEM_NAME = -1;
+    private static final int MAX_RECORD_SIZE = HEADER_SIZE + ORDERS_FIXED_SIZE + ORDER_FIXED_SIZE + MAX_ITEM_NAME;
+
+    // 기록 위치 = 세그먼트 번호 << OFFSET_BITS | 세그먼트 안의 위치
+    private static final int OFFSET_BITS = 40;
+
+    private static final OrderVisitor SKIP = (orderId, memberId, itemName, itemPrice, discountPrice) -> { };
+
+    private static final long DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int DEFAULT_MAX_BATCH = 1024;
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxBatch;
+
+    private final BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread flusher;
+
+    // running : 새 기록 요청을 받는지, appending : running 을 확인하고 큐에 넣는 중인 요청 수
+    // stopped : 더 이상 큐에 들어올 요청이 없으므로 flusher 가 큐를 비우고 끝나도 된다.
+    private volatile boolean running = true;
+    private final AtomicInteger appending = new AtomicInteger();
+    private volatile boolean stopped;
+
+    // flusher 스레드 전용
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+    private FileChannel segment;
+    private long segmentNumber;
+    private long position;
+    // 마지막으로 force 한 위치
+    private long committed;
+
+    // 실패한 묶음이 쓴 영역 [ position, dirtyEnd ) - 0 으로 지우기 전에는 다음 묶음을 쓰지 않는다.
+    private long dirtyEnd;
+
+    // 열 때 복구한 로그의 끝 위치 ( 그 전에 기록된 레코드의 위치는 모두 이 값보다 작다. )
+    private long recoveredEnd;
+
+    private final LongAdder appendedCount = new LongAdder();
+    private final LongAdder forceCount = new LongAdder();
+
+    public OrderWriteAheadLog(String directory) {
+        this(Paths.get(directory), DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param directory   세그먼트 파일을 둘 디렉토리 ( 없으면 만든다. )
+     * @param segmentSize 세그먼트 하나의 크기 ( byte )
+     * @param maxBatch    force 한 번에 묶을 최대 주문 수
+     */
+    public OrderWriteAheadLog(Path directory, long segmentSize, int maxBatch) {
+
+        if (segmentSize < MAX_RECORD_SIZE || segmentSize >= 1L << OFFSET_BITS || maxBatch < 1) {
+            throw new IllegalArgumentException("세그먼트 크기는 " + MAX_RECORD_SIZE + " byte 이상 " + (1L << OFFSET_BITS)
+                    + " byte 미만, 묶음 크기는 1 이상이어야 합니다.");
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBatch = maxBatch;
+
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문 로그를 열 수 없습니다. directory = " + directory, e);
+        }
+
+        this.flusher = new Thread(this::flushLoop, "order-wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 주문 기록 요청
+     *
+     * 대기 큐가 가득 차 있으면 자리가 날 때까지 기다린다.
+     *
+     * @param order
+     * @return 주문이 디스크에 반영되면 레코드의 기록 위치로 완료되는 future ( 기록에 실패하면 예외로 완료된다. )
+     */
+    public CompletableFuture<Long> append(Order order) {
+        return appendAll(List.of(order));
+    }
+
+    /**
+     * 여러 주문을 레코드 하나로 기록 요청
+     *
+     * 레코드 하나는 CRC 하나로 보호되므로, 재시작 시 주문이 모두 읽히거나 ( 반영 성공 ) 하나도 읽히지 않는다. ( 반영 실패 )
+     *
+     * @param orders
+     * @return 주문이 모두 디스크에 반영되면 레코드의 기록 위치로 완료되는 future ( 기록에 실패하면 예외로 완료된다. )
+     */
+    public CompletableFuture<Long> appendAll(Collection<Order> orders) {
+
+        Pending pending = Pending.orders(orders);
+
+        if (pending.recordSize() + 4 > segmentSize) {
+            throw new IllegalArgumentException("주문이 너무 많아서 한 세그먼트에 기록할 수 없습니다. orders = " + orders.size());
+        }
+
+        return enqueue(pending);
+    }
+
+    /**
+     * 기록 취소 요청
+     *
+     * 이미 반영된 레코드의 주문을 저장소에 반영하지 못했을 때, 재시작 시 그 레코드를 읽지 않도록 취소 레코드를 남긴다.
+     *
+     * @param position append / appendAll 의 future 가 완료된 기록 위치
+     * @return 취소 레코드가 디스크에 반영되면 완료되는 future
+     */
+    public CompletableFuture<Long> abort(long position) {
+        return enqueue(Pending.abort(position));
+    }
+
+    private CompletableFuture<Long> enqueue(Pending pending) {
+
+        // close 는 running 을 내린 뒤 appending 이 0 이 될 때까지 기다리므로, 여기서 running 을 확인하고 넣은 요청은 반드시 기록된다.
+        appending.incrementAndGet();
+
+        try {
+            if (!running) {
+                pending.future.completeExceptionally(new IllegalStateException("주문 로그가 닫혔습니다."));
+                return pending.future;
+            }
+
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+        } finally {
+            appending.decrementAndGet();
+        }
+
+        return pending.future;
+    }
+
+    /**
+     * 로그에 기록된 모든 주문을 기록 순서대로 읽는다. ( 재시작 시 저장소 복구용 )
+     *
+     * @param visitor
+     */
+    public void replay(OrderVisitor visitor) {
+        replay(0L, visitor);
+    }
+
+    /**
+     * 기록 위치가 from 이상인 레코드의 주문만 기록 순서대로 읽는다.
+     *
+     * 주문을 다른 곳( 예 : SegmentOrderStore 의 세그먼트 파일 )에 옮겨 두었으면, 옮기지 않은 레코드부터 읽을 때 사용한다.
+     *
+     * @param from    읽기 시작할 기록 위치
+     * @param visitor
+     */
+    public void replay(long from, OrderVisitor visitor) {
+
+        Set<Long> aborted = new HashSet<>();
+
+        try {
+            List<Path> files = segmentFiles();
+
+            // 취소 레코드는 취소할 레코드보다 뒤에 있으므로, 취소된 기록 위치를 먼저 모두 모은다.
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    readRecords(channel, segmentNumber(file), 0L, SKIP, aborted);
+                }
+            }
+
+            for (Path file : files) {
+                if (segmentNumber(file) < from >>> OFFSET_BITS) {
+                    continue;
+                }
+
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    readRecords(channel, segmentNumber(file), from, visitor, aborted);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문 로그를 읽을 수 없습니다. directory = " + directory, e);
+        }
+    }
+
+    /**
+     * 열 때 복구한 로그의 끝 위치
+     *
+     * 그 전에 기록된 레코드의 위치는 모두 이 값보다 작고, 이후에 기록하는 레코드의 위치는 모두 이 값 이상이다.
+     *
+     * @return
+     */
+    public long recoveredEnd() {
+        return recoveredEnd;
+    }
+
+    /**
+     * 기록 위치가 position 보다 작은 레코드만 들어 있는 세그먼트 파일을 지운다.
+     *
+     * 레코드의 주문을 다른 곳에 모두 옮긴 뒤에 로그가 계속 커지지 않도록 호출한다.
+     * position 이 들어 있는 세그먼트부터는 남기므로 기록 중인 세그먼트는 지우지 않는다.
+     * 지우지 못한 파일은 다음 truncate 에서 다시 지운다.
+     *
+     * @param position
+     */
+    public void truncate(long position) {
+
+        try {
+            for (Path file : segmentFiles()) {
+                if (segmentNumber(file) < position >>> OFFSET_BITS) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            // 남은 파일은 replay 에서 from 보다 앞이므로 읽히지 않는다.
+        }
+    }
+
+    public long appendedCount() {
+        return appendedCount.sum();
+    }
+
+    /**
+     * 지금까지 호출한 force 횟수 ( 묶음 수 )
+     *
+     * @return
+     */
+    public long forceCount() {
+        return forceCount.sum();
+    }
+
+    /**
+     * 새 기록 요청은 거절하고, 이미 받은 요청을 모두 기록한 뒤 닫는다.
+     *
+     * running 을 확인하고 큐에 넣는 중인 요청이 모두 들어간 뒤에 flusher 를 멈추므로, 받은 요청의 future 는 모두 완료된다.
+     */
+    @Override
+    public void close() {
+
+        running = false;
+
+        while (appending.get() > 0) {
+            Thread.onSpinWait();
+        }
+
+        stopped = true;
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            segment.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flushLoop() {
+
+        List<Pending> batch = new ArrayList<>(maxBatch);
+
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(10, TimeUnit.MILLISECONDS);
+
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            for (int from = 0; from < batch.size(); ) {
+                from = commit(batch, from);
+            }
+
+            batch.clear();
+        }
+    }
+
+    /**
+     * batch[from] 부터 현재 세그먼트에 들어가는 만큼 기록하고 force 한 뒤 future 를 완료한다.
+     *
+     * @return 다음에 기록할 위치 ( 실패하면 남은 요청을 모두 실패로 완료하고 batch.size() )
+     */
+    private int commit(List<Pending> batch, int from) {
+
+        int to = from;
+
+        try {
+            discardDirty();
+
+            if (!segment.isOpen() || !fits(batch.get(from))) {
+                nextSegment();
+            }
+
+            while (to < batch.size() && fits(batch.get(to))) {
+                write(batch.get(to));
+                to++;
+            }
+
+            if (to == from) {
+                throw new IllegalStateException("주문 레코드가 세그먼트보다 큽니다. segmentSize = " + segmentSize);
+            }
+
+            flushBuffer();
+            force(segment);
+            committed = position;
+            forceCount.increment();
+
+            for (int i = from; i < to; i++) {
+                appendedCount.add(batch.get(i).orderCount);
+            }
+        } catch (IOException | RuntimeException e) {
+            rollback();
+
+            for (int i = from; i < batch.size(); i++) {
+                batch.get(i).future.completeExceptionally(e);
+            }
+
+            return batch.size();
+        }
+
+        for (int i = from; i < to; i++) {
+            batch.get(i).future.complete(batch.get(i).position);
+        }
+
+        return to;
+    }
+
+    /**
+     * 세그먼트 끝에 본문 길이 0 ( 끝 표시 ) 을 둘 자리를 남기고 들어가는지
+     */
+    private boolean fits(Pending pending) {
+        return position + buffer.position() + pending.recordSize() + 4 <= segmentSize;
+    }
+
+    /**
+     * 현재 세그먼트는 마지막 묶음까지 force 되어 있으므로 닫기만 하고 다음 세그먼트를 연다.
+     *
+     * 이전에 다음 세그먼트를 만들다 실패해서 현재 세그먼트가 닫혀 있으면 다시 만든다.
+     */
+    private void nextSegment() throws IOException {
+
+        if (segment.isOpen()) {
+            segment.close();
+        }
+
+        openSegment(segmentNumber + 1, true);
+    }
+
+    /**
+     * force 실패 등으로 묶음이 실패하면, 버퍼를 비우고 마지막으로 force 한 위치 뒤에 쓴 영역을 지운다.
+     */
+    private void rollback() {
+
+        buffer.clear();
+
+        if (segment.isOpen()) {
+            dirtyEnd = Math.max(dirtyEnd, position);
+        }
+
+        position = committed;
+
+        try {
+            discardDirty();
+        } catch (IOException | RuntimeException e) {
+            // 다음 묶음을 쓰기 전에 다시 지운다. ( 지우지 못하면 그 묶음도 실패한다. )
+        }
+    }
+
+    /**
+     * 실패한 묶음이 쓴 영역을 0 으로 지우고 force 한다. ( 0 은 세그먼트 끝 표시이므로 재시작 시 읽히지 않는다. )
+     */
+    private void discardDirty() throws IOException {
+
+        if (dirtyEnd <= position) {
+            return;
+        }
+
+        if (segment.isOpen()) {
+            zero(segment, position, dirtyEnd);
+            force(segment);
+        }
+
+        dirtyEnd = 0;
+    }
+
+    /**
+     * 세그먼트 파일 force ( 테스트에서 실패를 흉내 낼 수 있도록 분리 )
+     */
+    void force(FileChannel channel) throws IOException {
+        channel.force(false);
+    }
+
+    private static void zero(FileChannel channel, long from, long to) throws IOException {
+
+        ByteBuffer zeros = ByteBuffer.allocate(64 * 1024);
+
+        for (long offset = from; offset < to; ) {
+            zeros.clear().limit((int) Math.min(zeros.capacity(), to - offset));
+            offset += channel.write(zeros, offset);
+        }
+    }
+
+    /**
+     * 요청한 스레드에서 인코딩해 둔 레코드를 버퍼에 옮긴다. ( 버퍼보다 큰 레코드는 버퍼를 비운 뒤 파일에 바로 쓴다. )
+     */
+    private void write(Pending pending) throws IOException {
+
+        ByteBuffer record = pending.record.duplicate();
+
+        if (buffer.remaining() < record.remaining()) {
+            flushBuffer();
+        }
+
+        pending.position = (segmentNumber << OFFSET_BITS) | (position + buffer.position());
+
+        if (record.remaining() > buffer.capacity()) {
+            while (record.hasRemaining()) {
+                position += segment.write(record, position);
+            }
+        } else {
+            buffer.put(record);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            position += segment.write(buffer, position);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * 마지막 세그먼트의 기록된 끝을 찾아서 이어서 기록할 위치로 삼는다.
+     *
+     * 기록 도중 종료되어 끝부분에 깨진 레코드가 있으면 그 영역을 0 으로 지운다.
+     */
+    private void recover() throws IOException {
+
+        List<Path> files = segmentFiles();
+
+        if (files.isEmpty()) {
+            openSegment(1, true);
+            recoveredEnd = 1L << OFFSET_BITS;
+            return;
+        }
+
+        Path last = files.get(files.size() - 1);
+        openSegment(segmentNumber(last), false);
+
+        long end = readRecords(segment, segmentNumber, 0L, SKIP, new HashSet<>());
+        long size = segment.size();
+
+        // 정상 종료라면 끝 위치의 본문 길이는 0 이다. 아니면 묶음의 일부만 기록된 것이므로 나머지 영역을 모두 지운다.
+        if (end + 4 <= size && readInt(segment, end) != 0) {
+            zero(segment, end, size);
+            segment.force(false);
+        }
+
+        position = end;
+        committed = end;
+        recoveredEnd = (segmentNumber << OFFSET_BITS) | end;
+    }
+
+    private static int readInt(FileChannel channel, long offset) throws IOException {
+
+        ByteBuffer value = ByteBuffer.allocate(4);
+        readFully(channel, value, offset);
+
+        return value.getInt(0);
+    }
+
+    /**
+     * 세그먼트의 레코드를 처음부터 읽는다.
+     *
+     * 취소 레코드가 가리키는 기록 위치는 aborted 에 모으고, 기록 위치가 from 이상이고 aborted 에 없는 주문 레코드의 주문만 visitor 에 전달한다.
+     *
+     * @return 마지막으로 읽은 정상 레코드의 끝 위치
+     */
+    private static long readRecords(FileChannel channel, long segmentNumber, long from, OrderVisitor visitor, Set<Long> aborted)
+            throws IOException {
+
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        ByteBuffer body = ByteBuffer.allocate(64 * 1024);
+        CRC32 crc = new CRC32();
+
+        while (offset + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, offset);
+
+            int bodySize = header.getInt(0);
+
+            if (bodySize <= 0 || offset + HEADER_SIZE + bodySize > size) {
+                break;
+            }
+
+            if (bodySize > body.capacity()) {
+                body = ByteBuffer.allocate(bodySize);
+            }
+
+            body.clear().limit(bodySize);
+            readFully(channel, body, offset + HEADER_SIZE);
+            body.flip();
+
+            crc.reset();
+            crc.update(body.duplicate());
+
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+
+            byte type = body.get(0);
+
+            if (type == ORDERS_RECORD && bodySize >= ORDERS_FIXED_SIZE) {
+                long position = (segmentNumber << OFFSET_BITS) | offset;
+
+                if (position >= from && !aborted.contains(position)) {
+                    readOrders(body, visitor);
+                }
+            } else if (type == ABORT_RECORD && bodySize == ABORT_BODY_SIZE) {
+                aborted.add(body.getLong(1));
+            } else {
+                break;
+            }
+
+            offset += HEADER_SIZE + bodySize;
+        }
+
+        return offset;
+    }
+
+    private static void readOrders(ByteBuffer body, OrderVisitor visitor) {
+
+        int count = body.getInt(1);
+        int base = ORDERS_FIXED_SIZE;
+
+        for (int i = 0; i < count; i++) {
+            short nameLength = body.getShort(base + 24);
+
+            visitor.visit(body.getLong(base), body.getLong(base + 8), readItemName(body, base + ORDER_FIXED_SIZE, nameLength),
+                    body.getInt(base + 16), body.getInt(base + 20));
+
+            base += ORDER_FIXED_SIZE + (nameLength == NULL_ITEM_NAME ? 0 : nameLength);
+        }
+    }
+
+    private static String readItemName(ByteBuffer body, int offset, short nameLength) {
+
+        if (nameLength == NULL_ITEM_NAME) {
+            return null;
+        }
+
+        return new String(body.array(), body.arrayOffset() + offset, nameLength, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long offset) throws IOException {
+
+        while (target.hasRemaining()) {
+            int read = channel.read(target, offset + target.position());
+
+            if (read < 0) {
+                throw new IOException("주문 로그가 예상보다 짧습니다.");
+            }
+        }
+    }
+
+    /**
+     * 세그먼트를 연다. 새로 만드는 경우 마지막 byte 를 기록해서 전체 크기를 미리 확보한다.
+     */
+    private void openSegment(long number, boolean create) throws IOException {
+
+        Path file = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+
+        segment = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentNumber = number;
+        position = 0;
+        committed = 0;
+        dirtyEnd = 0;
+
+        if (create && segment.size() < segmentSize) {
+            segment.write(ByteBuffer.allocate(1), segmentSize - 1);
+            segment.force(true);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long segmentNumber(Path file) {
+
+        String name = file.getFileName().toString();
+
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * 기록 요청 ( 레코드 인코딩과 CRC 계산은 요청한 스레드에서 미리 해 둔다. )
+     */
+    private static final class Pending {
+
+        private final ByteBuffer record;
+        private final int orderCount;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        // flusher 스레드가 기록하면서 정하는 기록 위치
+        private long position;
+
+        private Pending(ByteBuffer record, int orderCount) {
+            this.record = record;
+            this.orderCount = orderCount;
+        }
+
+        private static Pending orders(Collection<Order> orders) {
+
+            if (orders.isEmpty()) {
+                throw new IllegalArgumentException("기록할 주문이 없습니다.");
+            }
+
+            byte[][] names = new byte[orders.size()][];
+            int bodySize = ORDERS_FIXED_SIZE;
+            int i = 0;
+
+            for (Order order : orders) {
+                if (order.getMemberId() == null) {
+                    throw new IllegalArgumentException("주문의 회원 id 가 없습니다.");
+                }
+                if (order.getItemName() != null && order.getItemName().length() > MAX_ITEM_NAME / 3) {
+                    throw new IllegalArgumentException("상품명이 너무 깁니다. length = " + order.getItemName().length());
+                }
+
+                names[i] = order.getItemName() == null ? null : order.getItemName().getBytes(StandardCharsets.UTF_8);
+                bodySize += ORDER_FIXED_SIZE + (names[i] == null ? 0 : names[i].length);
+                i++;
+            }
+
+            ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + bodySize);
+            record.position(HEADER_SIZE);
+            record.put(ORDERS_RECORD).putInt(orders.size());
+            i = 0;
+
+            for (Order order : orders) {
+                byte[] name = names[i++];
+
+                record.putLong(order.getId())
+                        .putLong(order.getMemberId())
+                        .putInt(order.getItemPrice())
+                        .putInt(order.getDiscountPrice())
+                        .putShort((short) (name == null ? NULL_ITEM_NAME : name.length));
+                if (name != null) {
+                    record.put(name);
+                }
+            }
+
+            return new Pending(seal(record), orders.size());
+        }
+
+        private static Pending abort(long position) {
+
+            ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + ABORT_BODY_SIZE);
+            record.position(HEADER_SIZE);
+            record.put(ABORT_RECORD).putLong(position);
+
+            return new Pending(seal(record), 0);
+        }
+
+        /**
+         * 본문 길이와 CRC 를 헤더에 채우고 읽을 수 있도록 되돌린다.
+         */
+        private static ByteBuffer seal(ByteBuffer record) {
+
+            int bodySize = record.position() - HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), HEADER_SIZE, bodySize);
+
+            record.putInt(0, bodySize).putInt(4, (int) crc.getValue());
+            record.flip();
+
+            return record;
+        }
+
+        private int recordSize() {
+            return record.remaining();
+        }
+    }
+}
@@ -0,0 +1,714 @@
+package hello.core.order;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 세그먼트 파일 기반 주문 저장소
+ *
+ * "회원 X 의 모든 주문" 처럼 회원 id 로 주문을 찾는 조회를 위해, 주문을 회원 id 순으로 정렬된 불변 세그먼트 파일에 보관한다.
+ *
+ * 저장
+ *  : 주문은 먼저 (회원 id, 주문 id) 순으로 정렬된 메모리 버퍼(ConcurrentSkipListSet)에 쌓인다.
+ *  : 버퍼가 가득 차면 락 안에서는 새 버퍼로 바꾸기만 하고, 가득 찬 버퍼는 락 밖에서 새 세그먼트 파일로 내려 쓴다.
+ *    => 세그먼트 파일 기록과 fsync 동안에도 다른 스레드의 저장과 조회가 기다리지 않는다.
+ *  : 내려 쓰는 중인 버퍼는 세그먼트가 목록에 추가되는 순간까지 조회 대상에 남고, 가득 찬 순서대로 내려 쓴다.
+ *  : 세그먼트 파일은 한 번 쓰면 바뀌지 않는다. ( OrderSegment )
+ *  : 주문 id 는 유일해야 한다. ( 같은 (회원 id, 주문 id) 의 주문은 메모리 버퍼에서 하나로 합쳐진다. )
+ *
+ * 메모리 버퍼의 로그 ( 디렉토리 아래 wal )
+ *  : 주문은 메모리 버퍼에 넣기 전에 OrderWriteAheadLog 에 먼저 기록하고, 디스크에 반영된 뒤에 버퍼에 넣는다.
+ *    ( saveAll 의 주문은 레코드 하나로 기록되므로, 실패하면 하나도 저장되지 않는다. )
+ *  : 로그 기록 요청과 현재 버퍼 선택을 같은 락 안에서 하므로, 버퍼 하나에는 로그의 연속된 구간의 주문이 들어가고
+ *    버퍼는 기록 중인 주문이 모두 들어온 뒤에 세그먼트로 내려 쓴다.
+ *  : 세그먼트 꼬리말에 그 세그먼트까지 옮겨 둔 로그의 끝 위치(walEnd)를 남기고, 그 앞의 로그 세그먼트 파일은 지운다.
+ *  : 재시작 시 세그먼트의 가장 큰 walEnd 부터 로그를 읽어서, 비정상 종료로 유실된 메모리 버퍼의 주문만 복구한다.
+ *    => 세그먼트에 이미 있는 주문은 다시 읽지 않으므로 재시작해도 주문이 중복되지 않는다.
+ *  : 스스로 로그를 가지므로 WalOrderRepository 로 감싸지 않는다. ( 감싸면 재시작할 때마다 세그먼트의 주문이 다시 저장된다. )
+ *
+ * 조회 ( findByMemberId / scanByMemberId )
+ *  : 락 안에서는 메모리 버퍼와 세그먼트 목록의 참조만 읽고, 실제 조회는 락 밖에서 수행한다.
+ *  : 메모리 버퍼는 정렬되어 있으므로 회원 id 범위만 잘라서 읽는다. ( 버퍼 전체를 훑지 않는다. )
+ *  : 회원 id 범위나 블룸 필터로 해당 회원의 주문이 없는 세그먼트는 건너뛴다.
+ *  : 남은 세그먼트는 희소 인덱스로 시작 블록을 찾아서 필요한 블록만 읽고, 메모리 버퍼와 함께 (회원 id, 주문 id) 순으로 합쳐서 전달한다.
+ *    => 세그먼트 전체를 힙에 올리지 않는다.
+ *
+ * 병합 ( size-tiered compaction )
+ *  : 세그먼트를 주문 수로 계층(tier)을 나눈다. ( tier 0 : 메모리 버퍼 크기 이하, tier n : 그 compactionThreshold^n 배 이하 )
+ *  : 같은 계층의 세그먼트가 연속으로 compactionThreshold 개 이상 쌓이면 백그라운드 스레드가 그 세그먼트들만 하나로 병합한다.
+ *    => 주문 하나가 다시 쓰이는 횟수는 계층 수 ( log 전체 주문 수 ) 에 비례하므로, 전체 쓰기량이 주문 수에 거의 비례한다.
+ *       ( 매번 전체를 하나로 병합하면 쓰기량이 주문 수의 제곱에 비례한다. )
+ *  : 병합 중에도 저장과 조회는 계속되고, 병합이 끝나면 세그먼트 목록에서 병합한 구간만 한 번에 교체한다.
+ *  : compact 를 직접 호출하면 모든 세그먼트를 하나로 병합한다. ( 조회가 많은 시간대 전에 수동으로 정리할 때 )
+ *
+ * scan 은 저장 순서가 아니라 (회원 id, 주문 id) 순으로 순회한다.
+ */
+public class SegmentOrderStore implements OrderRepository, AutoCloseable {
+
+    private static final int DEFAULT_MEMTABLE_SIZE = 64 * 1024;
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 8;
+    private static final long DEFAULT_WAL_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int WAL_MAX_BATCH = 1024;
+    private static final String WAL_DIRECTORY = "wal";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final Comparator<Order> ORDER_BY_MEMBER =
+            Comparator.comparingLong((Order order) -> order.getMemberId()).thenComparingLong(Order::getId);
+
+    private final Path directory;
+    private final int memtableSize;
+    private final int compactionThreshold;
+    private final OrderWriteAheadLog log;
+
+    // memtable, sealed, segments 의 교체와 nextSequence, 로그 기록 요청 순서는 writeLock 으로 보호
+    private final Object writeLock = new Object();
+    private Memtable memtable = new Memtable();
+    private long nextSequence;
+
+    // 가득 차서 세그먼트로 내려 쓰는 중인 버퍼 ( 가득 찬 순서 ), 교체할 때마다 새 목록으로 바꾼다.
+    private volatile List<Memtable> sealed = Collections.emptyList();
+
+    // 세그먼트 번호 순, 교체할 때마다 새 목록으로 바꾼다.
+    private volatile List<OrderSegment> segments;
+    private volatile long count;
+
+    // 가득 찬 버퍼를 한 번에 하나씩, 가득 찬 순서대로 내려 쓰도록
+    private final Object flushLock = new Object();
+
+    private final Object compactionLock = new Object();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final ExecutorService compactor;
+    private final LongAdder compactionCount = new LongAdder();
+    private final LongAdder compactedOrderCount = new LongAdder();
+
+    public SegmentOrderStore(String directory) {
+        this(Paths.get(directory), DEFAULT_MEMTABLE_SIZE, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param directory           세그먼트 파일을 둘 디렉토리 ( 없으면 만든다. )
+     * @param memtableSize        세그먼트로 내려 쓰기 전에 메모리에 모아 둘 주문 수
+     * @param compactionThreshold 병합을 시작할 세그먼트 수 ( 2 이상 )
+     */
+    public SegmentOrderStore(Path directory, int memtableSize, int compactionThreshold) {
+        this(directory, memtableSize, compactionThreshold, DEFAULT_WAL_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param walSegmentSize 메모리 버퍼 로그의 세그먼트 하나의 크기 ( byte )
+     */
+    SegmentOrderStore(Path directory, int memtableSize, int compactionThreshold, long walSegmentSize) {
+
+        if (memtableSize < 1 || compactionThreshold < 2) {
+            throw new IllegalArgumentException("메모리 버퍼 크기는 1 이상, 병합 기준 세그먼트 수는 2 이상이어야 합니다.");
+        }
+
+        this.directory = directory;
+        this.memtableSize = memtableSize;
+        this.compactionThreshold = compactionThreshold;
+
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문 세그먼트를 열 수 없습니다. directory = " + directory, e);
+        }
+
+        this.compactor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "order-segment-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.log = new OrderWriteAheadLog(directory.resolve(WAL_DIRECTORY), walSegmentSize, WAL_MAX_BATCH);
+        replay();
+
+        requestCompaction();
+    }
+
+    @Override
+    public void save(Order order) {
+
+        validate(order);
+        write(List.of(order));
+    }
+
+    @Override
+    public void saveAll(Collection<Order> orders) {
+
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        for (Order order : orders) {
+            validate(order);
+        }
+
+        write(orders);
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    /**
+     * (회원 id, 주문 id) 순으로 모든 주문을 순회
+     *
+     * @param visitor
+     */
+    @Override
+    public void scan(OrderVisitor visitor) {
+        scanByMemberId(Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * 회원의 모든 주문 ( 주문 id 순 )
+     *
+     * @param memberId
+     * @return
+     */
+    @Override
+    public List<Order> findByMemberId(long memberId) {
+
+        List<Order> orders = new ArrayList<>();
+
+        scanByMemberId(memberId, memberId, (orderId, id, itemName, itemPrice, discountPrice) ->
+                orders.add(new Order(orderId, id, itemName, itemPrice, discountPrice)));
+
+        return orders;
+    }
+
+    /**
+     * 회원 id 가 [fromMemberId, toMemberId] 인 주문을 (회원 id, 주문 id) 순으로 순회
+     *
+     * @param fromMemberId
+     * @param toMemberId
+     * @param visitor
+     */
+    public void scanByMemberId(long fromMemberId, long toMemberId, OrderVisitor visitor) {
+
+        if (fromMemberId > toMemberId) {
+            return;
+        }
+
+        Memtable active;
+        List<Memtable> flushing;
+        List<OrderSegment> acquired = new ArrayList<>();
+        boolean single = fromMemberId == toMemberId;
+
+        // 메모리 버퍼와 세그먼트 목록을 같은 시점으로 읽어야, 그 사이에 내려 쓴 주문이 빠지거나 두 번 읽히지 않는다.
+        // 락 안에서는 참조를 읽고 세그먼트 참조만 얻는다. ( 세그먼트 수에 비례, 메모리 버퍼의 주문 수와 무관 )
+        synchronized (writeLock) {
+            active = memtable;
+            flushing = sealed;
+
+            for (OrderSegment segment : segments) {
+                boolean overlaps = segment.maxMemberId >= fromMemberId && segment.minMemberId <= toMemberId;
+
+                if (overlaps && (!single || segment.mightContain(fromMemberId)) && segment.acquire()) {
+                    acquired.add(segment);
+                }
+            }
+        }
+
+        try {
+            List<OrderSegment.Cursor> cursors = new ArrayList<>(acquired.size() + flushing.size() + 1);
+            for (OrderSegment segment : acquired) {
+                cursors.add(segment.cursor(fromMemberId));
+            }
+
+            // 메모리 버퍼는 락 밖에서 회원 id 범위만 잘라서 읽는다. ( 버퍼마다 이미 정렬되어 있다. )
+            cursors.add(active.cursor(fromMemberId, toMemberId));
+            for (Memtable table : flushing) {
+                cursors.add(table.cursor(fromMemberId, toMemberId));
+            }
+
+            OrderSegment.MergeCursor merged = new OrderSegment.MergeCursor(cursors);
+
+            while (merged.next() && merged.memberId <= toMemberId) {
+                visitor.visit(merged.orderId, merged.memberId, merged.itemName, merged.itemPrice, merged.discountPrice);
+            }
+        } finally {
+            for (OrderSegment segment : acquired) {
+                segment.release();
+            }
+        }
+    }
+
+    /**
+     * 현재 세그먼트 수
+     *
+     * @return
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public long compactionCount() {
+        return compactionCount.sum();
+    }
+
+    /**
+     * 병합으로 다시 쓴 주문 수의 누적 ( 병합 쓰기량 )
+     *
+     * @return
+     */
+    public long compactedOrderCount() {
+        return compactedOrderCount.sum();
+    }
+
+    /**
+     * 메모리 버퍼의 주문을 세그먼트로 내려 쓰고, 진행 중인 병합이 끝나기를 기다린 뒤 닫는다.
+     */
+    @Override
+    public void close() {
+
+        synchronized (writeLock) {
+            seal();
+        }
+
+        flushSealed();
+        log.close();
+        compactor.shutdown();
+
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (compactionLock) {
+            for (OrderSegment segment : segments) {
+                segment.release();
+            }
+        }
+    }
+
+    /**
+     * 세그먼트를 모두 하나로 병합한다. ( 수동 정리용 )
+     */
+    void compact() {
+
+        synchronized (compactionLock) {
+            List<OrderSegment> current = segments;
+
+            if (current.size() >= 2) {
+                merge(current.subList(0, current.size()));
+            }
+        }
+    }
+
+    /**
+     * 같은 계층의 세그먼트가 연속으로 compactionThreshold 개 이상 있으면 그 구간만 병합한다. ( 백그라운드 스레드에서 호출 )
+     *
+     * 병합한 세그먼트가 다음 계층에서 다시 병합 조건을 만족할 수 있으므로, 더 이상 병합할 구간이 없을 때까지 반복한다.
+     */
+    void compactTiers() {
+
+        synchronized (compactionLock) {
+            List<OrderSegment> run;
+
+            while ((run = nextRun(segments)) != null) {
+                merge(run);
+            }
+        }
+    }
+
+    /**
+     * 같은 계층의 세그먼트가 연속으로 compactionThreshold 개 이상인 첫 구간
+     *
+     * @return 없으면 null
+     */
+    private List<OrderSegment> nextRun(List<OrderSegment> current) {
+
+        int start = 0;
+
+        for (int i = 1; i <= current.size(); i++) {
+            if (i == current.size() || tier(current.get(i)) != tier(current.get(start))) {
+                if (i - start >= compactionThreshold) {
+                    return current.subList(start, i);
+                }
+                start = i;
+            }
+        }
+
+        return null;
+    }
+
+    private int tier(OrderSegment segment) {
+
+        int tier = 0;
+
+        for (long limit = memtableSize; segment.count > limit; limit *= compactionThreshold) {
+            tier++;
+        }
+
+        return tier;
+    }
+
+    /**
+     * 연속된 세그먼트 구간을 하나로 병합하고, 세그먼트 목록에서 그 구간만 교체한다. ( compactionLock 안에서 호출 )
+     *
+     * 병합하는 동안 새로 내려 쓴 세그먼트는 목록 뒤에 붙고, 목록의 기존 세그먼트를 바꾸는 것은 병합뿐이므로 구간은 그대로 남아 있다.
+     */
+    private void merge(List<OrderSegment> sources) {
+
+        long firstSequence = sources.get(0).firstSequence;
+        long lastSequence = sources.get(sources.size() - 1).lastSequence;
+        long walEnd = 0;
+        long expectedCount = 0;
+        List<OrderSegment.Cursor> cursors = new ArrayList<>(sources.size());
+
+        for (OrderSegment segment : sources) {
+            walEnd = Math.max(walEnd, segment.walEnd);
+            expectedCount += segment.count;
+            cursors.add(segment.cursor(Long.MIN_VALUE));
+        }
+
+        OrderSegment merged;
+
+        try {
+            merged = OrderSegment.write(segmentFile(firstSequence, lastSequence), firstSequence, lastSequence, walEnd,
+                    expectedCount, new OrderSegment.MergeCursor(cursors));
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문 세그먼트를 병합할 수 없습니다.", e);
+        }
+
+        List<OrderSegment> retired = new ArrayList<>(sources);
+
+        synchronized (writeLock) {
+            List<OrderSegment> current = segments;
+            int from = current.indexOf(retired.get(0));
+            List<OrderSegment> replaced = new ArrayList<>(current.size() - retired.size() + 1);
+
+            replaced.addAll(current.subList(0, from));
+            replaced.add(merged);
+            replaced.addAll(current.subList(from + retired.size(), current.size()));
+            segments = Collections.unmodifiableList(replaced);
+        }
+
+        for (OrderSegment segment : retired) {
+            segment.retire();
+        }
+
+        compactionCount.increment();
+        compactedOrderCount.add(expectedCount);
+    }
+
+    /**
+     * 주문을 로그에 기록하고, 디스크에 반영되면 기록을 요청할 때의 메모리 버퍼에 넣는다.
+     *
+     * 로그 기록을 기다리는 동안 그 버퍼가 가득 차서 내려 쓸 버퍼로 넘어가도, 버퍼는 이 주문이 들어올 때까지 내려 쓰지 않는다.
+     * 로그 기록에 실패하면 버퍼에 넣지 않고 예외를 던진다.
+     *
+     * @param orders
+     */
+    private void write(Collection<Order> orders) {
+
+        Memtable table;
+        CompletableFuture<Long> logged;
+
+        synchronized (writeLock) {
+            // 로그의 기록 순서와 버퍼 순서를 맞추기 위해 요청도 락 안에서 한다.
+            logged = log.appendAll(orders);
+            table = memtable;
+            table.writing++;
+        }
+
+        long position;
+
+        try {
+            position = logged.join();
+        } catch (CompletionException e) {
+            synchronized (writeLock) {
+                table.writing--;
+                writeLock.notifyAll();
+            }
+            throw new IllegalStateException("주문을 로그에 기록하지 못했습니다.", e.getCause());
+        }
+
+        boolean full;
+
+        synchronized (writeLock) {
+            for (Order order : orders) {
+                append(table, order);
+            }
+
+            table.walEnd = Math.max(table.walEnd, position + 1);
+            table.writing--;
+            writeLock.notifyAll();
+
+            full = table == memtable && table.size >= memtableSize;
+
+            if (full) {
+                seal();
+            }
+        }
+
+        if (full) {
+            flushSealed();
+        }
+    }
+
+    /**
+     * 메모리 버퍼에 추가한다. ( writeLock 안에서 호출 )
+     */
+    private void append(Memtable table, Order order) {
+
+        if (table.add(order)) {
+            count++;
+        }
+    }
+
+    /**
+     * 현재 버퍼를 내려 쓸 버퍼 목록 뒤에 붙이고 새 버퍼로 바꾼다. ( writeLock 안에서 호출 )
+     */
+    private void seal() {
+
+        if (memtable.size == 0 && memtable.writing == 0) {
+            return;
+        }
+
+        memtable.sequence = nextSequence++;
+
+        List<Memtable> added = new ArrayList<>(sealed);
+        added.add(memtable);
+        sealed = Collections.unmodifiableList(added);
+
+        memtable = new Memtable();
+    }
+
+    /**
+     * 내려 쓸 버퍼를 가득 찬 순서대로 세그먼트로 내려 쓴다. ( 락 밖에서 호출 )
+     *
+     * 파일 기록과 fsync 는 writeLock 밖에서 하고, 세그먼트 목록에 추가하면서 버퍼를 목록에서 빼는 것만 writeLock 안에서 한다.
+     * 실패하면 버퍼는 목록에 남아서 계속 조회되고, 다음 flushSealed 에서 다시 내려 쓴다.
+     * 세그먼트를 목록에 추가한 뒤에는 그 세그먼트의 walEnd 앞의 로그 세그먼트 파일을 지운다.
+     */
+    private void flushSealed() {
+
+        synchronized (flushLock) {
+            List<Memtable> pending;
+
+            while (!(pending = sealed).isEmpty()) {
+                Memtable table = pending.get(0);
+
+                awaitWrites(table);
+
+                OrderSegment segment = null;
+
+                if (table.size > 0) {
+                    try {
+                        segment = OrderSegment.write(segmentFile(table.sequence, table.sequence), table.sequence, table.sequence,
+                                table.walEnd, table.size, table.cursor(Long.MIN_VALUE, Long.MAX_VALUE));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("주문 세그먼트를 기록할 수 없습니다.", e);
+                    }
+                }
+
+                synchronized (writeLock) {
+                    if (segment != null) {
+                        List<OrderSegment> added = new ArrayList<>(segments);
+                        added.add(segment);
+                        segments = Collections.unmodifiableList(added);
+                    }
+                    sealed = Collections.unmodifiableList(new ArrayList<>(sealed.subList(1, sealed.size())));
+                }
+
+                if (segment != null) {
+                    log.truncate(segment.walEnd);
+                    requestCompaction();
+                }
+            }
+        }
+    }
+
+    /**
+     * 내려 쓸 버퍼에 로그 기록을 기다리는 주문이 남아 있으면 모두 들어오거나 실패할 때까지 기다린다.
+     *
+     * @param table
+     */
+    private void awaitWrites(Memtable table) {
+
+        boolean interrupted = false;
+
+        synchronized (writeLock) {
+            while (table.writing > 0) {
+                try {
+                    writeLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 세그먼트에 옮겨 두지 못하고 종료된 주문을 로그에서 읽어서 메모리 버퍼로 복구한다.
+     *
+     * 세그먼트들의 가장 큰 walEnd 부터 읽으므로 세그먼트에 이미 있는 주문은 다시 넣지 않는다.
+     * 복구한 버퍼가 가득 차 있으면 바로 세그먼트로 내려 쓴다.
+     */
+    private void replay() {
+
+        long from = 0;
+
+        for (OrderSegment segment : segments) {
+            from = Math.max(from, segment.walEnd);
+        }
+
+        synchronized (writeLock) {
+            log.replay(from, (orderId, memberId, itemName, itemPrice, discountPrice) ->
+                    append(memtable, new Order(orderId, memberId, itemName, itemPrice, discountPrice)));
+
+            if (memtable.size > 0) {
+                memtable.walEnd = log.recoveredEnd();
+            }
+            if (memtable.size >= memtableSize) {
+                seal();
+            }
+        }
+
+        flushSealed();
+        log.truncate(from);
+    }
+
+    private void requestCompaction() {
+
+        if (segments.size() >= compactionThreshold && compactionScheduled.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                compactionScheduled.set(false);
+                compactTiers();
+            });
+        }
+    }
+
+    /**
+     * 세그먼트 파일을 모두 열고, 병합에 포함된 원본 세그먼트와 기록 도중 남은 임시 파일을 지운다.
+     */
+    private void recover() throws IOException {
+
+        List<Path> files;
+
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .collect(Collectors.toList());
+        }
+
+        List<OrderSegment> opened = new ArrayList<>();
+
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(SEGMENT_SUFFIX)) {
+                opened.add(OrderSegment.open(file));
+            } else {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        // 시작 번호 순, 같으면 범위가 넓은 세그먼트 먼저
+        opened.sort(Comparator.comparingLong((OrderSegment segment) -> segment.firstSequence)
+                .thenComparing(Comparator.comparingLong((OrderSegment segment) -> segment.lastSequence).reversed()));
+
+        List<OrderSegment> live = new ArrayList<>();
+        long lastSequence = -1;
+        long total = 0;
+
+        for (OrderSegment segment : opened) {
+            if (segment.lastSequence <= lastSequence) {
+                segment.retire();
+                continue;
+            }
+
+            live.add(segment);
+            lastSequence = segment.lastSequence;
+            total += segment.count;
+        }
+
+        this.segments = Collections.unmodifiableList(live);
+        this.nextSequence = lastSequence + 1;
+        this.count = total;
+    }
+
+    private Path segmentFile(long firstSequence, long lastSequence) {
+        return directory.resolve(String.format("%s%08d-%08d%s", SEGMENT_PREFIX, firstSequence, lastSequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 세그먼트에 기록할 수 없는 주문은 메모리 버퍼에 넣기 전에 거절한다.
+     * ( 버퍼에 들어간 뒤에 실패하면 그 버퍼를 세그먼트로 내려 쓸 수 없다. )
+     *
+     * @param order
+     */
+    private static void validate(Order order) {
+
+        if (order.getMemberId() == null) {
+            throw new IllegalArgumentException("주문의 회원 id 가 없습니다.");
+        }
+        // UTF-8 은 한 글자에 최대 3 바이트
+        if (order.getItemName() != null && order.getItemName().length() > OrderSegment.MAX_ITEM_NAME / 3) {
+            throw new IllegalArgumentException("상품명이 너무 깁니다. length = " + order.getItemName().length());
+        }
+    }
+
+    /**
+     * (회원 id, 주문 id) 순으로 정렬된 메모리 버퍼
+     *
+     * 추가는 writeLock 안에서만 하고, 조회는 락 없이 회원 id 범위만 잘라서 읽는다.
+     * 가득 차서 내려 쓸 버퍼로 넘어간 뒤에는 더 이상 바뀌지 않는다.
+     */
+    private static final class Memtable {
+
+        private final NavigableSet<Order> orders = new ConcurrentSkipListSet<>(ORDER_BY_MEMBER);
+
+        // writeLock 안에서만 변경
+        private int size;
+        private long sequence;
+        // 로그 기록을 기다리는 중인 저장 요청 수, 들어온 주문의 로그 끝 위치
+        private int writing;
+        private long walEnd;
+
+        private boolean add(Order order) {
+
+            if (!orders.add(order)) {
+                return false;
+            }
+
+            size++;
+            return true;
+        }
+
+        private OrderSegment.Cursor cursor(long fromMemberId, long toMemberId) {
+
+            NavigableSet<Order> range = orders.subSet(
+                    new Order(Long.MIN_VALUE, fromMemberId, null, 0, 0), true,
+                    new Order(Long.MAX_VALUE, toMemberId, null, 0, 0), true);
+
+            return new OrderSegment.ArrayCursor(range.toArray(new Order[0]));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package hello.core.order;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 주문 수집 파이프라인의 소비자 스레드가 처리할 주문이 없을 때 기다리는 방법
+ *
+ *  - BUSY_SPIN : 계속 확인한다. 지연은 가장 짧지만 소비자 스레드마다 CPU 코어 하나를 계속 사용한다.
+ *  - YIELDING : 잠깐 확인하다가 다른 스레드에 CPU 를 양보한다. 지연이 짧고, 코어가 남을 때 적합하다.
+ *  - SLEEPING : 확인 / 양보 후에도 없으면 잠깐씩 잠든다. 유휴 시 CPU 사용이 거의 없어서 기본값으로 사용한다.
+ */
+public enum WaitStrategy {
+
+    BUSY_SPIN {
+        @Override
+        void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+
+    YIELDING {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+
+    SLEEPING {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_TRIES * 2) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(SLEEP_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final long SLEEP_NANOS = 100_000;
+
+    /**
+     * @param attempt 연속으로 빈 손으로 확인한 횟수 ( 처리할 주문을 찾으면 0 부터 다시 센다. )
+     */
+    abstract void idle(int attempt);
+}
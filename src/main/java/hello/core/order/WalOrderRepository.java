@@ -0,0 +1,148 @@
+package hello.core.order;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 주문 로그 선기록 저장소
+ *
+ * 다른 주문 저장소(delegate) 앞에서 주문을 먼저 OrderWriteAheadLog 에 기록하고,
+ * 디스크에 반영된 것을 확인한 뒤에 delegate 에 저장한다. => save 가 반환되면 그 주문은 재시작 후에도 남아 있다.
+ *
+ * 재시작 시 생성자에서 로그의 주문을 모두 delegate 에 다시 저장해서 복구한다.
+ * ( 회원별 주문 집계(MemberOrderAggregates)는 복구하지 않는다. )
+ *
+ * 실패를 통보받은 주문은 재시작 후에도 복구되지 않는다.
+ *  - saveAll 의 주문은 로그 레코드 하나로 기록되므로, 로그 기록에 실패하면 하나도 반영되지 않는다.
+ *  - 로그에 반영된 뒤 delegate 저장에 실패하면 그 레코드를 로그에서 취소(abort) 한 뒤 예외를 던진다.
+ *    ( 취소 기록까지 실패한 경우에만 재시작 시 복구될 수 있으며, 예외 메시지로 알린다. )
+ *
+ * 여러 스레드가 동시에 save 를 호출하면 로그가 그 요청들을 묶어서 force 한 번으로 반영하므로,
+ * 주문마다 force 를 호출하는 것보다 처리량이 높다.
+ */
+public class WalOrderRepository implements OrderRepository, AutoCloseable {
+
+    // 복구 시 delegate 에 한 번에 저장할 주문 수
+    private static final int REPLAY_BATCH = 4096;
+
+    private final OrderRepository delegate;
+    private final OrderWriteAheadLog log;
+
+    public WalOrderRepository(OrderRepository delegate, OrderWriteAheadLog log) {
+        this.delegate = delegate;
+        this.log = log;
+
+        replay();
+    }
+
+    /**
+     * 로그 뒤에서 실제로 주문을 보관하는 저장소 ( OrderAnalytics 가 컬럼 저장소를 찾을 때 사용 )
+     *
+     * @return
+     */
+    OrderRepository getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void save(Order order) {
+
+        long position = await(log.append(order));
+
+        try {
+            delegate.save(order);
+        } catch (RuntimeException e) {
+            throw abort(position, e);
+        }
+    }
+
+    /**
+     * 주문 일괄 저장
+     *
+     * 모든 주문을 로그 레코드 하나로 기록하므로 force 한 번으로 반영되고, 재시작 시 모두 복구되거나 하나도 복구되지 않는다.
+     *
+     * @param orders
+     */
+    @Override
+    public void saveAll(Collection<Order> orders) {
+
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        long position = await(log.appendAll(orders));
+
+        try {
+            delegate.saveAll(orders);
+        } catch (RuntimeException e) {
+            throw abort(position, e);
+        }
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void scan(OrderVisitor visitor) {
+        delegate.scan(visitor);
+    }
+
+    @Override
+    public List<Order> findByMemberId(long memberId) {
+        return delegate.findByMemberId(memberId);
+    }
+
+    @Override
+    public void close() {
+        log.close();
+    }
+
+    private void replay() {
+
+        List<Order> batch = new ArrayList<>(REPLAY_BATCH);
+
+        log.replay((orderId, memberId, itemName, itemPrice, discountPrice) -> {
+            batch.add(new Order(orderId, memberId, itemName, itemPrice, discountPrice));
+
+            if (batch.size() == REPLAY_BATCH) {
+                delegate.saveAll(batch);
+                batch.clear();
+            }
+        });
+
+        delegate.saveAll(batch);
+    }
+
+    /**
+     * delegate 저장에 실패한 레코드를 로그에서 취소 ( 재시작 시 복구되지 않도록 )
+     *
+     * @return 호출한 쪽에 던질 예외
+     */
+    private RuntimeException abort(long position, RuntimeException cause) {
+
+        try {
+            await(log.abort(position));
+        } catch (RuntimeException e) {
+            IllegalStateException failure = new IllegalStateException(
+                    "주문을 저장소에 반영하지 못했고 로그 취소 기록에도 실패했습니다. 재시작 시 복구될 수 있습니다.", cause);
+            failure.addSuppressed(e);
+            return failure;
+        }
+
+        return cause;
+    }
+
+    private static long await(CompletableFuture<Long> future) {
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("주문을 로그에 기록하지 못했습니다.", e.getCause());
+        }
+    }
+}
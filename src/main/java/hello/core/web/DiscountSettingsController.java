@@ -0,0 +1,84 @@
+package hello.core.web;
+
+import hello.core.discount.DiscountSettings;
+import hello.core.discount.DiscountSettingsHolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 할인 설정 관리자 컨트롤러
+ *
+ * 요청 URL
+ *  - 조회 : GET http://localhost:8080/discount/settings
+ *  - 변경 : POST http://localhost:8080/discount/settings?ratePercent=20&fixAmount=2000 ( 보낸 값만 변경 )
+ *  - 설정 파일 다시 읽기 : POST http://localhost:8080/discount/settings/reload
+ *
+ * 변경하면 새 스냅샷이 발행되고, 그 직후의 할인 계산부터 새 값이 적용된다. ( 재시작 불필요 )
+ *
+ * 인증 없이 실제 할인 금액을 바꿀 수 있는 API 이므로 기본으로는 등록하지 않는다.
+ * => application.properties 에 discount.settings.admin.enabled=true 를 설정한 관리용 인스턴스에서만 켠다.
+ *    ( 켜지 않으면 설정 파일 감시로만 할인 설정을 바꾼다. )
+ *
+ * @ConditionalOnProperty 어노테이션 : 설정 값이 있을 때만 스프링 빈으로 등록
+ */
+@Controller
+@ConditionalOnProperty(name = "discount.settings.admin.enabled", havingValue = "true")
+public class DiscountSettingsController {
+
+    private final DiscountSettingsHolder discountSettingsHolder;
+
+    @Autowired
+    public DiscountSettingsController(DiscountSettingsHolder discountSettingsHolder) {
+        this.discountSettingsHolder = discountSettingsHolder;
+    }
+
+    @GetMapping("discount/settings")
+    @ResponseBody
+    public DiscountSettings settings() {
+        return discountSettingsHolder.current();
+    }
+
+    @PostMapping("discount/settings")
+    @ResponseBody
+    public DiscountSettings update(@RequestParam(required = false) Integer ratePercent,
+                                   @RequestParam(required = false) Integer fixAmount) {
+
+        return discountSettingsHolder.update(current -> {
+            DiscountSettings next = current;
+
+            if (ratePercent != null) {
+                next = next.withRatePercent(ratePercent);
+            }
+
+            if (fixAmount != null) {
+                next = next.withFixAmount(fixAmount);
+            }
+
+            return next;
+        });
+    }
+
+    @PostMapping("discount/settings/reload")
+    @ResponseBody
+    public DiscountSettings reload() {
+        return discountSettingsHolder.reload();
+    }
+
+    /**
+     * 잘못된 값이면 이전 설정을 유지하고 400 응답
+     */
+    @ExceptionHandler({IllegalArgumentException.class, IllegalStateException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public String invalid(RuntimeException e) {
+        return e.getMessage();
+    }
+}
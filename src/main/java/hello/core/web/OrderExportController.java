@@ -0,0 +1,83 @@
+package hello.core.web;
+
+import hello.core.order.OrderExporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 주문 전체 내보내기 컨트롤러
+ *
+ * 요청 URL : http://localhost:8080/orders/export?format=ndjson ( 또는 format=csv )
+ *
+ * 응답 본문을 문자열로 만들어서 반환하지 않고, 응답 출력 스트림을 채널로 감싸서 OrderExporter 가 버퍼 단위로 바로 쓰도록 한다.
+ * 주문 수가 많아도 응답 전체를 메모리에 올리지 않는다.
+ *
+ * 지원하지 않는 format 이면 응답을 쓰기 전에 400 응답
+ */
+@Controller
+public class OrderExportController {
+
+    private final OrderExporter orderExporter;
+
+    @Autowired
+    public OrderExportController(OrderExporter orderExporter) {
+        this.orderExporter = orderExporter;
+    }
+
+    @GetMapping("orders/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+
+        OrderExporter.Format exportFormat = formatOf(format);
+
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"orders." + exportFormat.name().toLowerCase(Locale.ROOT) + "\"");
+
+        orderExporter.export(Channels.newChannel(response.getOutputStream()), exportFormat);
+
+        response.flushBuffer();
+    }
+
+    /**
+     * 지원하지 않는 format 이면 400 응답
+     */
+    @ExceptionHandler(UnsupportedFormatException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public String invalid(UnsupportedFormatException e) {
+        return e.getMessage();
+    }
+
+    private static OrderExporter.Format formatOf(String format) {
+
+        try {
+            return OrderExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedFormatException("지원하지 않는 format 입니다. format = " + format
+                    + ", 지원 format = " + Arrays.toString(OrderExporter.Format.values()).toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * 내보내기 도중의 IllegalArgumentException 까지 400 으로 바꾸지 않도록 format 오류만 구분한다.
+     */
+    static class UnsupportedFormatException extends IllegalArgumentException {
+
+        UnsupportedFormatException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,13 +1,56 @@
 package hello.core;
 
+import hello.core.common.ServiceExecutor;
+import hello.core.discount.DiscountPolicy;
+import hello.core.discount.DiscountSettingsHolder;
+import hello.core.discount.PromotionScheduler;
+import hello.core.discount.SwitchableDiscountPolicy;
+import hello.core.order.MemberOrderAggregates;
+import hello.core.order.OrderIdGenerator;
+import hello.core.web.DiscountSettingsController;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import static org.assertj.core.api.Assertions.*;
 
 @SpringBootTest
 class CoreApplicationTests {
 
+	@Autowired
+	ApplicationContext ac;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	@DisplayName("여러 서비스가 공유해야 하는 빈은 AppConfig 와 컴포넌트 스캔이 함께 읽혀도 하나만 등록되어야 한다.")
+	void sharedBeansRegisteredOnce() {
+		assertThat(ac.getBeansOfType(ServiceExecutor.class)).hasSize(1);
+		assertThat(ac.getBeansOfType(MemberOrderAggregates.class)).hasSize(1);
+		assertThat(ac.getBeansOfType(OrderIdGenerator.class)).hasSize(1);
+		assertThat(ac.getBeansOfType(DiscountSettingsHolder.class)).hasSize(1);
+		assertThat(ac.getBeansOfType(SwitchableDiscountPolicy.class)).hasSize(1);
+		assertThat(ac.getBeansOfType(PromotionScheduler.class)).hasSize(1);
+	}
+
+	@Test
+	@DisplayName("주문 서비스에 주입되는 할인 정책은 프로모션 스케줄러가 바꿔 끼우는 SwitchableDiscountPolicy 여야 한다.")
+	void mainDiscountPolicyIsScheduled() {
+		DiscountPolicy mainDiscountPolicy = BeanFactoryAnnotationUtils.qualifiedBeanOfType(
+				ac.getAutowireCapableBeanFactory(), DiscountPolicy.class, "mainDiscountPolicy");
+
+		assertThat(mainDiscountPolicy).isSameAs(ac.getBean(PromotionScheduler.class).getTarget());
+	}
+
+	@Test
+	@DisplayName("할인 설정 관리자 API 는 설정으로 켜지 않으면 등록되지 않아야 한다.")
+	void discountSettingsAdminDisabledByDefault() {
+		assertThat(ac.getBeansOfType(DiscountSettingsController.class)).isEmpty();
+	}
+
 }
@@ -0,0 +1,152 @@
+package hello.core.common;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    AtomicLong now = new AtomicLong();
+    IdempotencyCache<String> cache = new IdempotencyCache<>(32, 1_000, now::get);
+
+    @Test
+    @DisplayName("같은 키로 동시에 요청해도 작업은 한 번만 수행되고 모두 같은 결과를 받아야 한다.")
+    void computeOnceForConcurrentRequests() throws Exception {
+
+        // given
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.getOrCompute("key", () -> {
+                    executions.incrementAndGet();
+                    return "order-" + executions.get();
+                });
+            }));
+        }
+        start.countDown();
+
+        // then
+        for (Future<String> result : results) {
+            assertThat(result.get()).isEqualTo("order-1");
+        }
+        assertThat(executions.get()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("ttl 이 지나면 같은 키도 새로 수행되어야 한다.")
+    void expireAfterTtl() {
+
+        // given
+        cache.getOrCompute("key", () -> "first");
+
+        // when
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        String beforeExpire = cache.getOrCompute("key", () -> "second");
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        String afterExpire = cache.getOrCompute("key", () -> "third");
+
+        // then
+        assertThat(beforeExpire).isEqualTo("first");
+        assertThat(afterExpire).isEqualTo("third");
+    }
+
+    @Test
+    @DisplayName("작업이 실패하면 키를 기억하지 않고, 최대 크기를 넘으면 오래된 키부터 잊어야 한다.")
+    void forgetFailuresAndBoundSize() {
+
+        // when
+        assertThatThrownBy(() -> cache.getOrCompute("fail", () -> {
+            throw new IllegalStateException("fail");
+        })).isInstanceOf(IllegalStateException.class);
+
+        for (int i = 0; i < 1_000; i++) {
+            String key = "key" + i;
+            cache.getOrCompute(key, () -> key);
+        }
+
+        // then
+        assertThat(cache.getOrCompute("fail", () -> "retried")).isEqualTo("retried");
+        assertThat(cache.size()).isLessThanOrEqualTo(32);
+    }
+
+    @Test
+    @DisplayName("작업이 끝나지 않은 키는 최대 크기를 넘어도 잊지 않아서, 재시도가 작업을 중복 수행하지 않아야 한다.")
+    void keepInFlightKeys() throws Exception {
+
+        // given : 처음 요청의 작업이 끝나지 않은 상태
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> first = executor.submit(() -> cache.getOrCompute("slow", () -> {
+            executions.incrementAndGet();
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow-order";
+        }));
+        running.await();
+
+        // when : 다른 키를 최대 크기보다 훨씬 많이 기억시킨 뒤, ttl 이 지나도록 끝나지 않은 상태에서 재시도
+        for (int i = 0; i < 1_000; i++) {
+            String key = "key" + i;
+            cache.getOrCompute(key, () -> key);
+        }
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(2_000));
+
+        AtomicReference<String> retried = new AtomicReference<>();
+        Thread retry = new Thread(() -> retried.set(cache.getOrCompute("slow", () -> {
+            executions.incrementAndGet();
+            return "duplicated";
+        })));
+        retry.start();
+
+        // 재시도가 처음 요청의 결과를 기다리기 시작한 뒤에 처음 요청을 끝낸다.
+        while (retry.getState() != Thread.State.WAITING && retry.getState() != Thread.State.TERMINATED) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        retry.join();
+
+        // then
+        assertThat(first.get()).isEqualTo("slow-order");
+        assertThat(retried.get()).isEqualTo("slow-order");
+        assertThat(executions.get()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("같은 키로 내용이 다른 요청을 보내면 처음 결과를 주지 않고 거절해야 한다.")
+    void rejectDifferentRequestForSameKey() {
+
+        // given
+        cache.getOrCompute("key", "memberA:itemA:10000", () -> "order-1");
+
+        // when, then
+        assertThat(cache.getOrCompute("key", "memberA:itemA:10000", () -> "order-2")).isEqualTo("order-1");
+        assertThatThrownBy(() -> cache.getOrCompute("key", "memberA:itemB:20000", () -> "order-3"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
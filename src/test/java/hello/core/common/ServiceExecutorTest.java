@@ -0,0 +1,60 @@
+package hello.core.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ServiceExecutorTest {
+
+    ServiceExecutor serviceExecutor = new ServiceExecutor(1, 1);
+
+    @AfterEach
+    void afterEach() {
+        serviceExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("대기 큐가 가득 차면 작업이 거절되고 거절 횟수가 기록되어야 한다.")
+    void rejectWhenQueueIsFull() throws Exception {
+
+        // given : 스레드 1개가 작업 중이고, 대기 큐 1칸이 차 있는 상태
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture<String> running = serviceExecutor.supply(() -> {
+            started.countDown();
+            await(release);
+            return "running";
+        });
+        started.await();
+        CompletableFuture<String> queued = serviceExecutor.supply(() -> "queued");
+
+        // when
+        CompletableFuture<String> rejected = serviceExecutor.supply(() -> "rejected");
+
+        // then
+        assertThat(serviceExecutor.queueDepth()).isEqualTo(1);
+        assertThat(rejected.isCompletedExceptionally()).isTrue();
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(serviceExecutor.rejectedCount()).isEqualTo(1);
+        assertThat(serviceExecutor.submittedCount()).isEqualTo(2);
+
+        release.countDown();
+        assertThat(running.join()).isEqualTo("running");
+        assertThat(queued.join()).isEqualTo("queued");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
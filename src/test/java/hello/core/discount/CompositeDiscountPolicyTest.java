@@ -0,0 +1,71 @@
+package hello.core.discount;
+
+import hello.core.member.CompactMember;
+import hello.core.member.Grade;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CompositeDiscountPolicyTest {
+
+    CompositeDiscountPolicy discountPolicy = new CompositeDiscountPolicy(policies());
+
+    CompactMember vip = new CompactMember(1L, "memberVIP", Grade.VIP);
+    CompactMember basic = new CompactMember(2L, "memberBASIC", Grade.BASIC);
+
+    @Test
+    @DisplayName("코드를 핸들로 바꿔 두면 핸들로 선택한 정책의 할인이 적용되어야 한다.")
+    void dispatchByHandle() {
+
+        // given
+        int fix = discountPolicy.handleOf("fixDiscountPolicy");
+        int rate = discountPolicy.handleOf("rateDiscountPolicy");
+
+        // when, then
+        assertThat(fix).isEqualTo(0);
+        assertThat(rate).isEqualTo(1);
+        assertThat(discountPolicy.codeOf(rate)).isEqualTo("rateDiscountPolicy");
+        assertThat(discountPolicy.discount(fix, vip, "itemA", 20000)).isEqualTo(1000);
+        assertThat(discountPolicy.discount(rate, vip, "itemA", 20000)).isEqualTo(2000);
+        assertThatThrownBy(() -> discountPolicy.handleOf("unknown")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("모든 정책 중 할인 금액이 가장 큰 정책을 적용하고, 적용된 정책을 알려줘야 한다.")
+    void decideBestDiscount() {
+
+        // when
+        DiscountDecision cheap = discountPolicy.decide(vip, "itemA", 5000);
+        DiscountDecision expensive = discountPolicy.decide(vip, "itemA", 20000);
+        DiscountDecision none = discountPolicy.decide(basic, "itemA", 20000);
+
+        // then
+        assertThat(cheap.getCode()).isEqualTo("fixDiscountPolicy");
+        assertThat(cheap.getDiscountPrice()).isEqualTo(1000);
+        assertThat(expensive.getCode()).isEqualTo("rateDiscountPolicy");
+        assertThat(expensive.getDiscountPrice()).isEqualTo(2000);
+        assertThat(none).isSameAs(DiscountDecision.NONE);
+
+        // 같은 금액이면 먼저 등록한 정책
+        assertThat(discountPolicy.decide(vip, "itemA", 10000).getCode()).isEqualTo("fixDiscountPolicy");
+
+        // DiscountPolicy 로 사용해도 최대 할인이 적용된다.
+        assertThat(discountPolicy.discount(vip.toMember(), 20000)).isEqualTo(2000);
+
+        assertThat(discountPolicy.winCount("fixDiscountPolicy")).isEqualTo(2L);
+        assertThat(discountPolicy.winCount("rateDiscountPolicy")).isEqualTo(2L);
+    }
+
+    private static Map<String, DiscountPolicy> policies() {
+
+        Map<String, DiscountPolicy> policies = new LinkedHashMap<>();
+        policies.put("fixDiscountPolicy", new FixDiscountPolicy());
+        policies.put("rateDiscountPolicy", new RateDiscountPolicy());
+
+        return policies;
+    }
+}
@@ -0,0 +1,80 @@
+package hello.core.discount;
+
+import hello.core.member.CompactMember;
+import hello.core.member.Grade;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DiscountPolicyBatchTest {
+
+    static final int LINES = 100_000;
+
+    byte[] gradeOrdinals = new byte[LINES];
+    int[] prices = new int[LINES];
+
+    DiscountPolicyBatchTest() {
+
+        Random random = new Random(42);
+        Grade[] grades = Grade.values();
+
+        for (int i = 0; i < LINES; i++) {
+            gradeOrdinals[i] = (byte) grades[random.nextInt(grades.length)].ordinal();
+            prices[i] = random.nextInt(1_000_000);
+        }
+    }
+
+    @Test
+    @DisplayName("일괄 할인 계산 결과는 건마다 discount 를 호출한 결과와 같아야 한다.")
+    void sameAsPerCall() {
+
+        // given
+        DiscountSettingsHolder settings = new DiscountSettingsHolder();
+        settings.publish(new DiscountSettings(15, 2500));
+
+        DiscountPolicy[] policies = {
+                new RateDiscountPolicy(settings),
+                new FixDiscountPolicy(settings),
+                // 재정의하지 않은 구현체는 기본 구현 사용
+                RuleDiscountPolicy.of("grade=VIP minPrice=500000 percent=20", "grade=BASIC fixed=300")
+        };
+
+        for (DiscountPolicy policy : policies) {
+
+            // when
+            int[] discounts = new int[LINES];
+            policy.discountAll(gradeOrdinals, prices, discounts, LINES);
+
+            // then
+            for (int i = 0; i < LINES; i++) {
+                CompactMember member = new CompactMember(i, "member", Grade.values()[gradeOrdinals[i]]);
+                assertThat(discounts[i]).isEqualTo(policy.discount(member, prices[i]));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("length 만큼만 계산하고, 가격 배열에 결과를 덮어써도 같은 결과여야 한다.")
+    void lengthAndInPlace() {
+
+        // given
+        RateDiscountPolicy policy = new RateDiscountPolicy();
+        int[] expected = new int[LINES];
+        policy.discountAll(gradeOrdinals, prices, expected, LINES);
+
+        int[] inPlace = prices.clone();
+        int[] partial = new int[LINES];
+
+        // when
+        policy.discountAll(gradeOrdinals, inPlace, inPlace, LINES);
+        policy.discountAll(gradeOrdinals, prices, partial, 10);
+
+        // then
+        assertThat(inPlace).isEqualTo(expected);
+        assertThat(partial[9]).isEqualTo(expected[9]);
+        assertThat(partial[10]).isEqualTo(0);
+    }
+}
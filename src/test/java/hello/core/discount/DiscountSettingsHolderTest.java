@@ -0,0 +1,97 @@
+package hello.core.discount;
+
+import hello.core.member.CompactMember;
+import hello.core.member.Grade;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DiscountSettingsHolderTest {
+
+    @TempDir
+    Path dir;
+
+    CompactMember vip = new CompactMember(1L, "memberVIP", Grade.VIP);
+
+    @Test
+    @DisplayName("할인 설정을 바꾸면 재시작 없이 다음 할인 계산부터 새 값이 적용되어야 한다.")
+    void updateAppliesImmediately() {
+
+        // given
+        DiscountSettingsHolder settings = new DiscountSettingsHolder();
+        RateDiscountPolicy rate = new RateDiscountPolicy(settings);
+        FixDiscountPolicy fix = new FixDiscountPolicy(settings);
+
+        assertThat(rate.discount(vip, 10000)).isEqualTo(1000);
+        assertThat(fix.discount(vip, 10000)).isEqualTo(1000);
+
+        // when
+        DiscountSettings rateChanged = settings.update(current -> current.withRatePercent(20));
+        DiscountSettings fixChanged = settings.update(current -> current.withFixAmount(3000));
+
+        // then
+        assertThat(rateChanged.getVersion()).isEqualTo(1L);
+        assertThat(fixChanged.getVersion()).isEqualTo(2L);
+        assertThat(settings.current().getRatePercent()).isEqualTo(20);
+        assertThat(rate.discount(vip, 10000)).isEqualTo(2000);
+        assertThat(fix.discount(vip.toMember(), 10000)).isEqualTo(3000);
+
+        // 잘못된 값은 발행되지 않는다.
+        assertThatThrownBy(() -> settings.update(current -> current.withRatePercent(101)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(settings.current()).isSameAs(fixChanged);
+    }
+
+    @Test
+    @DisplayName("감시 중인 설정 파일이 바뀌면 다시 읽어서 발행하고, 잘못된 파일이면 이전 설정을 유지해야 한다.")
+    void reloadWatchedFile() throws Exception {
+
+        // given
+        Path file = dir.resolve("discount.properties");
+        write(file, "discount.rate.percent=15\n");
+
+        DiscountSettingsHolder settings = new DiscountSettingsHolder(file.toString());
+        settings.start();
+
+        try {
+            assertThat(settings.current().getRatePercent()).isEqualTo(15);
+            assertThat(settings.current().getFixAmount()).isEqualTo(1000);
+
+            // when
+            write(file, "discount.rate.percent=30\ndiscount.fix.amount=500\n");
+            DiscountSettings reloaded = awaitRatePercent(settings, 30);
+
+            // then
+            assertThat(reloaded.getRatePercent()).isEqualTo(30);
+            assertThat(reloaded.getFixAmount()).isEqualTo(500);
+
+            // 잘못된 값 => 이전 설정 유지
+            write(file, "discount.rate.percent=thirty\n");
+            assertThatThrownBy(settings::reload).isInstanceOf(IllegalArgumentException.class);
+            assertThat(settings.current().getRatePercent()).isEqualTo(30);
+        } finally {
+            settings.close();
+        }
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static DiscountSettings awaitRatePercent(DiscountSettingsHolder settings, int ratePercent) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + 15_000;
+
+        while (settings.current().getRatePercent() != ratePercent && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        return settings.current();
+    }
+}
@@ -0,0 +1,129 @@
+package hello.core.discount;
+
+import hello.core.member.CompactMember;
+import hello.core.member.Grade;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromotionSchedulerTest {
+
+    static final long T0 = 1_000_000;
+    static final long TICK = 100;
+
+    AtomicLong clock = new AtomicLong(T0);
+    SwitchableDiscountPolicy discountPolicy = new SwitchableDiscountPolicy(new RateDiscountPolicy());
+
+    CompactMember vip = new CompactMember(1L, "memberVIP", Grade.VIP);
+
+    @Test
+    @DisplayName("예약한 시각에 프로모션 정책으로 바뀌고, 종료되면 다음 순위의 정책으로 되돌아가야 한다.")
+    void activateAndExpire() {
+
+        // given
+        PromotionScheduler scheduler = new PromotionScheduler(discountPolicy, TICK, 8, clock::get);
+        Promotion flashSale = scheduler.schedule("flashSale", RuleDiscountPolicy.of("grade=VIP percent=50"),
+                T0 + 2000, T0 + 2500, 1);
+        Promotion weekend = scheduler.schedule("weekend", RuleDiscountPolicy.of("grade=VIP percent=20"),
+                T0 + 1000, T0 + 3000, 0);
+
+        // when, then
+        assertThat(discountAt(scheduler, T0 + 1050)).isEqualTo(1000);   // 시작 tick 이 끝나기 전
+        assertThat(discountAt(scheduler, T0 + 1100)).isEqualTo(2000);   // weekend
+        assertThat(scheduler.currentPromotion()).isSameAs(weekend);
+        assertThat(discountAt(scheduler, T0 + 2100)).isEqualTo(5000);   // 겹치면 우선순위가 높은 flashSale
+        assertThat(discountAt(scheduler, T0 + 2600)).isEqualTo(2000);   // flashSale 종료 => weekend
+        assertThat(flashSale.getState()).isEqualTo(Promotion.State.EXPIRED);
+        assertThat(discountAt(scheduler, T0 + 3100)).isEqualTo(1000);   // 모두 종료 => 기본 정책
+        assertThat(scheduler.currentPromotion()).isNull();
+        assertThat(weekend.getState()).isEqualTo(Promotion.State.EXPIRED);
+    }
+
+    @Test
+    @DisplayName("시작 전에 취소하면 적용되지 않고, 적용 중에 취소하면 다음 tick 에 종료되어야 한다.")
+    void cancel() {
+
+        // given
+        PromotionScheduler scheduler = new PromotionScheduler(discountPolicy, TICK, 8, clock::get);
+        Promotion before = scheduler.schedule("before", RuleDiscountPolicy.of("grade=VIP percent=90"),
+                T0 + 500, T0 + 5000, 1);
+        Promotion during = scheduler.schedule("during", RuleDiscountPolicy.of("grade=VIP percent=30"),
+                T0 + 500, T0 + 5000, 0);
+
+        // when
+        boolean cancelledBefore = scheduler.cancel(before);
+        int discountActive = discountAt(scheduler, T0 + 1000);
+        boolean cancelledDuring = scheduler.cancel(during);
+        int discountCancelled = discountAt(scheduler, T0 + 1100);
+
+        // then
+        assertThat(cancelledBefore).isTrue();
+        assertThat(cancelledDuring).isTrue();
+        assertThat(discountActive).isEqualTo(3000);
+        assertThat(discountCancelled).isEqualTo(1000);
+        assertThat(before.getState()).isEqualTo(Promotion.State.CANCELLED);
+        assertThat(during.getState()).isEqualTo(Promotion.State.CANCELLED);
+        assertThat(scheduler.cancel(during)).isFalse();
+    }
+
+    @Test
+    @DisplayName("휠 한 바퀴보다 먼 프로모션 수천 개도 각자의 시작 / 종료 tick 에 정확히 처리되어야 한다.")
+    void manyPromotions() {
+
+        // given
+        PromotionScheduler scheduler = new PromotionScheduler(discountPolicy, TICK, 16, clock::get);
+        Random random = new Random(7);
+        List<Promotion> promotions = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            long start = T0 + random.nextInt(600_000);
+            long end = start + 1 + random.nextInt(30_000);
+            promotions.add(scheduler.schedule("promotion-" + i, new FixDiscountPolicy(), start, end, random.nextInt(10)));
+        }
+
+        // when, then
+        for (long now = T0; now <= T0 + 700_000; now += 7_777) {
+            clock.set(now);
+            scheduler.advanceTo(now);
+
+            for (Promotion promotion : promotions) {
+                assertThat(promotion.getState()).isEqualTo(expectedState(promotion, now));
+            }
+        }
+
+        assertThat(scheduler.currentPromotion()).isNull();
+        assertThat(discountPolicy.getDelegate()).isInstanceOf(RateDiscountPolicy.class);
+    }
+
+    private int discountAt(PromotionScheduler scheduler, long now) {
+        clock.set(now);
+        scheduler.advanceTo(now);
+        return discountPolicy.discount(vip, 10000);
+    }
+
+    /**
+     * 이벤트는 실행 시각이 속한 tick 이 끝날 때 실행된다.
+     */
+    private static Promotion.State expectedState(Promotion promotion, long now) {
+
+        if (now >= firedAt(promotion.getEndMillis())) {
+            return Promotion.State.EXPIRED;
+        }
+
+        if (now >= firedAt(promotion.getStartMillis())) {
+            return Promotion.State.ACTIVE;
+        }
+
+        return Promotion.State.SCHEDULED;
+    }
+
+    private static long firedAt(long millis) {
+        return T0 + ((millis - T0) / TICK + 1) * TICK;
+    }
+}
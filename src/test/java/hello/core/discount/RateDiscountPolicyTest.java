@@ -1,5 +1,6 @@
 package hello.core.discount;
 
+import hello.core.member.CompactMember;
 import hello.core.member.Grade;
 import hello.core.member.Member;
 import org.assertj.core.api.Assertions;
@@ -40,4 +41,22 @@ class RateDiscountPolicyTest {
         // then
         assertThat(discount).isEqualTo(0);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("불변 회원 값으로 계산해도 Member 와 같은 할인이 적용되어야 한다.")
+    void compactMember() {
+
+        // given
+        CompactMember vip = new CompactMember(1L, "memberVIP", Grade.VIP);
+        CompactMember basic = new CompactMember(2L, "memberBASIC", Grade.BASIC);
+
+        // when
+        int vipDiscount = discountPolicy.discount(vip, 10000);
+        int basicDiscount = discountPolicy.discount(basic, 10000);
+
+        // then
+        assertThat(vipDiscount).isEqualTo(discountPolicy.discount(vip.toMember(), 10000));
+        assertThat(vipDiscount).isEqualTo(1000);
+        assertThat(basicDiscount).isEqualTo(0);
+    }
+}
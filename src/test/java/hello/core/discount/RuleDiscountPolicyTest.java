@@ -0,0 +1,76 @@
+package hello.core.discount;
+
+import hello.core.member.CompactMember;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RuleDiscountPolicyTest {
+
+    @Test
+    @DisplayName("RateDiscountPolicy / FixDiscountPolicy 와 같은 규칙은 모든 등급과 가격에서 같은 할인이 적용되어야 한다.")
+    void matchesHandWrittenPolicies() {
+
+        // given
+        RuleDiscountPolicy rateRule = RuleDiscountPolicy.of("grade=VIP percent=10");
+        RuleDiscountPolicy fixRule = RuleDiscountPolicy.of("grade=VIP fixed=1000");
+        RateDiscountPolicy rate = new RateDiscountPolicy();
+        FixDiscountPolicy fix = new FixDiscountPolicy();
+
+        // when, then
+        for (Grade grade : Grade.values()) {
+            Member member = new Member(1L, "member", grade);
+            CompactMember compact = CompactMember.of(member);
+
+            for (int price = 0; price <= 100_000; price += 7) {
+                assertThat(rateRule.discount(member, price)).isEqualTo(rate.discount(member, price));
+                assertThat(rateRule.discount(compact, "itemA", price)).isEqualTo(rate.discount(compact, price));
+                assertThat(fixRule.discount(member, price)).isEqualTo(fix.discount(member, price));
+                assertThat(fixRule.discount(compact, "itemA", price)).isEqualTo(fix.discount(compact, price));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("선언한 순서대로 검사해서 처음으로 조건이 맞는 규칙을 적용해야 한다.")
+    void firstMatchingRule() {
+
+        // given
+        RuleDiscountPolicy policy = RuleDiscountPolicy.parse(List.of(
+                "# 상품 itemA 는 등급과 관계없이 2000원 할인",
+                "item=itemA fixed=2000",
+                "",
+                "grade=VIP minPrice=50000 percent=20",
+                "grade=VIP percent=10",
+                "grade=BASIC minPrice=10000 maxPrice=19999 fixed=500"));
+        CompactMember vip = new CompactMember(1L, "memberVIP", Grade.VIP);
+        CompactMember basic = new CompactMember(2L, "memberBASIC", Grade.BASIC);
+
+        // when, then
+        assertThat(policy.getRules()).hasSize(4);
+        assertThat(policy.discount(vip, "itemA", 100000)).isEqualTo(2000);
+        assertThat(policy.discount(basic, "itemA", 100000)).isEqualTo(2000);
+        assertThat(policy.discount(vip, "itemB", 100000)).isEqualTo(20000);
+        assertThat(policy.discount(vip, "itemB", 10000)).isEqualTo(1000);
+        assertThat(policy.discount(basic, "itemB", 15000)).isEqualTo(500);
+        assertThat(policy.discount(basic, "itemB", 20000)).isEqualTo(0);
+
+        // 상품명 없이 계산하면 상품명 조건이 있는 규칙은 적용되지 않는다.
+        assertThat(policy.discount(basic.toMember(), 100000)).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("잘못 선언한 규칙은 예외가 발생해야 한다.")
+    void invalidRule() {
+        assertThatThrownBy(() -> DiscountRule.parse("grade=VIP")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DiscountRule.parse("percent=10 fixed=1000")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DiscountRule.parse("grade=GOLD percent=10")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DiscountRule.parse("percent=ten")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DiscountRule.parse("percent=150")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
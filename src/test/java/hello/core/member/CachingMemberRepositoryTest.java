@@ -0,0 +1,132 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CachingMemberRepositoryTest {
+
+    OffHeapMemberRepository delegate;
+    CachingMemberRepository memberRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        delegate = new OffHeapMemberRepository();
+        memberRepository = new CachingMemberRepository(delegate, 100);
+
+        for (long id = 1; id <= 2_000; id++) {
+            delegate.save(new Member(id, "member" + id, Grade.BASIC));
+        }
+    }
+
+    @Test
+    @DisplayName("두 번째 조회부터는 캐시에서 같은 회원을 반환해야 한다.")
+    void hitAfterMiss() {
+
+        // when
+        Member first = memberRepository.findById(1L);
+        Member second = memberRepository.findById(1L);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(memberRepository.missCount()).isEqualTo(1);
+        assertThat(memberRepository.hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("저장하면 캐시가 무효화되어 바뀐 회원이 조회되어야 한다.")
+    void invalidateOnSave() {
+
+        // given
+        memberRepository.findById(1L);
+
+        // when
+        memberRepository.save(new Member(1L, "changed", Grade.VIP));
+
+        // then
+        Member findMember = memberRepository.findById(1L);
+        assertThat(findMember.getName()).isEqualTo("changed");
+        assertThat(findMember.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(memberRepository.missCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("캐시 크기를 넘으면 제거되어야 하고, 자주 조회된 회원은 한 번씩 조회된 회원들에게 밀려나지 않아야 한다.")
+    void boundedFrequencyAwareEviction() {
+
+        // given : 자주 조회되는 회원
+        for (int i = 0; i < 20; i++) {
+            for (long id = 1; id <= 10; id++) {
+                memberRepository.findById(id);
+            }
+        }
+
+        // when : 한 번씩만 조회되는 회원들을 대량으로 조회
+        for (long id = 100; id < 600; id++) {
+            memberRepository.findById(id);
+        }
+
+        // then
+        assertThat(memberRepository.size()).isLessThanOrEqualTo(100);
+        assertThat(memberRepository.evictionCount()).isGreaterThan(0);
+
+        long hitsBefore = memberRepository.hitCount();
+        for (long id = 1; id <= 10; id++) {
+            memberRepository.findById(id);
+        }
+        assertThat(memberRepository.hitCount() - hitsBefore).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 조회해도 모든 조회가 집계되고, 캐시 크기를 넘지 않아야 한다.")
+    void concurrentReads() throws Exception {
+
+        // given
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // when : 대부분은 자주 조회되는 회원 20 명, 가끔 나머지 회원
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                Random random = new Random(seed);
+                int wrong = 0;
+
+                for (int i = 0; i < perThread; i++) {
+                    long id = random.nextInt(10) == 0 ? 1 + random.nextInt(2_000) : 1 + random.nextInt(20);
+
+                    if (memberRepository.findById(id).getId() != id) {
+                        wrong++;
+                    }
+                }
+                return wrong;
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<Integer> result : results) {
+            assertThat(result.get()).isEqualTo(0);
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(memberRepository.hitCount() + memberRepository.missCount()).isEqualTo((long) threads * perThread);
+        assertThat(memberRepository.hitCount()).isGreaterThan(memberRepository.missCount());
+        assertThat(memberRepository.size()).isLessThanOrEqualTo(100);
+    }
+}
@@ -0,0 +1,142 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MappedMemberRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("다시 열면 로그를 읽어서 저장했던 회원을 복구해야 한다.")
+    void recoverAfterReopen() {
+
+        // given
+        Path log = tempDir.resolve("members.log");
+
+        try (MappedMemberRepository memberRepository = new MappedMemberRepository(log)) {
+            memberRepository.save(new Member(1L, "memberA", Grade.BASIC));
+            memberRepository.save(new Member(2L, "회원B", Grade.VIP));
+            memberRepository.save(new Member(1L, "memberA2", Grade.VIP));
+        }
+
+        // when
+        try (MappedMemberRepository memberRepository = new MappedMemberRepository(log)) {
+
+            // then : 같은 id 는 마지막으로 저장한 내용으로 복구된다.
+            assertThat(memberRepository.size()).isEqualTo(2);
+            assertThat(memberRepository.findById(1L).getName()).isEqualTo("memberA2");
+            assertThat(memberRepository.findById(1L).getGrade()).isEqualTo(Grade.VIP);
+            assertThat(memberRepository.findById(2L).getName()).isEqualTo("회원B");
+            assertThat(memberRepository.findById(3L)).isNull();
+            assertThat(memberRepository.findByGrade(Grade.VIP).map(Member::getId).collect(Collectors.toList()))
+                    .containsExactlyInAnyOrder(1L, 2L);
+            assertThat(memberRepository.findByGrade(Grade.BASIC)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("불변 회원 값으로 조회하면 마지막으로 기록한 레코드의 id, 이름, 등급이 조회되어야 한다.")
+    void findCompactById() {
+
+        // given
+        try (MappedMemberRepository memberRepository = new MappedMemberRepository(tempDir.resolve("members.log"))) {
+            memberRepository.save(new Member(1L, "memberA", Grade.BASIC));
+            memberRepository.save(new Member(2L, null, Grade.VIP));
+            memberRepository.save(new Member(1L, "memberA2", Grade.VIP));
+
+            // when
+            CompactMember first = memberRepository.findCompactById(1L);
+            CompactMember second = memberRepository.findCompactById(2L);
+
+            // then
+            assertThat(first).isEqualTo(new CompactMember(1L, "memberA2", Grade.VIP));
+            assertThat(second.getName()).isNull();
+            assertThat(second.getGrade()).isEqualTo(Grade.VIP);
+            assertThat(memberRepository.findCompactById(3L)).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("기록 도중 중단된 마지막 레코드는 무시하고 복구해야 한다.")
+    void ignoreTornRecord() throws Exception {
+
+        // given
+        Path log = tempDir.resolve("members.log");
+        int end;
+
+        try (MappedMemberRepository memberRepository = new MappedMemberRepository(log)) {
+            memberRepository.save(new Member(1L, "memberA", Grade.BASIC));
+        }
+
+        // 레코드 크기 = 헤더 8 + 고정 본문 11 + 이름 7
+        end = 8 + 11 + "memberA".length();
+
+        // 길이만 기록되고 본문은 기록되지 않은 레코드를 흉내낸다.
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(8).putInt(30).putInt(12345);
+            torn.flip();
+            channel.write(torn, end);
+        }
+
+        // when
+        try (MappedMemberRepository memberRepository = new MappedMemberRepository(log)) {
+            memberRepository.save(new Member(2L, "memberB", Grade.VIP));
+        }
+
+        // then
+        try (MappedMemberRepository memberRepository = new MappedMemberRepository(log)) {
+            assertThat(memberRepository.size()).isEqualTo(2);
+            assertThat(memberRepository.findById(1L).getName()).isEqualTo("memberA");
+            assertThat(memberRepository.findById(2L).getName()).isEqualTo("memberB");
+        }
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 저장해도 모든 회원이 복구되어야 한다.")
+    void concurrentSave() throws Exception {
+
+        // given
+        Path log = tempDir.resolve("members.log");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when : 동시에 저장하는 스레드들의 레코드는 그룹 커밋으로 묶여서 반영된다.
+        try (MappedMemberRepository memberRepository = new MappedMemberRepository(log)) {
+            List<Future<?>> results = new ArrayList<>();
+
+            for (int t = 0; t < 8; t++) {
+                long from = t * 100L;
+                results.add(executor.submit(() -> {
+                    for (long id = from; id < from + 100; id++) {
+                        memberRepository.save(new Member(id, "member" + id, Grade.BASIC));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        executor.shutdown();
+
+        // then
+        try (MappedMemberRepository memberRepository = new MappedMemberRepository(log)) {
+            assertThat(memberRepository.size()).isEqualTo(800);
+            assertThat(memberRepository.findById(799L).getName()).isEqualTo("member799");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MemberFileLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("CSV 파일을 여러 청크로 나눠서 읽어도 모든 회원이 저장되어야 한다.")
+    void loadCsv() throws Exception {
+
+        // given
+        StringBuilder csv = new StringBuilder("id,name,grade\n");
+        for (long id = 1; id <= 5_000; id++) {
+            csv.append(id).append(",회원").append(id).append(',').append(id % 2 == 0 ? "VIP" : "BASIC").append("\r\n");
+        }
+        Path file = tempDir.resolve("members.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        OffHeapMemberRepository memberRepository = new OffHeapMemberRepository();
+        MemberFileLoader loader = new MemberFileLoader(memberRepository, "", 4, 4 * 1024);
+
+        // when
+        MemberFileLoader.LoadResult result = loader.load(file);
+
+        // then
+        assertThat(result.getRecords()).isEqualTo(5_000L);
+        assertThat(result.getChunks()).isGreaterThan(1);
+        assertThat(memberRepository.size()).isEqualTo(5_000);
+        assertThat(memberRepository.findById(4_999L).getName()).isEqualTo("회원4999");
+        assertThat(memberRepository.findById(4_999L).getGrade()).isEqualTo(Grade.BASIC);
+        assertThat(memberRepository.findById(5_000L).getGrade()).isEqualTo(Grade.VIP);
+    }
+
+    @Test
+    @DisplayName("바이너리 파일을 여러 청크로 나눠서 읽어도 모든 회원이 저장되어야 한다.")
+    void loadBinary() {
+
+        // given
+        List<Member> members = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            members.add(new Member(id, "member" + id, id % 3 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+        Path file = tempDir.resolve("members.bin");
+        MemberFileLoader.writeBinary(file, members);
+
+        OffHeapMemberRepository memberRepository = new OffHeapMemberRepository();
+        MemberFileLoader loader = new MemberFileLoader(memberRepository, "", 4, 4 * 1024);
+
+        // when
+        MemberFileLoader.LoadResult result = loader.load(file);
+
+        // then
+        assertThat(result.getRecords()).isEqualTo(5_000L);
+        assertThat(result.getChunks()).isGreaterThan(1);
+
+        for (Member member : members) {
+            Member findMember = memberRepository.findById(member.getId());
+            assertThat(findMember.getName()).isEqualTo(member.getName());
+            assertThat(findMember.getGrade()).isEqualTo(member.getGrade());
+        }
+    }
+
+    @Test
+    @DisplayName("CSV 의 잘못된 줄은 건너뛰지 않고 그 줄의 파일 위치와 함께 실패해야 한다.")
+    void rejectMalformedCsv() {
+
+        // given : 각 입력의 둘째 줄( offset 14 )이 잘못되어 있다.
+        String header = "id,name,grade\n";
+
+        // when / then
+        assertThatThrownBy(() -> parseCsv(header + "1a,memberA,VIP\n"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("숫자가 아닙니다").hasMessageContaining("offset = 14");
+        assertThatThrownBy(() -> parseCsv(header + "99999999999999999999,memberA,VIP\n"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("너무 큽니다").hasMessageContaining("offset = 14");
+        assertThatThrownBy(() -> parseCsv(header + "1,memberA\n"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("쉼표").hasMessageContaining("offset = 14");
+        assertThatThrownBy(() -> parseCsv(header + "1\n"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("쉼표").hasMessageContaining("offset = 14");
+        assertThatThrownBy(() -> parseCsv(header + "1,memberA,GOLD\n"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("GOLD").hasMessageContaining("offset = 14");
+        assertThatThrownBy(() -> parseCsv("1,memberA,VIP\n" + "-2,memberB,VIP\n"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("offset = 14");
+        assertThat(parseCsv(header + "1,memberA,VIP\n\n")).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("CSV 의 첫 줄이 아닌 곳에 있는 헤더 모양의 줄은 청크 중간이어도 실패해야 한다.")
+    void rejectMalformedCsvInLaterChunk() throws Exception {
+
+        // given
+        StringBuilder csv = new StringBuilder("id,name,grade\n");
+        for (long id = 1; id <= 2_000; id++) {
+            csv.append(id).append(",member").append(id).append(",BASIC\n");
+        }
+        csv.append("id,name,grade\n");
+        Path file = tempDir.resolve("members.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        MemberFileLoader loader = new MemberFileLoader(new OffHeapMemberRepository(), "", 4, 4 * 1024);
+        long offset = csv.length() - "id,name,grade\n".length();
+
+        // when / then
+        assertThatThrownBy(() -> loader.load(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("offset = " + offset);
+    }
+
+    @Test
+    @DisplayName("바이너리 파일의 잘린 레코드나 없는 등급은 레코드의 파일 위치와 함께 실패해야 한다.")
+    void rejectMalformedBinary() throws Exception {
+
+        // given
+        List<Member> members = List.of(new Member(1L, "memberA", Grade.BASIC), new Member(2L, "memberB", Grade.VIP));
+        Path truncated = tempDir.resolve("truncated.bin");
+        MemberFileLoader.writeBinary(truncated, members);
+        Files.write(truncated, new byte[10], StandardOpenOption.APPEND);
+
+        Path badGrade = tempDir.resolve("bad-grade.bin");
+        MemberFileLoader.writeBinary(badGrade, members);
+        try (FileChannel channel = FileChannel.open(badGrade, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{99}), MemberFileLoader.BINARY_HEADER_SIZE + MemberFileLoader.BINARY_RECORD_SIZE + 8);
+        }
+
+        MemberFileLoader loader = new MemberFileLoader(new OffHeapMemberRepository(), "", 4, 4 * 1024);
+
+        // when / then
+        assertThatThrownBy(() -> loader.load(truncated))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("잘려").hasMessageContaining("offset = 136");
+        assertThatThrownBy(() -> loader.load(badGrade))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("등급").hasMessageContaining("offset = 72");
+        assertThatThrownBy(() -> MemberFileLoader.parseBinary(ByteBuffer.allocate(100), 8))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("offset = 72");
+    }
+
+    private static List<Member> parseCsv(String csv) {
+        return MemberFileLoader.parseCsv(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), 0);
+    }
+}
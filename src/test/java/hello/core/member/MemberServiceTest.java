@@ -1,10 +1,13 @@
 package hello.core.member;
 
 import hello.core.AppConfig;
+import hello.core.common.LongObjectMap;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 public class MemberServiceTest {
 
     MemberService memberService;
@@ -31,4 +34,34 @@ public class MemberServiceTest {
         // then
         Assertions.assertThat(member).isEqualTo(findMember);
     }
+
+    @Test
+    void joinAll() {
+
+        // given
+        Member memberA = new Member(2L, "memberA", Grade.VIP);
+        Member memberB = new Member(3L, "memberB", Grade.BASIC);
+
+        // when
+        memberService.joinAll(List.of(memberA, memberB));
+        LongObjectMap<Member> findMembers = memberService.findMembers(2L, 3L);
+
+        // then
+        Assertions.assertThat(findMembers.get(2L)).isEqualTo(memberA);
+        Assertions.assertThat(findMembers.get(3L)).isEqualTo(memberB);
+    }
+
+    @Test
+    void findMemberAsync() {
+
+        // given
+        Member member = new Member(4L, "memberA", Grade.VIP);
+        memberService.join(member);
+
+        // when
+        Member findMember = memberService.findMemberAsync(4L).join();
+
+        // then
+        Assertions.assertThat(findMember).isEqualTo(member);
+    }
 }
@@ -0,0 +1,260 @@
+package hello.core.member;
+
+import com.sun.management.ThreadMXBean;
+import hello.core.common.LongObjectMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MemoryMemberRepositoryTest {
+
+    MemoryMemberRepository memberRepository = new MemoryMemberRepository();
+
+    @Test
+    @DisplayName("저장한 회원을 id 로 조회할 수 있어야 한다.")
+    void saveAndFind() {
+
+        // given
+        Member member = new Member(100_001L, "memberA", Grade.VIP);
+
+        // when
+        memberRepository.save(member);
+
+        // then
+        assertThat(memberRepository.findById(100_001L)).isSameAs(member);
+        assertThat(memberRepository.findById(Long.valueOf(100_001L))).isSameAs(member);
+        assertThat(memberRepository.findById(100_002L)).isNull();
+        assertThat(memberRepository.findById((Long) null)).isNull();
+    }
+
+    @Test
+    @DisplayName("같은 id 로 다시 저장하면 새 회원으로 교체되어야 한다.")
+    void overwrite() {
+
+        // given
+        memberRepository.save(new Member(100_010L, "before", Grade.BASIC));
+
+        // when
+        Member after = new Member(100_010L, "after", Grade.VIP);
+        memberRepository.save(after);
+
+        // then
+        assertThat(memberRepository.findById(100_010L)).isSameAs(after);
+    }
+
+    @Test
+    @DisplayName("일괄 저장한 회원을 일괄 조회할 수 있어야 한다.")
+    void saveAllAndFindAllById() {
+
+        // given
+        List<Member> members = new ArrayList<>();
+        for (long id = 200_000L; id < 200_100L; id++) {
+            members.add(new Member(id, "member" + id, id % 2 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+
+        // when
+        memberRepository.saveAll(members);
+        LongObjectMap<Member> found = memberRepository.findAllById(200_000L, 200_050L, 200_099L, 299_999L);
+
+        // then : 존재하지 않는 id 는 결과에 포함되지 않는다.
+        assertThat(found.size()).isEqualTo(3);
+        assertThat(found.get(200_000L)).isSameAs(members.get(0));
+        assertThat(found.get(200_050L)).isSameAs(members.get(50));
+        assertThat(found.get(200_099L)).isSameAs(members.get(99));
+        assertThat(found.get(299_999L)).isNull();
+
+        for (Member member : members) {
+            assertThat(memberRepository.findById(member.getId())).isSameAs(member);
+        }
+    }
+
+    @Test
+    @DisplayName("등급을 바꿔서 다시 저장하면 바뀐 등급으로만 조회되어야 한다.")
+    void findByGrade() {
+
+        // given
+        Member member = new Member(300_001L, "memberA", Grade.BASIC);
+        Member other = new Member(300_002L, "memberB", Grade.VIP);
+        memberRepository.saveAll(List.of(member, other));
+
+        // when
+        member.setGrade(Grade.VIP);
+        memberRepository.save(member);
+
+        // then
+        List<Member> vips = memberRepository.findByGrade(Grade.VIP).collect(Collectors.toList());
+        List<Member> basics = memberRepository.findByGrade(Grade.BASIC).collect(Collectors.toList());
+
+        assertThat(vips).contains(member, other);
+        assertThat(basics).doesNotContain(member, other);
+    }
+
+    @Test
+    @DisplayName("같은 id 의 다른 회원으로 교체되면 이전 회원은 등급 인덱스에서 제거되어야 한다.")
+    void findByGradeAfterReplace() {
+
+        // given
+        Member before = new Member(300_010L, "before", Grade.VIP);
+        memberRepository.save(before);
+
+        // when
+        Member after = new Member(300_010L, "after", Grade.VIP);
+        memberRepository.save(after);
+
+        // then
+        List<Member> vips = memberRepository.findByGrade(Grade.VIP).collect(Collectors.toList());
+
+        assertThat(vips).contains(after);
+        assertThat(vips).doesNotContain(before);
+    }
+
+    @Test
+    @DisplayName("이름 접두사로 검색하면 이름 순으로 최대 limit 명까지 조회되어야 한다.")
+    void findByNamePrefix() {
+
+        // given
+        memberRepository.save(new Member(400_003L, "prefixSearch-c", Grade.BASIC));
+        memberRepository.save(new Member(400_001L, "prefixSearch-a", Grade.BASIC));
+        memberRepository.save(new Member(400_002L, "prefixSearch-b", Grade.VIP));
+        memberRepository.save(new Member(400_004L, "prefixSearcx", Grade.VIP));
+
+        // when
+        List<Member> result = memberRepository.findByNamePrefix("prefixSearch-", 2);
+
+        // then
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getName()).isEqualTo("prefixSearch-a");
+        assertThat(result.get(1).getName()).isEqualTo("prefixSearch-b");
+        assertThat(memberRepository.findByNamePrefix("prefixSearch", 10)).hasSize(3);
+        assertThat(memberRepository.findByNamePrefix("prefixSearch", 0)).isEmpty();
+        assertThat(memberRepository.findByNamePrefix("prefixSearch", -1)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("이름을 바꿔서 다시 저장하면 바뀐 이름으로만 검색되어야 한다.")
+    void findByNamePrefixAfterRename() {
+
+        // given
+        Member member = new Member(400_010L, "renameBefore", Grade.BASIC);
+        memberRepository.save(member);
+
+        // when : 저장 전에는 이전 이름으로도 검색되지 않고, 저장 후에는 새 이름으로 검색된다.
+        member.setName("renameAfter");
+        List<Member> beforeSave = memberRepository.findByNamePrefix("renameBefore", 10);
+        memberRepository.save(member);
+
+        // then
+        assertThat(beforeSave).isEmpty();
+        assertThat(memberRepository.findByNamePrefix("renameBefore", 10)).isEmpty();
+        assertThat(memberRepository.findByNamePrefix("renameAfter", 10)).containsExactly(member);
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 저장 / 조회해도 회원이 유실되지 않아야 한다.")
+    void concurrentSaveAndFind() throws Exception {
+
+        int threads = 8;
+        int perThread = 20_000;
+        long base = 1_000_000L;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // when : 스레드마다 서로 다른 id 구간을 저장하면서 바로 조회
+        for (int t = 0; t < threads; t++) {
+            long from = base + (long) t * perThread;
+
+            results.add(executor.submit(() -> {
+                start.await();
+                int missing = 0;
+
+                for (long id = from; id < from + perThread; id++) {
+                    memberRepository.save(new Member(id, "member" + id, Grade.BASIC));
+
+                    if (memberRepository.findById(id) == null) {
+                        missing++;
+                    }
+                }
+                return missing;
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<Integer> result : results) {
+            assertThat(result.get()).isEqualTo(0);
+        }
+        executor.shutdown();
+
+        // then
+        for (long id = base; id < base + (long) threads * perThread; id++) {
+            assertThat(memberRepository.findById(id).getId()).isEqualTo(id);
+        }
+    }
+
+    @Test
+    @DisplayName("불변 회원 값은 조회할 때 Member 의 현재 상태로 만들고, 이름을 intern 하지 않아야 한다.")
+    void findCompactById() {
+
+        // given
+        String name = new String("memberA");
+        Member member = new Member(500_001L, name, Grade.BASIC);
+        memberRepository.save(member);
+
+        // when
+        CompactMember first = memberRepository.findCompactById(500_001L);
+        member.setGrade(Grade.VIP);
+        CompactMember changed = memberRepository.findCompactById(500_001L);
+
+        // then
+        assertThat(first.getGrade()).isEqualTo(Grade.BASIC);
+        assertThat(first.getName()).isSameAs(name);
+        assertThat(changed.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(changed.getName()).isSameAs(name);
+        assertThat(memberRepository.findCompactById(500_002L)).isNull();
+    }
+
+    @Test
+    @DisplayName("CompactMember 1개는 Member 와 Long id 를 합친 것보다 적게 할당되어야 한다.")
+    void compactMemberFootprint() {
+
+        // given
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        int count = 100_000;
+        long threadId = Thread.currentThread().getId();
+        Member[] members = new Member[count];
+        CompactMember[] compacts = new CompactMember[count];
+
+        // when ( 배열은 미리 만들어 두고 원소 할당량만 잰다. id 는 Long 캐시 범위 밖 )
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < count; i++) {
+            members[i] = new Member(1_000_000L + i, "member", Grade.BASIC);
+        }
+        long memberBytes = (threads.getThreadAllocatedBytes(threadId) - before) / count;
+
+        before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < count; i++) {
+            compacts[i] = CompactMember.snapshot(1_000_000L + i, "member", Grade.BASIC);
+        }
+        long compactBytes = (threads.getThreadAllocatedBytes(threadId) - before) / count;
+
+        // then ( compressed oops 기준 Member 24 + Long 24 = 48 byte, CompactMember 32 byte )
+        System.out.println("Member + Long = " + memberBytes + " byte, CompactMember = " + compactBytes + " byte");
+        assertThat(compactBytes).isLessThanOrEqualTo(memberBytes - 8);
+        assertThat(members[count - 1].getId()).isEqualTo(compacts[count - 1].getId());
+    }
+}
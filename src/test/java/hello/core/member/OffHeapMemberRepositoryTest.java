@@ -0,0 +1,178 @@
+package hello.core.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OffHeapMemberRepositoryTest {
+
+    OffHeapMemberRepository memberRepository = new OffHeapMemberRepository(4);
+
+    @Test
+    @DisplayName("저장한 회원 정보를 조회 시점에 Member 로 만들어서 반환해야 한다.")
+    void saveAndFind() {
+
+        // given
+        Member member = new Member(1L, "회원A", Grade.VIP);
+
+        // when
+        memberRepository.save(member);
+        Member findMember = memberRepository.findById(1L);
+
+        // then : 저장소는 Member 객체를 보관하지 않으므로 내용만 같고 인스턴스는 다르다.
+        assertThat(findMember).isNotSameAs(member);
+        assertThat(findMember.getId()).isEqualTo(1L);
+        assertThat(findMember.getName()).isEqualTo("회원A");
+        assertThat(findMember.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(memberRepository.findById(2L)).isNull();
+    }
+
+    @Test
+    @DisplayName("이름과 등급이 바뀐 회원을 다시 저장하면 바뀐 정보로 조회되어야 한다.")
+    void resave() {
+
+        // given
+        Member member = new Member(1L, "memberA", Grade.BASIC);
+        memberRepository.save(member);
+
+        // when
+        member.setName("memberB");
+        member.setGrade(Grade.VIP);
+        memberRepository.save(member);
+
+        // then
+        Member findMember = memberRepository.findById(1L);
+        assertThat(findMember.getName()).isEqualTo("memberB");
+        assertThat(findMember.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(memberRepository.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("초기 용량보다 많은 회원을 저장해도 모두 조회되어야 한다.")
+    void grow() {
+
+        // given
+        List<Member> members = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            members.add(new Member(id, "member" + id, id % 3 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+
+        // when
+        memberRepository.saveAll(members.subList(0, 5_000));
+        for (Member member : members.subList(5_000, 10_000)) {
+            memberRepository.save(member);
+        }
+
+        // then
+        assertThat(memberRepository.size()).isEqualTo(10_000);
+
+        for (Member member : members) {
+            Member findMember = memberRepository.findById(member.getId());
+            assertThat(findMember.getName()).isEqualTo(member.getName());
+            assertThat(findMember.getGrade()).isEqualTo(member.getGrade());
+        }
+    }
+
+    @Test
+    @DisplayName("등급별로 회원을 조회할 수 있어야 한다.")
+    void findByGrade() {
+
+        // given
+        memberRepository.save(new Member(1L, "memberA", Grade.VIP));
+        memberRepository.save(new Member(2L, "memberB", Grade.BASIC));
+        memberRepository.save(new Member(3L, "memberC", Grade.VIP));
+
+        // when
+        List<Long> vipIds = memberRepository.findByGrade(Grade.VIP)
+                .map(Member::getId)
+                .collect(Collectors.toList());
+
+        // then
+        assertThat(vipIds).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("등급을 바꿔서 다시 저장하면 등급별 조회 결과도 바뀐 등급으로 옮겨져야 한다.")
+    void findByGradeAfterGradeChange() {
+
+        // given
+        List<Long> expectedVipIds = new ArrayList<>();
+        List<Long> expectedBasicIds = new ArrayList<>();
+
+        for (long id = 1; id <= 10_000; id++) {
+            memberRepository.save(new Member(id, "member" + id, Grade.VIP));
+        }
+
+        // when : 3의 배수가 아닌 회원은 BASIC 으로 바꾸고, 그 중 5의 배수는 다시 VIP 로 되돌린다.
+        for (long id = 1; id <= 10_000; id++) {
+            if (id % 3 != 0) {
+                memberRepository.save(new Member(id, "member" + id, Grade.BASIC));
+            }
+        }
+        for (long id = 1; id <= 10_000; id++) {
+            if (id % 3 != 0 && id % 5 == 0) {
+                memberRepository.save(new Member(id, "member" + id, Grade.VIP));
+            }
+        }
+
+        for (long id = 1; id <= 10_000; id++) {
+            if (id % 3 == 0 || id % 5 == 0) {
+                expectedVipIds.add(id);
+            } else {
+                expectedBasicIds.add(id);
+            }
+        }
+
+        // then
+        assertThat(memberRepository.findByGrade(Grade.VIP).map(Member::getId).collect(Collectors.toList()))
+                .containsExactlyInAnyOrderElementsOf(expectedVipIds);
+        assertThat(memberRepository.findByGrade(Grade.BASIC).map(Member::getId).collect(Collectors.toList()))
+                .containsExactlyInAnyOrderElementsOf(expectedBasicIds);
+    }
+
+    @Test
+    @DisplayName("불변 회원 값으로 조회하면 슬롯에 저장된 id, 이름, 등급이 그대로 조회되어야 한다.")
+    void findCompactById() {
+
+        // given
+        memberRepository.save(new Member(1L, "회원A", Grade.VIP));
+        memberRepository.save(new Member(2L, "회원A", Grade.BASIC));
+
+        // when
+        CompactMember first = memberRepository.findCompactById(1L);
+        CompactMember second = memberRepository.findCompactById(2L);
+
+        // then
+        assertThat(first.getId()).isEqualTo(1L);
+        assertThat(first.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(second.getGrade()).isEqualTo(Grade.BASIC);
+        assertThat(second.getName()).isEqualTo("회원A");
+        assertThat(first).isEqualTo(new CompactMember(1L, "회원A", Grade.VIP));
+        assertThat(memberRepository.findCompactById(3L)).isNull();
+    }
+
+    @Test
+    @DisplayName("인덱스가 없는 저장소도 이름 접두사 검색 결과는 이름 순이어야 한다.")
+    void findByNamePrefix() {
+
+        // given
+        memberRepository.save(new Member(3L, "kim-c", Grade.BASIC));
+        memberRepository.save(new Member(1L, "kim-a", Grade.BASIC));
+        memberRepository.save(new Member(2L, "lee", Grade.VIP));
+        memberRepository.save(new Member(4L, "kim-b", Grade.VIP));
+
+        // when
+        List<Member> result = memberRepository.findByNamePrefix("kim", 2);
+
+        // then
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getId()).isEqualTo(1L);
+        assertThat(result.get(1).getId()).isEqualTo(4L);
+        assertThat(memberRepository.findByNamePrefix("kim", -1)).isEmpty();
+    }
+}
@@ -0,0 +1,62 @@
+package hello.core.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ColumnarOrderRepositoryTest {
+
+    ColumnarOrderRepository orderRepository = new ColumnarOrderRepository();
+
+    @Test
+    @DisplayName("저장한 주문을 저장 순서대로 순회할 수 있어야 한다.")
+    void saveAndScan() {
+
+        // given
+        orderRepository.save(new Order(1L, "itemA", 10000, 1000));
+        orderRepository.save(new Order(2L, "itemB", 20000, 0));
+        orderRepository.save(new Order(1L, "itemA", 30000, 3000));
+
+        // when
+        List<String> rows = new ArrayList<>();
+        orderRepository.scan((orderId, memberId, itemName, itemPrice, discountPrice) ->
+                rows.add(memberId + ":" + itemName + ":" + itemPrice + ":" + discountPrice));
+
+        // then
+        assertThat(orderRepository.count()).isEqualTo(3L);
+        assertThat(rows).containsExactly("1:itemA:10000:1000", "2:itemB:20000:0", "1:itemA:30000:3000");
+        assertThat(orderRepository.itemCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("청크 크기를 넘어서 저장해도 컬럼 합계가 맞아야 한다.")
+    void scanAcrossChunks() {
+
+        // given
+        int total = ColumnarOrderRepository.CHUNK_SIZE + 10;
+        List<Order> orders = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            orders.add(new Order((long) i, "item" + (i % 7), 100, i % 2 == 0 ? 10 : 0));
+        }
+
+        // when
+        orderRepository.saveAll(orders);
+
+        // then
+        long[] scanned = new long[2];
+        orderRepository.scan((orderId, memberId, itemName, itemPrice, discountPrice) -> {
+            scanned[0]++;
+            scanned[1] = memberId;
+        });
+
+        assertThat(scanned[0]).isEqualTo((long) total);
+        assertThat(scanned[1]).isEqualTo((long) total - 1);
+        assertThat(orderRepository.sumItemPrice()).isEqualTo(100L * total);
+        assertThat(orderRepository.sumDiscountPrice()).isEqualTo(10L * ((total + 1) / 2));
+        assertThat(orderRepository.itemCount()).isEqualTo(7);
+    }
+}
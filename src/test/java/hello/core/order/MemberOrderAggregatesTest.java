@@ -0,0 +1,48 @@
+package hello.core.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MemberOrderAggregatesTest {
+
+    MemberOrderAggregates aggregates = new MemberOrderAggregates();
+
+    @Test
+    @DisplayName("여러 스레드가 같은 회원들의 주문을 동시에 누적해도 집계가 유실되지 않아야 한다.")
+    void concurrentRecord() throws Exception {
+
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when : 8개 스레드가 회원 100명에게 각각 1,000 건씩 누적
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    aggregates.record(i % 100, 1000, 100);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        for (long memberId = 0; memberId < 100; memberId++) {
+            MemberOrderSummary summary = aggregates.find(memberId);
+
+            assertThat(summary.getOrderCount()).isEqualTo(80L);
+            assertThat(summary.getTotalSpend()).isEqualTo(80L * 900);
+            assertThat(summary.getTotalDiscount()).isEqualTo(80L * 100);
+        }
+    }
+}
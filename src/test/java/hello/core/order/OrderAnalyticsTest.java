@@ -0,0 +1,114 @@
+package hello.core.order;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.OffHeapMemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderAnalyticsTest {
+
+    ColumnarOrderRepository orderRepository = new ColumnarOrderRepository();
+    OffHeapMemberRepository memberRepository = new OffHeapMemberRepository();
+
+    @BeforeEach
+    void beforeEach() {
+
+        // 회원 100명 ( 짝수 id 는 VIP ), 청크 3개에 걸친 주문
+        for (long id = 0; id < 100; id++) {
+            memberRepository.save(new Member(id, "member" + id, id % 2 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ColumnarOrderRepository.CHUNK_SIZE * 2 + 1_234; i++) {
+            long memberId = i % 100;
+            int price = (i % 50) * 1000;
+            orders.add(new Order(memberId, "item" + (i % 3), price, memberId % 2 == 0 ? price / 10 : 0));
+        }
+        orderRepository.saveAll(orders);
+    }
+
+    @Test
+    @DisplayName("병렬 집계 결과는 순차 집계 결과와 같아야 한다.")
+    void parallelEqualsSequential() {
+
+        // given
+        OrderAnalytics sequential = new OrderAnalytics(orderRepository, memberRepository, 1);
+        OrderAnalytics parallel = new OrderAnalytics(orderRepository, memberRepository, 4);
+
+        // then
+        assertThat(parallel.revenueByItem()).isEqualTo(sequential.revenueByItem());
+        assertThat(parallel.discountByGrade()).isEqualTo(sequential.discountByGrade());
+        assertThat(parallel.priceHistogram(10_000, 5)).containsExactly(sequential.priceHistogram(10_000, 5));
+    }
+
+    @Test
+    @DisplayName("집계 결과가 주문을 하나씩 순회한 결과와 같아야 한다.")
+    void matchesScan() {
+
+        // given
+        OrderAnalytics analytics = new OrderAnalytics(orderRepository, memberRepository, 4);
+
+        long[] expectedRevenue = new long[3];
+        long[] expectedDiscount = new long[2];
+        long[] expectedHistogram = new long[5];
+        orderRepository.scan((orderId, memberId, itemName, itemPrice, discountPrice) -> {
+            expectedRevenue[itemName.charAt(4) - '0'] += itemPrice - discountPrice;
+            expectedDiscount[memberId % 2 == 0 ? Grade.VIP.ordinal() : Grade.BASIC.ordinal()] += discountPrice;
+            expectedHistogram[Math.min(itemPrice / 10_000, 4)]++;
+        });
+
+        // when
+        Map<String, Long> revenue = analytics.revenueByItem();
+        Map<Grade, Long> discount = analytics.discountByGrade();
+        long[] histogram = analytics.priceHistogram(10_000, 5);
+
+        // then
+        assertThat(revenue.get("item0")).isEqualTo(expectedRevenue[0]);
+        assertThat(revenue.get("item2")).isEqualTo(expectedRevenue[2]);
+        assertThat(discount.get(Grade.VIP)).isEqualTo(expectedDiscount[Grade.VIP.ordinal()]);
+        assertThat(discount.get(Grade.BASIC)).isEqualTo(0L);
+        assertThat(histogram).containsExactly(expectedHistogram);
+    }
+
+    @Test
+    @DisplayName("컬럼 저장소가 아닌 주문 저장소도 컬럼 저장소와 같은 결과로 집계해야 한다.")
+    void otherRepository() {
+
+        // given
+        OrderRepository scanOnly = new OrderRepository() {
+            @Override
+            public void save(Order order) {
+                orderRepository.save(order);
+            }
+
+            @Override
+            public long count() {
+                return orderRepository.count();
+            }
+
+            @Override
+            public void scan(OrderVisitor visitor) {
+                orderRepository.scan(visitor);
+            }
+        };
+
+        OrderAnalytics columnar = new OrderAnalytics(orderRepository, memberRepository, 4);
+        OrderAnalytics copied = new OrderAnalytics(scanOnly, memberRepository, 4);
+
+        // then
+        assertThat(copied.revenueByItem()).isEqualTo(columnar.revenueByItem());
+        assertThat(copied.discountByGrade()).isEqualTo(columnar.discountByGrade());
+        assertThat(copied.priceHistogram(10_000, 5)).containsExactly(columnar.priceHistogram(10_000, 5));
+
+        columnar.close();
+        copied.close();
+    }
+}
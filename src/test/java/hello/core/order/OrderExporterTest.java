@@ -0,0 +1,65 @@
+package hello.core.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderExporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    ColumnarOrderRepository orderRepository = new ColumnarOrderRepository();
+    OrderExporter orderExporter = new OrderExporter(orderRepository);
+
+    @Test
+    @DisplayName("NDJSON 으로 내보내면 한 줄에 주문 하나씩, 상품명은 이스케이프되어야 한다.")
+    void exportNdjson() {
+
+        // given
+        orderRepository.save(new Order(101L, 1L, "itemA", 10000, 1000));
+        orderRepository.save(new Order(102L, -2L, "상품 \"B\"\n", 0, 0));
+
+        // when
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = orderExporter.export(Channels.newChannel(out), OrderExporter.Format.NDJSON);
+
+        // then
+        assertThat(rows).isEqualTo(2L);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"orderId\":101,\"memberId\":1,\"itemName\":\"itemA\",\"itemPrice\":10000,\"discountPrice\":1000}\n" +
+                "{\"orderId\":102,\"memberId\":-2,\"itemName\":\"상품 \\\"B\\\"\\n\",\"itemPrice\":0,\"discountPrice\":0}\n");
+    }
+
+    @Test
+    @DisplayName("CSV 파일로 내보내면 버퍼 크기를 넘어도 모든 주문이 순서대로 기록되어야 한다.")
+    void exportCsvFile() throws Exception {
+
+        // given
+        for (long i = 0; i < 10_000; i++) {
+            orderRepository.save(new Order(i + 1, i, i % 2 == 0 ? "item,A" : "itemB", (int) i, (int) (i % 10)));
+        }
+        Path file = tempDir.resolve("orders.csv");
+
+        // when
+        long rows = orderExporter.export(file, OrderExporter.Format.CSV);
+
+        // then
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        assertThat(rows).isEqualTo(10_000L);
+        assertThat(lines).hasSize(10_001);
+        assertThat(lines.get(0)).isEqualTo("orderId,memberId,itemName,itemPrice,discountPrice");
+        assertThat(lines.get(1)).isEqualTo("1,0,\"item,A\",0,0");
+        assertThat(lines.get(10_000)).isEqualTo("10000,9999,itemB,9999,9");
+    }
+}
@@ -0,0 +1,116 @@
+package hello.core.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderIdGeneratorTest {
+
+    AtomicLong now = new AtomicLong(OrderIdGenerator.EPOCH_MILLIS + 1_000_000);
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 발급해도 id 가 겹치지 않고, 스레드마다 증가해야 한다.")
+    void uniqueAcrossThreads() throws Exception {
+
+        // given
+        OrderIdGenerator generator = new OrderIdGenerator(7);
+        int threads = 8;
+        int perThread = 50_000;
+        long[][] ids = new long[threads][perThread];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        // when
+        for (int t = 0; t < threads; t++) {
+            long[] mine = ids[t];
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    mine[i] = generator.nextId();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // then
+        long[] all = new long[threads * perThread];
+        for (int t = 0; t < threads; t++) {
+            for (int i = 1; i < perThread; i++) {
+                assertThat(ids[t][i]).isGreaterThan(ids[t][i - 1]);
+            }
+            System.arraycopy(ids[t], 0, all, t * perThread, perThread);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertThat(all[i]).isNotEqualTo(all[i - 1]);
+        }
+        assertThat(OrderIdGenerator.nodeIdOf(all[0])).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("같은 ms 의 순번을 다 쓰면 다음 ms 로 넘어가고, id 에서 발급 시각과 노드 id 를 알 수 있어야 한다.")
+    void sequenceOverflow() {
+
+        // given
+        OrderIdGenerator generator = new OrderIdGenerator(3, now::get);
+
+        // when
+        long first = generator.nextId();
+        long last = first;
+        for (int i = 1; i < 4096 + 1; i++) {
+            last = generator.nextId();
+        }
+
+        // then
+        assertThat(OrderIdGenerator.timestampOf(first)).isEqualTo(now.get());
+        assertThat(OrderIdGenerator.timestampOf(last)).isEqualTo(now.get() + 1);
+        assertThat(OrderIdGenerator.nodeIdOf(last)).isEqualTo(3);
+        assertThat(last).isGreaterThan(first);
+    }
+
+    @Test
+    @DisplayName("시계가 조금 뒤로 가면 마지막 발급 시각에서 이어서 발급하고, 크게 뒤로 가면 예외가 발생해야 한다.")
+    void clockRegression() {
+
+        // given
+        OrderIdGenerator generator = new OrderIdGenerator(1, now::get);
+        long before = generator.nextId();
+
+        // when : 1초 뒤로
+        now.addAndGet(-1_000);
+        long after = generator.nextId();
+
+        // then
+        assertThat(after).isGreaterThan(before);
+        assertThat(OrderIdGenerator.timestampOf(after)).isEqualTo(OrderIdGenerator.timestampOf(before));
+
+        // when : 1분 뒤로
+        now.addAndGet(-60_000);
+
+        // then
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("노드 id 범위를 벗어나면 예외가 발생해야 한다.")
+    void invalidNodeId() {
+        assertThatThrownBy(() -> new OrderIdGenerator(OrderIdGenerator.MAX_NODE_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
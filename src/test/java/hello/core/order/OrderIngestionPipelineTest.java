@@ -0,0 +1,193 @@
+package hello.core.order;
+
+import hello.core.discount.DiscountPolicy;
+import hello.core.discount.RateDiscountPolicy;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.OffHeapMemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderIngestionPipelineTest {
+
+    @Test
+    @DisplayName("여러 생산자가 넣은 주문이 종료 시점까지 모두 처리되어 저장되어야 한다.")
+    void publishAndProcess() throws Exception {
+
+        // given
+        OffHeapMemberRepository memberRepository = new OffHeapMemberRepository();
+        memberRepository.save(new Member(1L, "memberVIP", Grade.VIP));
+        memberRepository.save(new Member(2L, "memberBASIC", Grade.BASIC));
+
+        ColumnarOrderRepository orderRepository = new ColumnarOrderRepository();
+        OrderIngestionPipeline pipeline = new OrderIngestionPipeline(memberRepository, new RateDiscountPolicy(),
+                orderRepository, new MemberOrderAggregates(), new OrderIdGenerator(0), 256, 2, 32, WaitStrategy.YIELDING);
+        pipeline.start();
+
+        // when : 4개 스레드가 각각 5,000 건씩, 버퍼가 가득 차면 다시 시도
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    while (!pipeline.tryPublish(i % 2 + 1, "itemA", 10000)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        pipeline.close();
+
+        // then : 절반은 VIP 주문이므로 10% 할인
+        assertThat(pipeline.publishedCount()).isEqualTo(20_000L);
+        assertThat(pipeline.processedCount()).isEqualTo(20_000L);
+        assertThat(pipeline.failedCount()).isEqualTo(0L);
+        assertThat(orderRepository.count()).isEqualTo(20_000L);
+        assertThat(orderRepository.sumDiscountPrice()).isEqualTo(10_000L * 1000);
+        assertThat(pipeline.tryPublish(1L, "itemA", 10000)).isFalse();
+    }
+
+    @Test
+    @DisplayName("회원이 없거나 상품 정보가 잘못된 주문은 저장되지 않고 실패 건수로 기록되어야 한다.")
+    void failInvalidOrders() throws Exception {
+
+        // given
+        OffHeapMemberRepository memberRepository = new OffHeapMemberRepository();
+        memberRepository.save(new Member(1L, "memberA", Grade.VIP));
+
+        ColumnarOrderRepository orderRepository = new ColumnarOrderRepository();
+        OrderIngestionPipeline pipeline = new OrderIngestionPipeline(memberRepository, new RateDiscountPolicy(),
+                orderRepository, new MemberOrderAggregates(), new OrderIdGenerator(0), 16, 1, 8, WaitStrategy.SLEEPING);
+        pipeline.start();
+
+        // when
+        pipeline.tryPublish(1L, "itemA", 10000);
+        pipeline.tryPublish(99L, "itemA", 10000);
+        pipeline.tryPublish(1L, "", 10000);
+        pipeline.close();
+
+        // then
+        assertThat(pipeline.processedCount()).isEqualTo(1L);
+        assertThat(pipeline.failedCount()).isEqualTo(2L);
+        assertThat(orderRepository.count()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("할인 계산에 실패한 주문만 실패로 기록되고, 같은 묶음의 다른 주문은 저장되어야 한다.")
+    void failPerOrder() throws Exception {
+
+        // given
+        OffHeapMemberRepository memberRepository = new OffHeapMemberRepository();
+        memberRepository.save(new Member(1L, "memberA", Grade.VIP));
+
+        DiscountPolicy discountPolicy = (member, price) -> {
+            if (price == 666) {
+                throw new IllegalStateException("할인 계산 실패");
+            }
+            return 0;
+        };
+        List<Integer> failedPrices = new CopyOnWriteArrayList<>();
+
+        ColumnarOrderRepository orderRepository = new ColumnarOrderRepository();
+        OrderIngestionPipeline pipeline = new OrderIngestionPipeline(memberRepository, discountPolicy,
+                orderRepository, new MemberOrderAggregates(), new OrderIdGenerator(0), 16, 1, 8, WaitStrategy.SLEEPING,
+                (memberId, itemName, itemPrice, cause) -> failedPrices.add(itemPrice));
+        pipeline.start();
+
+        // when : 한 묶음 안에 실패할 주문 하나와 회원이 없는 주문 하나
+        pipeline.tryPublish(1L, "itemA", 10000);
+        pipeline.tryPublish(1L, "itemB", 666);
+        pipeline.tryPublish(99L, "itemC", 20000);
+        pipeline.tryPublish(1L, "itemD", 30000);
+        pipeline.close();
+
+        // then
+        assertThat(pipeline.processedCount()).isEqualTo(2L);
+        assertThat(pipeline.failedCount()).isEqualTo(2L);
+        assertThat(failedPrices).containsExactlyInAnyOrder(666, 20000);
+        assertThat(orderRepository.count()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("종료와 동시에 넣은 주문도 받아들여졌다면 모두 처리되어야 한다.")
+    void publishDuringClose() throws Exception {
+
+        // given
+        OffHeapMemberRepository memberRepository = new OffHeapMemberRepository();
+        memberRepository.save(new Member(1L, "memberA", Grade.BASIC));
+
+        ColumnarOrderRepository orderRepository = new ColumnarOrderRepository();
+        OrderIngestionPipeline pipeline = new OrderIngestionPipeline(memberRepository, new RateDiscountPolicy(),
+                orderRepository, new MemberOrderAggregates(), new OrderIdGenerator(0), 1024, 2, 32, WaitStrategy.YIELDING);
+        pipeline.start();
+
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                started.countDown();
+                // 거절되면 ( 버퍼가 가득 찼거나 종료 ) 잠깐 쉬었다가 종료 여부를 다시 확인
+                for (int rejected = 0; rejected < 1000; ) {
+                    if (pipeline.tryPublish(1L, "itemA", 10000)) {
+                        rejected = 0;
+                    } else {
+                        rejected++;
+                        Thread.yield();
+                    }
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        // when
+        started.await();
+        Thread.sleep(20);
+        pipeline.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // then
+        assertThat(pipeline.publishedCount()).isGreaterThan(0L);
+        assertThat(pipeline.processedCount()).isEqualTo(pipeline.publishedCount());
+        assertThat(orderRepository.count()).isEqualTo(pipeline.publishedCount());
+    }
+
+    @Test
+    @DisplayName("링 버퍼가 가득 차면 넣기가 거절되고, 소비된 만큼 다시 넣을 수 있어야 한다.")
+    void ringBufferBackpressure() {
+
+        // given
+        OrderRingBuffer ringBuffer = new OrderRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ringBuffer.tryPublish(i, "item" + i, i)).isTrue();
+        }
+
+        // when
+        boolean overflow = ringBuffer.tryPublish(4, "item4", 4);
+
+        long[] memberIds = new long[3];
+        String[] itemNames = new String[3];
+        int[] itemPrices = new int[3];
+        int drained = ringBuffer.drain(memberIds, itemNames, itemPrices, 3);
+
+        // then
+        assertThat(overflow).isFalse();
+        assertThat(drained).isEqualTo(3);
+        assertThat(memberIds).containsExactly(0L, 1L, 2L);
+        assertThat(ringBuffer.tryPublish(4, "item4", 4)).isTrue();
+        assertThat(ringBuffer.backlog()).isEqualTo(2);
+    }
+}
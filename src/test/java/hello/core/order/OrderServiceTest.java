@@ -8,6 +8,9 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public class OrderServiceTest {
 
     MemberService memberService;
@@ -37,5 +40,122 @@ public class OrderServiceTest {
 
         // 위 주문에서 할인된 금액이 1000원이 맞는지 확인
         Assertions.assertThat(order.getDiscountPrice()).isEqualTo(1000);
+
+        // 주문 id 가 발급되었는지 확인
+        Assertions.assertThat(order.getId()).isPositive();
+    }
+
+    @Test
+    void createOrderAsync() {
+
+        Long memberId = 2L;
+
+        // 회원 등급이 VIP 인 회원 가입
+        Member member = new Member(memberId, "memberB", Grade.VIP);
+        memberService.join(member);
+
+        // 상품은 호출한 스레드에서 검증하고, 회원 조회만 비동기로 수행해서 주문 생성
+        Order order = orderService.createOrderAsync(memberId, "itemA", 10000).join();
+
+        // 동기 주문과 같은 할인 금액이 적용되었는지 확인
+        Assertions.assertThat(order.getDiscountPrice()).isEqualTo(1000);
+    }
+
+    @Test
+    void createOrderAsyncWithInvalidItem() {
+
+        Long memberId = 3L;
+        memberService.join(new Member(memberId, "memberC", Grade.BASIC));
+
+        // 가격이 음수인 상품은 주문이 실패해야 한다. ( 실행기로 넘기기 전에 검증하므로 이미 완료된 future )
+        CompletableFuture<Order> order = orderService.createOrderAsync(memberId, "itemA", -1);
+
+        Assertions.assertThat(order).isCompletedExceptionally();
+        Assertions.assertThatThrownBy(order::join).hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void createOrders() {
+
+        // 같은 회원이 여러 줄을 주문하는 장바구니
+        memberService.join(new Member(4L, "memberD", Grade.VIP));
+        memberService.join(new Member(5L, "memberE", Grade.BASIC));
+
+        List<OrderRequest> requests = List.of(
+                new OrderRequest(4L, "itemA", 10000),
+                new OrderRequest(5L, "itemB", 20000),
+                new OrderRequest(4L, "itemC", 30000));
+
+        List<Order> orders = orderService.createOrders(requests);
+
+        // 요청 순서대로 각 회원의 등급에 맞는 할인이 적용되었는지 확인
+        Assertions.assertThat(orders).hasSize(3);
+        Assertions.assertThat(orders.get(0).getDiscountPrice()).isEqualTo(1000);
+        Assertions.assertThat(orders.get(1).getDiscountPrice()).isEqualTo(0);
+        Assertions.assertThat(orders.get(2).getItemName()).isEqualTo("itemC");
+        Assertions.assertThat(orders.get(2).getDiscountPrice()).isEqualTo(3000);
+    }
+
+    @Test
+    void createOrdersWithUnknownMember() {
+
+        // 가입하지 않은 회원의 주문이 포함되면 실패해야 한다.
+        List<OrderRequest> requests = List.of(new OrderRequest(999_999L, "itemA", 10000));
+
+        Assertions.assertThatThrownBy(() -> orderService.createOrders(requests))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void createOrderWithUnknownMember() {
+
+        // 가입하지 않은 회원이나 회원 id 가 없는 주문은 단건 / 비동기 모두 일괄 주문과 같이 실패해야 한다.
+        Assertions.assertThatThrownBy(() -> orderService.createOrder(999_999L, "itemA", 10000))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("회원이 없습니다");
+        Assertions.assertThatThrownBy(() -> orderService.createOrder(null, "itemA", 10000))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(orderService.createOrderAsync(999_999L, "itemA", 10000)::join)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(orderService.createOrderAsync(null, "itemA", 10000)::join)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void findOrderSummary() {
+
+        Long memberId = 6L;
+        memberService.join(new Member(memberId, "memberF", Grade.VIP));
+
+        // 단건, 일괄 주문 모두 집계에 누적되어야 한다.
+        orderService.createOrder(memberId, "itemA", 10000);
+        orderService.createOrders(List.of(new OrderRequest(memberId, "itemB", 20000)));
+
+        MemberOrderSummary summary = orderService.findOrderSummary(memberId);
+
+        Assertions.assertThat(summary.getOrderCount()).isEqualTo(2L);
+        Assertions.assertThat(summary.getTotalDiscount()).isEqualTo(3000L);
+        Assertions.assertThat(summary.getTotalSpend()).isEqualTo(27000L);
+        Assertions.assertThat(orderService.findOrderSummary(999_999L).getOrderCount()).isEqualTo(0L);
+    }
+
+    @Test
+    void createOrderWithIdempotencyKey() {
+
+        Long memberId = 7L;
+        memberService.join(new Member(memberId, "memberG", Grade.VIP));
+
+        // 같은 멱등 키로 재시도하면 처음 만든 주문이 반환되어야 한다.
+        Order first = orderService.createOrder("order-key-1", memberId, "itemA", 10000);
+        Order retry = orderService.createOrder("order-key-1", memberId, "itemA", 10000);
+        Order other = orderService.createOrder("order-key-2", memberId, "itemA", 10000);
+
+        Assertions.assertThat(retry).isSameAs(first);
+        Assertions.assertThat(other).isNotSameAs(first);
+        Assertions.assertThat(orderService.findOrderSummary(memberId).getOrderCount()).isEqualTo(2L);
+
+        // 같은 멱등 키로 다른 주문을 요청하면 거절되어야 한다.
+        Assertions.assertThatThrownBy(() -> orderService.createOrder("order-key-1", memberId, "itemB", 20000))
+                .isInstanceOf(IllegalArgumentException.class);
     }
 }
@@ -0,0 +1,421 @@
+package hello.core.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("동시에 기록한 주문은 묶어서 반영하고, 다시 열면 모두 읽을 수 있어야 한다.")
+    void groupCommitAndReplay() throws Exception {
+
+        // given
+        int threads = 8;
+        int perThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, 1024 * 1024, 1024)) {
+
+            for (int t = 0; t < threads; t++) {
+                long memberId = t;
+                Thread writer = new Thread(() -> {
+                    try {
+                        start.await();
+                        List<CompletableFuture<Long>> futures = new ArrayList<>();
+                        for (int i = 0; i < perThread; i++) {
+                            futures.add(log.append(new Order(memberId, "item" + i, i, i / 10)));
+                        }
+                        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+
+            // when
+            start.countDown();
+            for (Thread writer : writers) {
+                writer.join();
+            }
+
+            // then
+            assertThat(log.appendedCount()).isEqualTo((long) threads * perThread);
+            assertThat(log.forceCount()).isLessThan((long) threads * perThread);
+        }
+
+        long[] replayed = new long[2];
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, 1024 * 1024, 1024)) {
+            log.replay((orderId, memberId, itemName, itemPrice, discountPrice) -> {
+                replayed[0]++;
+                replayed[1] += itemPrice;
+            });
+        }
+
+        assertThat(replayed[0]).isEqualTo((long) threads * perThread);
+        assertThat(replayed[1]).isEqualTo((long) threads * (perThread * (perThread - 1) / 2));
+    }
+
+    @Test
+    @DisplayName("세그먼트가 가득 차면 다음 세그먼트로 넘어가고, 순서대로 다시 읽을 수 있어야 한다.")
+    void rollover() {
+
+        // given
+        long segmentSize = 64 * 1024;
+
+        // when
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, segmentSize, 16)) {
+            for (int i = 0; i < 5000; i++) {
+                log.append(new Order((long) i, i % 3 == 0 ? null : "itemA", i, 0)).join();
+            }
+        }
+
+        // then
+        assertThat(segmentFiles().size()).isGreaterThan(1);
+
+        List<Long> memberIds = new ArrayList<>();
+        List<String> itemNames = new ArrayList<>();
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, segmentSize, 16)) {
+            log.replay((orderId, memberId, itemName, itemPrice, discountPrice) -> {
+                memberIds.add(memberId);
+                itemNames.add(itemName);
+            });
+        }
+
+        assertThat(memberIds).hasSize(5000);
+        assertThat(memberIds).isSorted();
+        assertThat(itemNames.get(0)).isNull();
+        assertThat(itemNames.get(1)).isEqualTo("itemA");
+    }
+
+    @Test
+    @DisplayName("기록 도중 깨진 레코드는 버리고, 그 위치부터 이어서 기록해야 한다.")
+    void recoverTornTail() throws Exception {
+
+        // given
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, 64 * 1024, 16)) {
+            log.append(new Order(11L, 1L, "itemA", 10000, 1000)).join();
+            log.append(new Order(12L, 2L, "itemB", 20000, 0)).join();
+        }
+
+        // 두 번째 레코드의 본문 일부를 훼손
+        Path segment = segmentFiles().get(0);
+        long secondRecord = OrderWriteAheadLog.HEADER_SIZE + OrderWriteAheadLog.ORDERS_FIXED_SIZE
+                + OrderWriteAheadLog.ORDER_FIXED_SIZE + "itemA".length();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), secondRecord + OrderWriteAheadLog.HEADER_SIZE + 3);
+        }
+
+        // when
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, 64 * 1024, 16)) {
+            log.append(new Order(13L, 3L, "itemC", 30000, 3000)).join();
+        }
+
+        // then
+        List<String> rows = new ArrayList<>();
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, 64 * 1024, 16)) {
+            log.replay((orderId, memberId, itemName, itemPrice, discountPrice) ->
+                    rows.add(orderId + ":" + memberId + ":" + itemName + ":" + itemPrice + ":" + discountPrice));
+        }
+
+        assertThat(rows).containsExactly("11:1:itemA:10000:1000", "13:3:itemC:30000:3000");
+    }
+
+    @Test
+    @DisplayName("로그 선기록 저장소는 재시작 시 로그의 주문으로 저장소를 복구해야 한다.")
+    void walOrderRepositoryReplay() {
+
+        // given
+        try (WalOrderRepository orderRepository =
+                     new WalOrderRepository(new ColumnarOrderRepository(), new OrderWriteAheadLog(directory, 64 * 1024, 16))) {
+            orderRepository.save(new Order(1L, "itemA", 10000, 1000));
+            orderRepository.saveAll(List.of(new Order(2L, "itemB", 20000, 0), new Order(3L, "itemC", 30000, 3000)));
+        }
+
+        // when
+        ColumnarOrderRepository recovered = new ColumnarOrderRepository();
+        try (WalOrderRepository orderRepository =
+                     new WalOrderRepository(recovered, new OrderWriteAheadLog(directory, 64 * 1024, 16))) {
+
+            // then
+            assertThat(orderRepository.count()).isEqualTo(3L);
+            assertThat(recovered.sumItemPrice()).isEqualTo(60000L);
+            assertThat(recovered.sumDiscountPrice()).isEqualTo(4000L);
+        }
+    }
+
+    @Test
+    @DisplayName("일괄 저장 중 한 묶음이 실패하면, 재시작 후에는 호출한 쪽이 성공으로 통보받은 주문만 복구되어야 한다.")
+    void walOrderRepositoryFailedSaveAll() {
+
+        // given : 묶음 크기 1 => 주문마다 force 를 따로 하면 앞쪽 주문만 반영되고 호출한 쪽은 실패를 통보받을 수 있다.
+        AtomicInteger forcesBeforeFailure = new AtomicInteger(-1);
+        List<Long> succeeded = new ArrayList<>();
+
+        try (WalOrderRepository orderRepository = new WalOrderRepository(new ColumnarOrderRepository(),
+                failingLog(forcesBeforeFailure))) {
+
+            saveAll(orderRepository, 1, 2, succeeded);
+
+            // when : 두 번째 force 부터 실패 / 첫 force 부터 실패
+            forcesBeforeFailure.set(1);
+            saveAll(orderRepository, 3, 10, succeeded);
+
+            forcesBeforeFailure.set(0);
+            assertThatThrownBy(() -> orderRepository.saveAll(List.of(new Order(11L, 11L, "itemC", 1000, 0))))
+                    .isInstanceOf(IllegalStateException.class);
+
+            forcesBeforeFailure.set(-1);
+            saveAll(orderRepository, 12, 12, succeeded);
+        }
+
+        // then
+        assertThat(succeeded).contains(1L, 2L, 12L).doesNotContain(11L);
+        assertThat(replayedOrderIds()).containsExactlyElementsOf(succeeded);
+    }
+
+    /**
+     * 주문 id fromId ~ toId 를 한 번에 저장하고, 성공으로 통보받으면 succeeded 에 추가한다.
+     */
+    private static void saveAll(WalOrderRepository orderRepository, long fromId, long toId, List<Long> succeeded) {
+
+        List<Order> orders = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            orders.add(new Order(id, id, "item" + id, 1000, 0));
+        }
+
+        try {
+            orderRepository.saveAll(orders);
+        } catch (IllegalStateException e) {
+            return;
+        }
+
+        orders.forEach(order -> succeeded.add(order.getId()));
+    }
+
+    @Test
+    @DisplayName("로그에 반영된 뒤 저장소 저장에 실패한 주문은 취소되어, 재시작 후에 복구되지 않아야 한다.")
+    void walOrderRepositoryAbortsWhenDelegateFails() {
+
+        // given
+        OrderRepository failingDelegate = new ColumnarOrderRepository() {
+            @Override
+            public void save(Order order) {
+                if (order.getId() == 2L) {
+                    throw new IllegalArgumentException("저장 실패");
+                }
+                super.save(order);
+            }
+
+            @Override
+            public void saveAll(Collection<Order> orders) {
+                orders.forEach(this::save);
+            }
+        };
+
+        try (WalOrderRepository orderRepository =
+                     new WalOrderRepository(failingDelegate, new OrderWriteAheadLog(directory, 64 * 1024, 16))) {
+
+            orderRepository.save(new Order(1L, 1L, "itemA", 1000, 0));
+
+            // when
+            assertThatThrownBy(() -> orderRepository.save(new Order(2L, 2L, "itemB", 2000, 0)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> orderRepository.saveAll(
+                    List.of(new Order(3L, 3L, "itemC", 3000, 0), new Order(2L, 2L, "itemB", 2000, 0))))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            orderRepository.save(new Order(4L, 4L, "itemD", 4000, 0));
+        }
+
+        // then
+        assertThat(replayedOrderIds()).containsExactly(1L, 4L);
+    }
+
+    @Test
+    @DisplayName("force 에 실패한 주문은 실패로 완료되고, 이후 묶음이 성공해도 다시 읽히지 않아야 한다.")
+    void failedBatchIsDiscarded() throws Exception {
+
+        // given
+        AtomicBoolean failForce = new AtomicBoolean();
+
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, 64 * 1024, 16) {
+            @Override
+            void force(FileChannel channel) throws IOException {
+                if (failForce.get()) {
+                    throw new IOException("force 실패");
+                }
+                super.force(channel);
+            }
+        }) {
+            log.append(new Order(1L, "itemA", 10000, 0)).join();
+
+            // when
+            failForce.set(true);
+            CompletableFuture<Long> failed = log.append(new Order(2L, "itemFailed", 20000, 0));
+            assertThatThrownBy(failed::join).hasCauseInstanceOf(IOException.class);
+
+            failForce.set(false);
+            log.append(new Order(3L, "itemC", 30000, 0)).join();
+        }
+
+        // then
+        List<Long> memberIds = new ArrayList<>();
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, 64 * 1024, 16)) {
+            log.replay((orderId, memberId, itemName, itemPrice, discountPrice) -> memberIds.add(memberId));
+        }
+
+        assertThat(memberIds).containsExactly(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("다음 세그먼트를 만들지 못하면 그 묶음만 실패하고, 이후 묶음에서 다시 만들어야 한다.")
+    void failedRolloverIsRetried() throws Exception {
+
+        // given
+        long segmentSize = 64 * 1024;
+        List<Long> written = new ArrayList<>();
+
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, segmentSize, 16)) {
+
+            // 다음 세그먼트 자리에 디렉토리가 있어서 파일을 만들 수 없다.
+            Path blocker = Files.createDirectory(directory.resolve("orders-00000002.wal"));
+            long memberId = 0;
+            CompletableFuture<Long> future;
+
+            do {
+                future = log.append(new Order(memberId, "itemA", 1000, 0));
+                try {
+                    future.join();
+                    written.add(memberId);
+                } catch (CompletionException e) {
+                    break;
+                }
+                memberId++;
+            } while (memberId < 10_000);
+
+            assertThat(future.isCompletedExceptionally()).isTrue();
+
+            // when
+            Files.delete(blocker);
+            log.append(new Order(memberId + 1, "itemB", 2000, 0)).join();
+            written.add(memberId + 1);
+        }
+
+        // then
+        List<Long> memberIds = new ArrayList<>();
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, segmentSize, 16)) {
+            log.replay((orderId, memberId, itemName, itemPrice, discountPrice) -> memberIds.add(memberId));
+        }
+
+        assertThat(segmentFiles()).hasSize(2);
+        assertThat(memberIds).isEqualTo(written);
+    }
+
+    @Test
+    @DisplayName("닫는 도중에 들어온 기록 요청도 성공하거나 거절되어, 완료되지 않는 future 가 없어야 한다.")
+    void closeCompletesEveryAppend() throws Exception {
+
+        // given
+        int threads = 8;
+        OrderWriteAheadLog log = new OrderWriteAheadLog(directory, 1024 * 1024, 64);
+        List<CompletableFuture<Long>> futures = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(threads);
+        List<Thread> writers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            long memberId = t;
+            Thread writer = new Thread(() -> {
+                started.countDown();
+                CompletableFuture<Long> future;
+                do {
+                    future = log.append(new Order(memberId, "itemA", 1000, 0));
+                    futures.add(future);
+                } while (!future.isCompletedExceptionally());
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        // when
+        started.await();
+        log.close();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // then
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .handle((ignored, e) -> null)
+                .get(5, TimeUnit.SECONDS);
+
+        long succeeded = futures.stream().filter(future -> !future.isCompletedExceptionally()).count();
+        assertThat(succeeded).isEqualTo(log.appendedCount());
+    }
+
+    /**
+     * forcesBeforeFailure 번 force 한 뒤부터 force 에 실패하는 로그 ( 음수이면 실패하지 않는다. )
+     */
+    private OrderWriteAheadLog failingLog(AtomicInteger forcesBeforeFailure) {
+
+        return new OrderWriteAheadLog(directory, 64 * 1024, 1) {
+            @Override
+            void force(FileChannel channel) throws IOException {
+                if (forcesBeforeFailure.get() == 0) {
+                    throw new IOException("force 실패");
+                }
+                if (forcesBeforeFailure.get() > 0) {
+                    forcesBeforeFailure.decrementAndGet();
+                }
+                super.force(channel);
+            }
+        };
+    }
+
+    private List<Long> replayedOrderIds() {
+
+        List<Long> orderIds = new ArrayList<>();
+
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory, 64 * 1024, 16)) {
+            log.replay((orderId, memberId, itemName, itemPrice, discountPrice) -> orderIds.add(orderId));
+        }
+
+        return orderIds;
+    }
+
+    private List<Path> segmentFiles() {
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package hello.core.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SegmentOrderStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("세그먼트와 메모리 버퍼에 나뉘어 있는 회원의 주문을 주문 id 순으로 모두 찾아야 한다.")
+    void findByMemberId() {
+
+        // given : 회원 100 명이 각각 주문 20 건, 버퍼 500 건마다 세그먼트로 내려 쓴다.
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 500, 100)) {
+            long orderId = 1;
+            for (int round = 0; round < 20; round++) {
+                for (long memberId = 1; memberId <= 100; memberId++) {
+                    store.save(new Order(orderId++, memberId, "item" + round, 1000 * round, 0));
+                }
+            }
+            store.save(new Order(orderId, 7L, null, 1, 0));
+
+            // when
+            List<Order> orders = store.findByMemberId(7L);
+
+            // then
+            assertThat(store.segmentCount()).isEqualTo(4);
+            assertThat(store.count()).isEqualTo(2001L);
+            assertThat(orders).hasSize(21);
+            assertThat(orders.stream().allMatch(order -> order.getMemberId() == 7L)).isTrue();
+            assertThat(orders.get(0).getItemName()).isEqualTo("item0");
+            assertThat(orders.get(20).getItemName()).isNull();
+            for (int i = 1; i < orders.size(); i++) {
+                assertThat(orders.get(i).getId()).isGreaterThan(orders.get(i - 1).getId());
+            }
+            assertThat(store.findByMemberId(1000L)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("회원 id 범위로 순회하면 범위 안의 주문만 (회원 id, 주문 id) 순으로 전달해야 한다.")
+    void scanByMemberIdRange() {
+
+        // given
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 64, 100)) {
+            for (long orderId = 1; orderId <= 1000; orderId++) {
+                store.save(new Order(orderId, orderId % 50, "itemA", 100, 10));
+            }
+
+            // when
+            List<Long> memberIds = new ArrayList<>();
+            store.scanByMemberId(10, 12, (orderId, memberId, itemName, itemPrice, discountPrice) -> memberIds.add(memberId));
+
+            // then
+            assertThat(memberIds).hasSize(60);
+            assertThat(memberIds).isSorted();
+            assertThat(memberIds.get(0)).isEqualTo(10L);
+            assertThat(memberIds.get(59)).isEqualTo(12L);
+        }
+    }
+
+    @Test
+    @DisplayName("세그먼트를 병합해도 주문이 그대로 남아 있고, 다시 열면 같은 주문을 읽을 수 있어야 한다.")
+    void compactAndReopen() {
+
+        // given
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 100, 100)) {
+            for (long orderId = 1; orderId <= 1000; orderId++) {
+                store.save(new Order(orderId, orderId % 30, "itemA", (int) orderId, 0));
+            }
+
+            // when
+            store.compact();
+
+            // then
+            assertThat(store.segmentCount()).isEqualTo(1);
+            assertThat(store.compactionCount()).isEqualTo(1L);
+            assertThat(store.findByMemberId(3L)).hasSize(34);
+        }
+
+        assertThat(segmentFiles()).hasSize(1);
+
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 100, 100)) {
+            long[] total = new long[2];
+            store.scan((orderId, memberId, itemName, itemPrice, discountPrice) -> {
+                total[0]++;
+                total[1] += itemPrice;
+            });
+
+            assertThat(store.count()).isEqualTo(1000L);
+            assertThat(total[0]).isEqualTo(1000L);
+            assertThat(total[1]).isEqualTo(500500L);
+        }
+    }
+
+    @Test
+    @DisplayName("세그먼트가 기준 개수만큼 쌓이면 백그라운드에서 병합해야 한다.")
+    void backgroundCompaction() throws Exception {
+
+        // given
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 10, 4)) {
+
+            // when
+            for (long orderId = 1; orderId <= 200; orderId++) {
+                store.save(new Order(orderId, orderId % 7, "itemA", 100, 0));
+            }
+            for (int i = 0; i < 100 && store.compactionCount() == 0; i++) {
+                Thread.sleep(20);
+            }
+
+            // then
+            assertThat(store.compactionCount()).isPositive();
+            assertThat(store.segmentCount()).isLessThan(20);
+            assertThat(store.findByMemberId(0L)).hasSize(28);
+        }
+    }
+
+    @Test
+    @DisplayName("같은 계층의 세그먼트만 병합해서, 주문이 다시 쓰이는 횟수가 계층 수 정도로 제한되어야 한다.")
+    void sizeTieredCompaction() {
+
+        // given : 버퍼 10 건, 같은 계층 4 개마다 병합 => 10 / 40 / 160 / 640 건 세그먼트
+        int orders = 640;
+
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 10, 4)) {
+
+            // when
+            for (long orderId = 1; orderId <= orders; orderId++) {
+                store.save(new Order(orderId, orderId % 13, "itemA", 100, 0));
+            }
+            store.compactTiers();
+
+            // then : 계층마다 병합 전 세그먼트가 3 개 이하로 남고, 주문은 계층 수 ( 3 ) 번 이하로 다시 쓰인다.
+            //        ( 전체를 매번 병합하면 40 + 70 + ... + 640 건 이상 다시 쓴다. )
+            assertThat(store.segmentCount()).isLessThanOrEqualTo(3 * 4);
+            assertThat(store.compactedOrderCount()).isLessThanOrEqualTo(3L * orders);
+            assertThat(store.findByMemberId(5L)).hasSize(49);
+        }
+
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 10, 4)) {
+            assertThat(store.count()).isEqualTo(orders);
+            assertThat(store.findByMemberId(5L)).hasSize(49);
+        }
+    }
+
+    @Test
+    @DisplayName("세그먼트에 기록할 수 없는 긴 상품명의 주문은 저장하기 전에 거절해야 한다.")
+    void rejectLongItemName() {
+
+        // given : UTF-8 로 32766 바이트인 상품명은 기록할 수 있다.
+        String longest = "가".repeat(OrderSegment.MAX_ITEM_NAME / 3);
+        String tooLong = "a".repeat(OrderSegment.MAX_ITEM_NAME / 3 + 1);
+
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 2, 100)) {
+            store.save(new Order(1L, 1L, longest, 100, 0));
+
+            // when / then
+            assertThatThrownBy(() -> store.save(new Order(2L, 1L, tooLong, 100, 0)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> store.saveAll(List.of(new Order(3L, 1L, "itemA", 100, 0), new Order(4L, 1L, tooLong, 100, 0))))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            store.save(new Order(5L, 1L, "itemB", 100, 0));
+
+            assertThat(store.segmentCount()).isEqualTo(1);
+            assertThat(store.findByMemberId(1L)).extracting(Order::getId).containsExactly(1L, 5L);
+            assertThat(store.findByMemberId(1L).get(0).getItemName()).isEqualTo(longest);
+        }
+    }
+
+    @Test
+    @DisplayName("비정상 종료되어도 메모리 버퍼의 주문을 로그에서 복구하고, 다시 열 때마다 주문이 중복되지 않아야 한다.")
+    void recoverMemtableAfterCrash() {
+
+        // given : 버퍼 500 건, 로그 세그먼트 64KB, 50 건씩 3050 건 저장 => 세그먼트 6 개 + 버퍼 50 건
+        SegmentOrderStore crashed = new SegmentOrderStore(directory, 500, 100, 64 * 1024);
+        saveAll(crashed, 1, 3050);
+
+        assertThat(crashed.segmentCount()).isEqualTo(6);
+        // 세그먼트로 옮긴 주문만 들어 있는 로그 세그먼트 파일은 지워진다.
+        assertThat(walFiles()).hasSize(1);
+
+        // when : close 하지 않고 ( 비정상 종료 ) 다시 여는 것을 두 번 반복
+        SegmentOrderStore crashedAgain = new SegmentOrderStore(directory, 500, 100, 64 * 1024);
+        assertThat(crashedAgain.count()).isEqualTo(3050L);
+
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 500, 100, 64 * 1024)) {
+
+            // then
+            assertThat(store.count()).isEqualTo(3050L);
+            assertThat(store.findByMemberId(3L)).extracting(Order::getId).doesNotHaveDuplicates().hasSize(305);
+
+            saveAll(store, 3051, 3100);
+        }
+
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 500, 100, 64 * 1024)) {
+            long[] total = new long[1];
+            store.scan((orderId, memberId, itemName, itemPrice, discountPrice) -> total[0]++);
+
+            assertThat(store.count()).isEqualTo(3100L);
+            assertThat(total[0]).isEqualTo(3100L);
+        }
+    }
+
+    @Test
+    @DisplayName("세그먼트를 내려 쓰는 동안에도 다른 스레드의 저장과 조회가 모든 주문을 빠짐없이 한 번씩 보아야 한다.")
+    void concurrentSaveAndFind() throws Exception {
+
+        // given
+        int writers = 4;
+        int perWriter = 5_000;
+
+        try (SegmentOrderStore store = new SegmentOrderStore(directory, 256, 4)) {
+            List<Thread> threads = new ArrayList<>();
+            List<String> errors = new CopyOnWriteArrayList<>();
+
+            // when : 회원 id = 작성 스레드 번호, 각 스레드는 자기 주문을 저장할 때마다 지금까지의 주문 수를 확인
+            for (int w = 0; w < writers; w++) {
+                long memberId = w;
+                Thread writer = new Thread(() -> {
+                    for (int i = 0; i < perWriter; i++) {
+                        store.save(new Order(memberId * perWriter + i + 1, memberId, "itemA", 100, 0));
+
+                        if (i % 500 == 499) {
+                            int found = store.findByMemberId(memberId).size();
+                            if (found != i + 1) {
+                                errors.add("memberId = " + memberId + ", expected = " + (i + 1) + ", found = " + found);
+                            }
+                        }
+                    }
+                });
+                writer.start();
+                threads.add(writer);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            // then
+            assertThat(errors).isEmpty();
+            assertThat(store.count()).isEqualTo((long) writers * perWriter);
+            for (long memberId = 0; memberId < writers; memberId++) {
+                assertThat(store.findByMemberId(memberId)).hasSize(perWriter);
+            }
+        }
+    }
+
+    private List<Path> segmentFiles() {
+        return files(directory);
+    }
+
+    private List<Path> walFiles() {
+        return files(directory.resolve("wal"));
+    }
+
+    private static List<Path> files(Path directory) {
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void saveAll(SegmentOrderStore store, long fromOrderId, long toOrderId) {
+
+        for (long orderId = fromOrderId; orderId <= toOrderId; orderId += 50) {
+            List<Order> orders = new ArrayList<>();
+            for (long id = orderId; id < orderId + 50 && id <= toOrderId; id++) {
+                orders.add(new Order(id, id % 10, "itemA", 100, 0));
+            }
+            store.saveAll(orders);
+        }
+    }
+}